@@ -0,0 +1,44 @@
+package com.epam.xm.task1.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Locale;
+
+/**
+ * Runs benchmarks with allocation profiling and stores results as JSON, so runs can be compared.
+ * <br> Usage, from the project root:
+ * <pre>
+ * mvn -f benchmarks/pom.xml package
+ * java -jar benchmarks/target/benchmarks.jar                          # all benchmarks with default scales
+ * java -jar benchmarks/target/benchmarks.jar Query -p symbols=5000    # usual JMH options are accepted
+ * java -Xmx16g -jar benchmarks/target/benchmarks.jar Ingestion -p ticks=100000000 -jvmArgsAppend -Xmx16g
+ * </pre>
+ * Results are written to {@code jmh-result.json}, or to file passed with {@code -rff} in format passed with {@code -rf}.
+ */
+public final class BenchmarkRunner {
+
+    private static final String RESULT_FILE_NAME = "jmh-result";
+
+    private BenchmarkRunner() {
+        throw new IllegalStateException();
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLineOptions);
+        options.addProfiler(GCProfiler.class);
+        ResultFormatType resultFormat = commandLineOptions.getResultFormat().orElse(ResultFormatType.JSON);
+        options.resultFormat(resultFormat);
+        if (!commandLineOptions.getResult().hasValue()) {
+            options.result(RESULT_FILE_NAME + "." + resultFormat.name().toLowerCase(Locale.ROOT));
+        }
+        new Runner(options.build()).run();
+    }
+}
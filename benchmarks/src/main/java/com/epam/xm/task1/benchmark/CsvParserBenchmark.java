@@ -0,0 +1,74 @@
+package com.epam.xm.task1.benchmark;
+
+import com.epam.xm.task1.model.CryptoMetaDataAccumulator;
+import com.epam.xm.task1.parser.CryptoBatchConsumer;
+import com.epam.xm.task1.parser.CryptoBinaryConverter;
+import com.epam.xm.task1.parser.CryptoBinaryParser;
+import com.epam.xm.task1.parser.CryptoCsvParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Parsing of a single uploaded csv file, which replaced reading the file into a list of cryptos,
+ * and of the same file converted into binary format
+ */
+@State(Scope.Benchmark)
+public class CsvParserBenchmark extends BenchmarkDefaults {
+
+    @Param({"10000", "1000000"})
+    public long ticks;
+
+    private String symbol;
+    private Path dir;
+    private Path file;
+    private Path binaryFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticCryptoData data = SyntheticCryptoData.generate(ticks, 1, 42);
+        symbol = data.symbol(0);
+        dir = Files.createTempDirectory("crypto-parser");
+        file = dir.resolve(symbol.toUpperCase() + "_values.csv");
+        binaryFile = dir.resolve(symbol.toUpperCase() + "_values.bin");
+        data.writeCsv(0, file);
+        CryptoBinaryConverter.convert(file, binaryFile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(binaryFile);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public CryptoMetaDataAccumulator parse(Blackhole blackhole) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return new CryptoCsvParser(symbol).parse(inputStream, consumer(blackhole));
+        }
+    }
+
+    @Benchmark
+    public CryptoMetaDataAccumulator parseBinary(Blackhole blackhole) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(binaryFile)) {
+            return new CryptoBinaryParser(symbol).parse(inputStream, consumer(blackhole));
+        }
+    }
+
+    private static CryptoBatchConsumer consumer(Blackhole blackhole) {
+        return (timestamps, prices, size) -> {
+            blackhole.consume(timestamps);
+            blackhole.consume(prices);
+        };
+    }
+}
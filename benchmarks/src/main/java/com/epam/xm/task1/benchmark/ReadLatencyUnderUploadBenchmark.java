@@ -0,0 +1,143 @@
+package com.epam.xm.task1.benchmark;
+
+import com.epam.xm.task1.Task1Application;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Latency of a cheap read endpoint while uploads keep arriving, with requests handled on platform threads
+ * and on virtual threads.
+ * <br> Tomcat's platform pool is limited by {@link #requestThreads}, fewer than concurrent uploads, as in a busy
+ * deployment. Virtual threads mode needs the benchmarks built with {@code -Pjava21} and run on Java 21.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(4)
+public class ReadLatencyUnderUploadBenchmark {
+
+    private static final String BOUNDARY = "crypto-benchmark-boundary";
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"16"})
+    public int requestThreads;
+
+    @Param({"64"})
+    public int uploaders;
+
+    @Param({"200000"})
+    public long ticksPerUpload;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI sortedUri;
+    private ExecutorService uploadStorm;
+    private final AtomicBoolean uploading = new AtomicBoolean();
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        context = SpringApplication.run(Task1Application.class,
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + requestThreads,
+                "--crypto.threads.virtual=" + virtualThreads,
+                "--logging.level.root=WARN");
+        if (virtualThreads && !context.containsBean("virtualThreadConfig")) {
+            context.close();
+            throw new IllegalStateException("Virtual threads need benchmarks built with -Pjava21 and run on Java 21");
+        }
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        sortedUri = URI.create("http://localhost:" + port + "/api/cryptos/sorted/normalized_desc");
+
+        SyntheticCryptoData data = SyntheticCryptoData.generate(5 * ticksPerUpload, 5, 42);
+        List<HttpRequest> uploads = new ArrayList<>();
+        for (int s = 0; s < data.symbolCount(); s++) {
+            uploads.add(uploadRequest(port, data, s));
+        }
+        // the first upload makes the read endpoint return data
+        client.send(uploads.get(0), HttpResponse.BodyHandlers.discarding());
+
+        uploading.set(true);
+        uploadStorm = Executors.newFixedThreadPool(uploaders);
+        for (int u = 0; u < uploaders; u++) {
+            HttpRequest upload = uploads.get(u % uploads.size());
+            uploadStorm.submit(() -> {
+                while (uploading.get()) {
+                    client.send(upload, HttpResponse.BodyHandlers.discarding());
+                }
+                return null;
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        uploading.set(false);
+        uploadStorm.shutdown();
+        uploadStorm.awaitTermination(1, TimeUnit.MINUTES);
+        context.close();
+    }
+
+    @Benchmark
+    public int getSortedCryptos() throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(sortedUri).GET().build(), HttpResponse.BodyHandlers.ofByteArray())
+                .statusCode();
+    }
+
+    private static HttpRequest uploadRequest(int port, SyntheticCryptoData data, int index) throws IOException {
+        String fileName = data.symbol(index).toUpperCase() + "_values.csv";
+        Path file = Files.createTempFile(data.symbol(index), ".csv");
+        byte[] csv;
+        try {
+            data.writeCsv(index, file);
+            csv = Files.readAllBytes(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(csv.length + 256);
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: text/csv\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(csv);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/cryptos/upload?mode=replace"))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.epam.xm.task1.benchmark;
+
+import com.epam.xm.task1.model.Crypto;
+import com.epam.xm.task1.parser.CryptoCsvParser;
+import com.epam.xm.task1.repository.CryptoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Loading of all generated ticks into an empty repository, an operation is the whole load
+ */
+@State(Scope.Benchmark)
+public class RepositoryIngestionBenchmark extends BenchmarkDefaults {
+
+    @Param({"10000", "1000000"})
+    public long ticks;
+
+    @Param({"5", "5000"})
+    public int symbols;
+
+    private SyntheticCryptoData data;
+    private List<Crypto> cryptos;
+
+    @Setup
+    public void setUp() {
+        data = SyntheticCryptoData.generate(ticks, symbols, 42);
+        cryptos = data.interleavedCryptos();
+    }
+
+    /**
+     * Ticks added one by one, as single ticks arriving from a feed
+     */
+    @Benchmark
+    public CryptoRepository addByDate() {
+        CryptoRepository repository = new CryptoRepository();
+        for (Crypto crypto : cryptos) {
+            repository.addByDate(crypto);
+        }
+        return repository;
+    }
+
+    /**
+     * Ticks added in batches of parser's size, as uploaded files are stored
+     */
+    @Benchmark
+    public CryptoRepository addBatch() {
+        CryptoRepository repository = new CryptoRepository();
+        int batchSize = CryptoCsvParser.DEFAULT_BATCH_SIZE;
+        long[] timestamps = new long[batchSize];
+        double[] prices = new double[batchSize];
+        for (int s = 0; s < data.symbolCount(); s++) {
+            long[] symbolTimestamps = data.timestamps(s);
+            double[] symbolPrices = data.prices(s);
+            for (int from = 0; from < symbolTimestamps.length; from += batchSize) {
+                int size = Math.min(batchSize, symbolTimestamps.length - from);
+                System.arraycopy(symbolTimestamps, from, timestamps, 0, size);
+                System.arraycopy(symbolPrices, from, prices, 0, size);
+                repository.addBatch(data.symbol(s), timestamps, prices, size);
+            }
+        }
+        return repository;
+    }
+}
@@ -0,0 +1,93 @@
+package com.epam.xm.task1.benchmark;
+
+import com.epam.xm.task1.enums.CryptoSortingTypeEnum;
+import com.epam.xm.task1.model.CryptoMetaData;
+import com.epam.xm.task1.repository.CryptoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of a repository holding all generated ticks
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryQueryBenchmark extends BenchmarkDefaults {
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    @Param({"10000", "1000000"})
+    public long ticks;
+
+    @Param({"5", "5000"})
+    public int symbols;
+
+    @Param({"NORMALIZED_DESC", "VOLATILITY_DESC"})
+    public CryptoSortingTypeEnum sorting;
+
+    private SyntheticCryptoData data;
+    private CryptoRepository repository;
+    private int day;
+    private int updatedSymbol;
+    // whether the newest tick of the crypto currently has the raised price
+    private boolean[] bumped;
+
+    @Setup
+    public void setUp() {
+        data = SyntheticCryptoData.generate(ticks, symbols, 42);
+        repository = new CryptoRepository();
+        bumped = new boolean[data.symbolCount()];
+        for (int s = 0; s < data.symbolCount(); s++) {
+            repository.addBatch(data.symbol(s), data.timestamps(s), data.prices(s), data.timestamps(s).length);
+        }
+    }
+
+    @Benchmark
+    public String getHighestNormalizedRangesForDay() {
+        day = (day + 1) % SyntheticCryptoData.DAYS;
+        return repository.getHighestNormalizedRangesForDay(SyntheticCryptoData.FIRST_DAY.plusDays(day));
+    }
+
+    /**
+     * Ranking read while metadata does not change
+     */
+    @Benchmark
+    public List<String> getSortedCryptosByPassedAlgo() {
+        return repository.getSortedCryptosByPassedAlgo(sorting);
+    }
+
+    @Benchmark
+    public List<String> getSortedCryptosByPassedAlgoTop10() {
+        return repository.getSortedCryptosByPassedAlgo(sorting, 10);
+    }
+
+    /**
+     * Ranking read right after an upload changed metadata of a crypto
+     */
+    @Benchmark
+    public List<String> getSortedCryptosByPassedAlgoAfterUpload() {
+        updatedSymbol = (updatedSymbol + 1) % data.symbolCount();
+        long[] timestamps = data.timestamps(updatedSymbol);
+        double[] prices = data.prices(updatedSymbol);
+        int last = timestamps.length - 1;
+        // price of the newest tick alternates per crypto, so metadata changes on every call
+        bumped[updatedSymbol] = !bumped[updatedSymbol];
+        double price = prices[last] * (bumped[updatedSymbol] ? 1.5 : 1);
+        repository.addBatch(data.symbol(updatedSymbol), new long[]{timestamps[last]}, new double[]{price}, 1);
+        return repository.getSortedCryptosByPassedAlgo(sorting);
+    }
+
+    @Benchmark
+    public CryptoMetaData getMetadataForCryptoInRange() {
+        day = (day + 1) % SyntheticCryptoData.DAYS;
+        long from = data.timestamps(0)[0] + day * DAY_MILLIS;
+        return repository.getMetadataForCrypto(data.symbol(0), from, from + 7 * DAY_MILLIS);
+    }
+}
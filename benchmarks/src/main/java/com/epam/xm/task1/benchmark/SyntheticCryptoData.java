@@ -0,0 +1,131 @@
+package com.epam.xm.task1.benchmark;
+
+import com.epam.xm.task1.model.Crypto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic ticks of several cryptos, spread evenly over {@link #DAYS} days.
+ * <br> Timestamps of every crypto are ascending with random gaps, prices follow a random walk,
+ * as in real exports. The first five cryptos are named as the supported ones, others are numbered.
+ */
+public final class SyntheticCryptoData {
+
+    public static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+    public static final int DAYS = 30;
+
+    private static final List<String> KNOWN_SYMBOLS = List.of("btc", "doge", "eth", "ltc", "xrp");
+
+    private final String[] symbols;
+    private final long[][] timestamps;
+    private final double[][] prices;
+
+    private SyntheticCryptoData(String[] symbols, long[][] timestamps, double[][] prices) {
+        this.symbols = symbols;
+        this.timestamps = timestamps;
+        this.prices = prices;
+    }
+
+    /**
+     * @param ticks   number of ticks of all cryptos together
+     * @param symbols number of cryptos, each crypto gets the same number of ticks
+     * @param seed    seed of the random generator, the same seed generates the same data
+     * @return generated data
+     */
+    public static SyntheticCryptoData generate(long ticks, int symbols, long seed) {
+        long ticksPerSymbol = Math.max(1, ticks / symbols);
+        if (ticksPerSymbol > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many ticks per crypto: " + ticksPerSymbol);
+        }
+        Random random = new Random(seed);
+        long from = FIRST_DAY.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long to = FIRST_DAY.plusDays(DAYS).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long step = Math.max(1, (to - from) / ticksPerSymbol);
+
+        String[] names = new String[symbols];
+        long[][] timestamps = new long[symbols][(int) ticksPerSymbol];
+        double[][] prices = new double[symbols][(int) ticksPerSymbol];
+        for (int s = 0; s < symbols; s++) {
+            names[s] = s < KNOWN_SYMBOLS.size() ? KNOWN_SYMBOLS.get(s) : String.format(Locale.ROOT, "c%05d", s);
+            double price = 1 + random.nextInt(50_000);
+            for (int i = 0; i < ticksPerSymbol; i++) {
+                timestamps[s][i] = from + i * step + random.nextInt((int) Math.min(step, Integer.MAX_VALUE));
+                price = Math.max(0.0001, price * (1 + random.nextGaussian() * 0.002));
+                prices[s][i] = price;
+            }
+        }
+        return new SyntheticCryptoData(names, timestamps, prices);
+    }
+
+    public int symbolCount() {
+        return symbols.length;
+    }
+
+    public String symbol(int index) {
+        return symbols[index];
+    }
+
+    public long[] timestamps(int index) {
+        return timestamps[index];
+    }
+
+    public double[] prices(int index) {
+        return prices[index];
+    }
+
+    /**
+     * @return ticks of all cryptos interleaved by time, as they would arrive from a feed
+     */
+    public List<Crypto> interleavedCryptos() {
+        List<Crypto> cryptos = new ArrayList<>();
+        int ticksPerSymbol = timestamps[0].length;
+        for (int i = 0; i < ticksPerSymbol; i++) {
+            for (int s = 0; s < symbols.length; s++) {
+                cryptos.add(new Crypto(timestamps[s][i], symbols[s], prices[s][i]));
+            }
+        }
+        return cryptos;
+    }
+
+    /**
+     * @return ticks of crypto with provided index
+     */
+    public List<Crypto> cryptos(int index) {
+        List<Crypto> cryptos = new ArrayList<>(timestamps[index].length);
+        for (int i = 0; i < timestamps[index].length; i++) {
+            cryptos.add(new Crypto(timestamps[index][i], symbols[index], prices[index][i]));
+        }
+        return cryptos;
+    }
+
+    /**
+     * Writes ticks of crypto with provided index as uploaded csv file
+     *
+     * @param index index of crypto
+     * @param file  file to write, replaced if exists
+     */
+    public void writeCsv(int index, Path file) throws IOException {
+        String symbol = symbols[index].toUpperCase(Locale.ROOT);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            writer.write("timestamp,symbol,price\n");
+            for (int i = 0; i < timestamps[index].length; i++) {
+                writer.write(Long.toString(timestamps[index][i]));
+                writer.write(',');
+                writer.write(symbol);
+                writer.write(',');
+                writer.write(Double.toString(prices[index][i]));
+                writer.write('\n');
+            }
+        }
+    }
+}
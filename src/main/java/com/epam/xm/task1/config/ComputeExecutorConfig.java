@@ -0,0 +1,43 @@
+package com.epam.xm.task1.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Shared executors for CPU-bound work, sized by {@code crypto.compute.*} properties
+ */
+@Configuration
+public class ComputeExecutorConfig {
+
+    /**
+     * Bounded executor for CPU-bound tasks. When its queue is full, the task runs on the submitting thread,
+     * which slows down producers instead of dropping work.
+     *
+     * @param parallelism      number of threads, all available processors if not positive
+     * @param queueCapacity    max number of waiting tasks
+     * @param awaitTermination seconds to wait for running tasks on shutdown
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cryptoComputeExecutor(@Value("${crypto.compute.parallelism:0}") int parallelism,
+                                                        @Value("${crypto.compute.queue-capacity:256}") int queueCapacity,
+                                                        @Value("${crypto.compute.await-termination-seconds:30}") int awaitTermination) {
+        int threads = threads(parallelism);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("crypto-compute-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(awaitTermination);
+        return executor;
+    }
+
+    private static int threads(int parallelism) {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,12 @@
+package com.epam.xm.task1.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables background maintenance tasks, such as compaction of {@link com.epam.xm.task1.repository.CryptoWriteAheadLog}
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,18 +1,31 @@
 package com.epam.xm.task1.controller;
 
+import com.epam.xm.task1.enums.CryptoFileFormatEnum;
 import com.epam.xm.task1.enums.CryptoSortingTypeEnum;
-import com.epam.xm.task1.model.MetaDataAdapter;
+import com.epam.xm.task1.enums.UploadModeEnum;
+import com.epam.xm.task1.model.BulkUploadReport;
+import com.epam.xm.task1.model.Candle;
+import com.epam.xm.task1.model.CryptoSymbol;
+import com.epam.xm.task1.model.RangeMetaData;
 import com.epam.xm.task1.service.CryptoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -25,44 +38,213 @@ public class CryptoController {
     /**
      * Uploads file content to server
      *
-     * @param file contains uploaded file
+     * @param file contains uploaded file named CRYPTO_NAME_values.csv or CRYPTO_NAME_values.bin
+     * @param mode {@link UploadModeEnum} string representation (case ignored): append to stored history
+     *             or replace it, appends by default
      * @return error in header "ErrorMsg" in case of any error occurred during data saving process
      */
     @PostMapping("/upload")
-    public ResponseEntity<Void> uploadFile(@RequestParam("file") MultipartFile file) {
-        return cryptoService.processUploadedFile(file);
+    public ResponseEntity<Void> uploadFile(@RequestParam("file") MultipartFile file,
+                                           @RequestParam(value = "mode", defaultValue = "append") String mode) {
+        return cryptoService.processUploadedFile(file, mode);
+    }
+
+    /**
+     * Uploads CSV content sent as raw request body, which is parsed and stored while it arrives
+     *
+     * @param cryptoName crypto's name (case ignored)
+     * @param body       content in the same format as CRYPTO_NAME_values.csv file
+     * @param mode       {@link UploadModeEnum} string representation (case ignored): append to stored history
+     *                   or replace it, appends by default
+     * @return error in header "ErrorMsg" in case of any error occurred during data saving process
+     */
+    @PostMapping(value = "/upload/stream/{cryptoName}", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<Void> uploadStream(@PathVariable("cryptoName") String cryptoName, InputStream body,
+                                             @RequestParam(value = "mode", defaultValue = "append") String mode) {
+        return cryptoService.processUploadedStream(cryptoName, CryptoFileFormatEnum.CSV, body, mode);
+    }
+
+    /**
+     * Uploads binary content sent as raw request body, which is parsed and stored while it arrives
+     *
+     * @param cryptoName crypto's name (case ignored)
+     * @param body       content in the same format as CRYPTO_NAME_values.bin file
+     * @param mode       {@link UploadModeEnum} string representation (case ignored): append to stored history
+     *                   or replace it, appends by default
+     * @return error in header "ErrorMsg" in case of any error occurred during data saving process
+     */
+    @PostMapping(value = "/upload/stream/{cryptoName}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Void> uploadBinaryStream(@PathVariable("cryptoName") String cryptoName, InputStream body,
+                                                   @RequestParam(value = "mode", defaultValue = "append") String mode) {
+        return cryptoService.processUploadedStream(cryptoName, CryptoFileFormatEnum.BINARY, body, mode);
+    }
+
+    /**
+     * Uploads several files at once, which are stored all together or not stored at all
+     *
+     * @param files several files named CRYPTO_NAME_values.csv, or a single ZIP archive containing such files
+     * @param mode  {@link UploadModeEnum} string representation (case ignored): append to stored history
+     *              or replace it, appends by default
+     * @return report with result of each file,
+     * or error in header "ErrorMsg" in case the upload itself is wrong or could not be processed
+     */
+    @PostMapping("/upload/bulk")
+    public ResponseEntity<BulkUploadReport> uploadFiles(@RequestParam("files") List<MultipartFile> files,
+                                                        @RequestParam(value = "mode", defaultValue = "append") String mode) {
+        return cryptoService.processUploadedFiles(files, mode);
     }
 
     /**
      * Returns names of cryptos in sorted order, which were uploaded earlier
      *
      * @param sortingType {@link CryptoSortingTypeEnum} string representation (case ignored)
-     * @return List of sorted crypto names
+     * @param limit       max number of returned cryptos, all cryptos are returned if absent
+     * @param ifNoneMatch ETag of previously returned ranking
+     * @return List of sorted crypto names, or notModified status if ranking did not change
      */
     @GetMapping("/sorted/{sortingType}")
-    public ResponseEntity<List<String>> getSortedListOfCryptos(@PathVariable("sortingType") String sortingType) {
-        return cryptoService.getSortedCryptos(sortingType);
+    public ResponseEntity<byte[]> getSortedListOfCryptos(@PathVariable("sortingType") String sortingType,
+                                                         @RequestParam(value = "limit", required = false) Integer limit,
+                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                         String ifNoneMatch) {
+        return cryptoService.getSortedCryptosAsJson(sortingType, limit, ifNoneMatch);
     }
 
     /**
      * Returns metadata for desired crypto, such as min, max, oldest and newest prices.
      *
-     * @param cryptoName desired crypto name
-     * @return calculated data about crypto
+     * @param cryptoName  desired crypto name
+     * @param ifNoneMatch ETag of previously returned metadata
+     * @return calculated data about crypto, or notModified status if it did not change
      */
     @GetMapping("/metadata/{cryptoName}")
-    public ResponseEntity<MetaDataAdapter> getMetadataForCrypto(@PathVariable("cryptoName") String cryptoName) {
-        return cryptoService.getMetadataForCrypto(cryptoName);
+    public ResponseEntity<byte[]> getMetadataForCrypto(@PathVariable("cryptoName") String cryptoName,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                       String ifNoneMatch) {
+        return cryptoService.getMetadataForCryptoAsJson(cryptoName, ifNoneMatch);
+    }
+
+    /**
+     * Streams metadata of several cryptos as NDJSON, a line per crypto with data
+     *
+     * @param symbols comma separated crypto names, or "all" for every crypto
+     * @return metadata of the cryptos in requested order
+     */
+    @GetMapping("/metadata")
+    public ResponseEntity<StreamingResponseBody> getMetadataForCryptos(
+            @RequestParam(value = "symbols", defaultValue = "all") List<String> symbols) {
+        return cryptoService.streamMetadata(symbols);
+    }
+
+    /**
+     * Streams metadata of several cryptos as NDJSON, for lists too long for a query string
+     *
+     * @param symbols JSON array of crypto names, or ["all"] for every crypto
+     * @return metadata of the cryptos in requested order
+     */
+    @PostMapping(value = "/metadata", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> postMetadataForCryptos(@RequestBody List<String> symbols) {
+        return cryptoService.streamMetadata(symbols);
+    }
+
+    /**
+     * Returns metadata for desired crypto within time range, such as min, max, oldest and newest prices
+     * and normalized range.
+     *
+     * @param cryptoName desired crypto name
+     * @param from       inclusive start of the range as epoch milliseconds or ISO-8601 instant, like 2022-01-01T00:00:00Z
+     * @param to         inclusive end of the range in the same formats
+     * @return calculated data about crypto within the range
+     */
+    @GetMapping("/metadata/{cryptoName}/range")
+    public ResponseEntity<RangeMetaData> getMetadataForCryptoInRange(@PathVariable("cryptoName") String cryptoName,
+                                                                     @RequestParam("from") String from,
+                                                                     @RequestParam("to") String to) {
+        return cryptoService.getMetadataForCryptoInRange(cryptoName, from, to);
+    }
+
+    /**
+     * Returns OHLC candles of desired crypto
+     *
+     * @param cryptoName desired crypto name
+     * @param resolution candle resolution: 1m, 1h, 1d or 1w, candles are aligned to UTC
+     * @param from       inclusive earliest open time as epoch milliseconds or ISO-8601 instant, like 2022-01-01T00:00:00Z
+     * @param to         inclusive latest open time in the same formats
+     * @return candles ordered by time
+     */
+    @GetMapping("/candles/{cryptoName}")
+    public ResponseEntity<List<Candle>> getCandles(@PathVariable("cryptoName") String cryptoName,
+                                                   @RequestParam("resolution") String resolution,
+                                                   @RequestParam("from") String from,
+                                                   @RequestParam("to") String to) {
+        return cryptoService.getCandles(cryptoName, resolution, from, to);
+    }
+
+    /**
+     * Streams raw ticks of desired crypto in a format of uploaded files
+     *
+     * @param cryptoName desired crypto name
+     * @param from       inclusive start of the range as epoch milliseconds or ISO-8601 instant, the oldest tick if absent
+     * @param to         inclusive end of the range in the same formats, the newest tick if absent
+     * @param format     csv or bin
+     * @return file CRYPTO_NAME_values.csv or CRYPTO_NAME_values.bin with ticks ordered by time
+     */
+    @GetMapping("/export/{cryptoName}")
+    public ResponseEntity<StreamingResponseBody> exportTicks(@PathVariable("cryptoName") String cryptoName,
+                                                             @RequestParam(value = "from", required = false) String from,
+                                                             @RequestParam(value = "to", required = false) String to,
+                                                             @RequestParam(value = "format", defaultValue = "csv")
+                                                             String format) {
+        return cryptoService.exportTicks(cryptoName, from, to, format);
     }
 
     /**
      * Determines crypto with the highest normalized range in specific day
      *
-     * @param day in format YYYY-MM-DD
-     * @return crypto name
+     * @param day         in format YYYY-MM-DD
+     * @param zone        time zone ID of the day, like Europe/Paris or +02:00, the configured zone if absent
+     * @param ifNoneMatch ETag of previously returned crypto name
+     * @return crypto name, or notModified status if it did not change
      */
     @GetMapping("/highestNormalizedForDay/{day}")
-    public ResponseEntity<String> getHighestNormalizedCryptoForDay(@PathVariable("day") String day) {
-        return cryptoService.getCryptoWithHighestNormalizedRangeForDate(day);
+    public ResponseEntity<String> getHighestNormalizedCryptoForDay(@PathVariable("day") String day,
+                                                                   @RequestParam(value = "zone", required = false)
+                                                                   String zone,
+                                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                                           required = false) String ifNoneMatch) {
+        return cryptoService.getCryptoWithHighestNormalizedRangeForDate(day, zone, ifNoneMatch);
+    }
+
+    /**
+     * Lists crypto symbols known to the service
+     *
+     * @return symbols with their ids, enabled ones accept uploads
+     */
+    @GetMapping("/admin/symbols")
+    public ResponseEntity<List<CryptoSymbol>> getSymbols() {
+        return cryptoService.getSymbols();
+    }
+
+    /**
+     * Enables uploads of crypto without redeploy, the change survives restart if data directory is set
+     *
+     * @param symbol crypto's name (case ignored), letters and digits only
+     * @return enabled symbol, or error in header "ErrorMsg" if symbol is wrong or no more cryptos are allowed
+     */
+    @PutMapping("/admin/symbols/{symbol}")
+    public ResponseEntity<CryptoSymbol> enableSymbol(@PathVariable("symbol") String symbol) {
+        return cryptoService.enableSymbol(symbol);
+    }
+
+    /**
+     * Disables uploads of crypto, its stored data stays available. The change survives restart
+     * if data directory is set.
+     *
+     * @param symbol crypto's name (case ignored)
+     * @return disabled symbol, or error in header "ErrorMsg" if crypto is unknown
+     */
+    @DeleteMapping("/admin/symbols/{symbol}")
+    public ResponseEntity<CryptoSymbol> disableSymbol(@PathVariable("symbol") String symbol) {
+        return cryptoService.disableSymbol(symbol);
     }
 }
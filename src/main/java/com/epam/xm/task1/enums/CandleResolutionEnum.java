@@ -0,0 +1,70 @@
+package com.epam.xm.task1.enums;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Resolutions of OHLC candles, from the finest to the coarsest.
+ * <br> Candles are aligned to UTC: every candle starts at a multiple of its duration since the epoch,
+ * weeks start on Monday. So every candle is split into whole candles of any finer resolution.
+ */
+public enum CandleResolutionEnum {
+
+    MINUTE("1m", Duration.ofMinutes(1), Duration.ZERO),
+
+    HOUR("1h", Duration.ofHours(1), Duration.ZERO),
+
+    DAY("1d", Duration.ofDays(1), Duration.ZERO),
+
+    /**
+     * Weeks are counted from Monday 1970-01-05
+     */
+    WEEK("1w", Duration.ofDays(7), Duration.ofDays(4));
+
+    public final String label;
+    public final long millis;
+    private final long offsetMillis;
+
+    CandleResolutionEnum(String label, Duration duration, Duration offset) {
+        this.label = label;
+        this.millis = duration.toMillis();
+        this.offsetMillis = offset.toMillis();
+    }
+
+    /**
+     * @param epochMillis timestamp in epoch milliseconds
+     * @return number of the candle containing the timestamp
+     */
+    public long bucketOf(long epochMillis) {
+        return Math.floorDiv(epochMillis - offsetMillis, millis);
+    }
+
+    /**
+     * @param bucket number of the candle
+     * @return start of the candle in epoch milliseconds
+     */
+    public long startOf(long bucket) {
+        return bucket * millis + offsetMillis;
+    }
+
+    /**
+     * @return the next finer resolution, or null for the finest one
+     */
+    public CandleResolutionEnum finer() {
+        return ordinal() == 0 ? null : values()[ordinal() - 1];
+    }
+
+    /**
+     * @param label label of resolution, like 1m or 1h
+     * @return found resolution
+     * @throws IllegalArgumentException if there is no resolution with such label
+     */
+    public static CandleResolutionEnum fromLabel(String label) {
+        for (CandleResolutionEnum resolution : values()) {
+            if (Objects.equals(resolution.label, label)) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("No candle resolution " + label);
+    }
+}
@@ -0,0 +1,105 @@
+package com.epam.xm.task1.enums;
+
+import com.epam.xm.task1.parser.CryptoBinaryParser;
+import com.epam.xm.task1.parser.CryptoBinaryWriter;
+import com.epam.xm.task1.parser.CryptoCsvParser;
+import com.epam.xm.task1.parser.CryptoCsvWriter;
+import com.epam.xm.task1.parser.CryptoDataParser;
+import com.epam.xm.task1.parser.CryptoDataWriter;
+
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Accepted formats of uploaded crypto files, recognized by extension of file name.
+ * Exported ticks are written in the same formats.
+ */
+public enum CryptoFileFormatEnum {
+
+    /**
+     * Text file CRYPTO_NAME_values.csv with header line and rows in format {@code timestamp,symbol,price}
+     */
+    CSV(".csv", "text/csv", CryptoCsvParser::new,
+            (channel, cryptoName, count) -> new CryptoCsvWriter(channel, cryptoName)),
+
+    /**
+     * Binary file CRYPTO_NAME_values.bin with fixed-width records, written by
+     * {@link com.epam.xm.task1.parser.CryptoBinaryConverter}
+     */
+    BINARY(".bin", "application/octet-stream", CryptoBinaryParser::new, CryptoBinaryWriter::new);
+
+    public final String extension;
+    public final String mediaType;
+    private final Function<String, CryptoDataParser> parserFactory;
+    private final WriterFactory writerFactory;
+
+    CryptoFileFormatEnum(String extension, String mediaType, Function<String, CryptoDataParser> parserFactory,
+                         WriterFactory writerFactory) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+        this.parserFactory = parserFactory;
+        this.writerFactory = writerFactory;
+    }
+
+    /**
+     * @param cryptoName name of crypto expected in the file
+     * @return new parser of this format for a single file
+     */
+    public CryptoDataParser newParser(String cryptoName) {
+        return parserFactory.apply(cryptoName);
+    }
+
+    /**
+     * @param channel    channel to write into, nothing is written before the content
+     * @param cryptoName name of crypto written to the file
+     * @param count      number of ticks which are going to be written
+     * @return new writer of this format for a single file
+     */
+    public CryptoDataWriter newWriter(WritableByteChannel channel, String cryptoName, long count) {
+        return writerFactory.create(channel, cryptoName, count);
+    }
+
+    /**
+     * @param cryptoName name of crypto in the file
+     * @return name of the file in this format, like CRYPTO_NAME_values.csv
+     */
+    public String fileName(String cryptoName) {
+        return cryptoName.toUpperCase() + "_values" + extension;
+    }
+
+    /**
+     * @param fileName name of uploaded file
+     * @return format of file, or null if extension of file name is not accepted
+     */
+    public static CryptoFileFormatEnum fromFileName(String fileName) {
+        if (Objects.isNull(fileName)) {
+            return null;
+        }
+        for (CryptoFileFormatEnum format : values()) {
+            if (fileName.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param name extension without dot in any case, like csv
+     * @return format with the extension, or null if there is none
+     */
+    public static CryptoFileFormatEnum fromName(String name) {
+        for (CryptoFileFormatEnum format : values()) {
+            if (format.extension.substring(1).equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface WriterFactory {
+
+        CryptoDataWriter create(WritableByteChannel channel, String cryptoName, long count);
+    }
+}
@@ -1,24 +1,84 @@
 package com.epam.xm.task1.enums;
 
-import com.epam.xm.task1.model.CryptoMetaData;
+import com.epam.xm.task1.model.CryptoStatistics;
 
 import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
 
 /**
- * Stored sorting comparators in predefined sorting types
+ * Stored sorting comparators in predefined sorting types.
+ * <br> Every type ranks cryptos by its metric in descending order, cryptos with equal metric are ordered by name,
+ * so the first cryptos of a ranking do not depend on how many of them are requested.
  */
 public enum CryptoSortingTypeEnum {
 
     /**
-     * Sorting cryptos by normalized range in descending order
+     * Sorting cryptos by normalized range of the whole history in descending order
      */
-    NORMALIZED_DESC(
-            (cmd1, cmd2) -> -1 * Double.compare(cmd1.normalizedRange(), cmd2.normalizedRange())
-    );
+    NORMALIZED_DESC(statistics -> statistics.metaData().normalizedRange()),
 
-    public final Comparator<CryptoMetaData> comparator;
+    /**
+     * Sorting cryptos by normalized range of the last 24 hours of their history in descending order
+     */
+    NORMALIZED_24H_DESC(CryptoStatistics::normalizedRange24h),
 
-    CryptoSortingTypeEnum(Comparator<CryptoMetaData> comparator) {
-        this.comparator = comparator;
+    /**
+     * Sorting cryptos by normalized range of the last 7 days of their history in descending order
+     */
+    NORMALIZED_7D_DESC(CryptoStatistics::normalizedRange7d),
+
+    /**
+     * Sorting cryptos by normalized range of the last 30 days of their history in descending order
+     */
+    NORMALIZED_30D_DESC(CryptoStatistics::normalizedRange30d),
+
+    /**
+     * Sorting cryptos by change of price from the oldest to the newest one in descending order
+     */
+    CHANGE_DESC(CryptoStatistics::change),
+
+    /**
+     * Sorting cryptos by percent change of price from the oldest to the newest one in descending order
+     */
+    PERCENT_CHANGE_DESC(CryptoStatistics::percentChange),
+
+    /**
+     * Sorting cryptos by standard deviation of returns between neighbour ticks in descending order
+     */
+    VOLATILITY_DESC(CryptoStatistics::volatility);
+
+    private static final Map<String, CryptoSortingTypeEnum> BY_NAME = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        for (CryptoSortingTypeEnum sorting : values()) {
+            BY_NAME.put(sorting.name(), sorting);
+        }
+    }
+
+    public final ToDoubleFunction<CryptoStatistics> metric;
+    public final Comparator<CryptoStatistics> comparator;
+
+    CryptoSortingTypeEnum(ToDoubleFunction<CryptoStatistics> metric) {
+        this.metric = metric;
+        this.comparator = Comparator.comparingDouble(metric).reversed()
+                .thenComparing(CryptoStatistics::cryptoName);
+    }
+
+    /**
+     * Finds sorting type ignoring case of its name, without converting the passed name
+     *
+     * @param name name of sorting type in any case
+     * @return found sorting type
+     * @throws IllegalArgumentException if there is no sorting type with such name
+     */
+    public static CryptoSortingTypeEnum fromName(String name) {
+        CryptoSortingTypeEnum sorting = BY_NAME.get(name);
+        if (Objects.isNull(sorting)) {
+            throw new IllegalArgumentException("No sorting type " + name);
+        }
+        return sorting;
     }
 }
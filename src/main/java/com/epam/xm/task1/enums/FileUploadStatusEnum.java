@@ -0,0 +1,22 @@
+package com.epam.xm.task1.enums;
+
+/**
+ * Outcome of a single file of bulk upload
+ */
+public enum FileUploadStatusEnum {
+
+    /**
+     * File data was stored
+     */
+    STORED,
+
+    /**
+     * File is wrong or could not be processed, error describes the reason
+     */
+    REJECTED,
+
+    /**
+     * File is valid, but was not stored because other files of the upload were rejected
+     */
+    SKIPPED
+}
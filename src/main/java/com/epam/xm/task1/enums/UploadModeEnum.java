@@ -0,0 +1,17 @@
+package com.epam.xm.task1.enums;
+
+/**
+ * Ways of applying uploaded crypto data to already stored one
+ */
+public enum UploadModeEnum {
+
+    /**
+     * Uploaded data is merged into stored history, tick with already stored timestamp replaces stored price
+     */
+    APPEND,
+
+    /**
+     * Stored history of crypto is replaced by uploaded data, only once the whole upload was parsed successfully
+     */
+    REPLACE
+}
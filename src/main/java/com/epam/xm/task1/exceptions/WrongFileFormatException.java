@@ -0,0 +1,8 @@
+package com.epam.xm.task1.exceptions;
+
+public class WrongFileFormatException extends RuntimeException {
+
+    public WrongFileFormatException(String message) {
+        super(message);
+    }
+}
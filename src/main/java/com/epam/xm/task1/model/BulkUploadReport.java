@@ -0,0 +1,12 @@
+package com.epam.xm.task1.model;
+
+import java.util.List;
+
+/**
+ * Report of bulk upload. Files are stored all together or not at all.
+ *
+ * @param stored true if data of all files was stored
+ * @param files  {@link FileUploadResult} of each file in the order of upload
+ */
+public record BulkUploadReport(boolean stored, List<FileUploadResult> files) {
+}
@@ -0,0 +1,13 @@
+package com.epam.xm.task1.model;
+
+/**
+ * OHLC candle of crypto's prices
+ *
+ * @param openTime start of the candle in epoch milliseconds
+ * @param open     price of the first tick in the candle
+ * @param high     max price in the candle
+ * @param low      min price in the candle
+ * @param close    price of the last tick in the candle
+ */
+public record Candle(long openTime, double open, double high, double low, double close) {
+}
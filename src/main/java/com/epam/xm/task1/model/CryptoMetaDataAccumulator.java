@@ -0,0 +1,64 @@
+package com.epam.xm.task1.model;
+
+/**
+ * Mutable single-pass collector of min, max, oldest and newest prices.
+ * <br> Not thread safe, instance is meant to be used by a single thread.
+ */
+public final class CryptoMetaDataAccumulator {
+
+    private long count;
+    private long oldestTimestamp = Long.MAX_VALUE;
+    private double oldestPrice;
+    private long newestTimestamp = Long.MIN_VALUE;
+    private double newestPrice;
+    private double minPrice = Double.POSITIVE_INFINITY;
+    private double maxPrice = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Registers one price tick
+     *
+     * @param timestamp epoch milliseconds of the tick
+     * @param price     price of the tick
+     */
+    public void accept(long timestamp, double price) {
+        count++;
+        // strict comparison keeps the first of equal oldest ticks, non-strict keeps the last of equal newest ones
+        if (timestamp < oldestTimestamp) {
+            oldestTimestamp = timestamp;
+            oldestPrice = price;
+        }
+        if (timestamp >= newestTimestamp) {
+            newestTimestamp = timestamp;
+            newestPrice = price;
+        }
+        if (price < minPrice) {
+            minPrice = price;
+        }
+        if (price > maxPrice) {
+            maxPrice = price;
+        }
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Builds metadata from collected data
+     *
+     * @param cryptoName name of crypto
+     * @return {@link CryptoMetaData} for collected data
+     * @throws IllegalStateException if no data was collected
+     */
+    public CryptoMetaData toMetaData(String cryptoName) {
+        if (isEmpty()) {
+            throw new IllegalStateException("No data collected for crypto " + cryptoName);
+        }
+        double normalizedRange = (maxPrice - minPrice) / minPrice;
+        return new CryptoMetaData(cryptoName, oldestPrice, newestPrice, minPrice, maxPrice, normalizedRange);
+    }
+}
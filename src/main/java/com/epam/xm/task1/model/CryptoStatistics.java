@@ -0,0 +1,32 @@
+package com.epam.xm.task1.model;
+
+/**
+ * Storing metadata of specific crypto together with metrics cryptos are ranked by
+ *
+ * @param metaData           metadata of the whole crypto's history
+ * @param normalizedRange24h normalized range of the last 24 hours of crypto's history
+ * @param normalizedRange7d  normalized range of the last 7 days of crypto's history
+ * @param normalizedRange30d normalized range of the last 30 days of crypto's history
+ * @param volatility         standard deviation of returns between neighbour ticks
+ */
+public record CryptoStatistics(CryptoMetaData metaData, double normalizedRange24h, double normalizedRange7d,
+                               double normalizedRange30d, double volatility) {
+
+    public String cryptoName() {
+        return metaData.cryptoName();
+    }
+
+    /**
+     * @return change of price from the oldest to the newest one
+     */
+    public double change() {
+        return metaData.newestPrice() - metaData.oldestPrice();
+    }
+
+    /**
+     * @return change of price from the oldest to the newest one relative to the oldest price
+     */
+    public double percentChange() {
+        return change() / metaData.oldestPrice() * 100;
+    }
+}
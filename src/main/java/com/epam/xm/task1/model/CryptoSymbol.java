@@ -0,0 +1,11 @@
+package com.epam.xm.task1.model;
+
+/**
+ * Crypto symbol known to the registry
+ *
+ * @param id      dense id of the symbol
+ * @param symbol  crypto's name
+ * @param enabled true if uploads of the crypto are accepted
+ */
+public record CryptoSymbol(int id, String symbol, boolean enabled) {
+}
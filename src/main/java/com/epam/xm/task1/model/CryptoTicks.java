@@ -0,0 +1,12 @@
+package com.epam.xm.task1.model;
+
+/**
+ * Ticks of a single crypto kept in primitive columns
+ *
+ * @param symbol     crypto's name
+ * @param timestamps epoch milliseconds of the ticks
+ * @param prices     prices of the ticks
+ * @param size       number of valid entries in both arrays
+ */
+public record CryptoTicks(String symbol, long[] timestamps, double[] prices, int size) {
+}
@@ -0,0 +1,14 @@
+package com.epam.xm.task1.model;
+
+import com.epam.xm.task1.enums.FileUploadStatusEnum;
+
+/**
+ * Result of processing a single file of bulk upload
+ *
+ * @param fileName name of uploaded file or ZIP entry
+ * @param status   {@link FileUploadStatusEnum} of the file
+ * @param rows     number of parsed rows
+ * @param error    reason of rejection, null if file was not rejected
+ */
+public record FileUploadResult(String fileName, FileUploadStatusEnum status, long rows, String error) {
+}
@@ -0,0 +1,22 @@
+package com.epam.xm.task1.model;
+
+/**
+ * Metadata of crypto within a time range
+ *
+ * @param cryptoName      crypto's name
+ * @param from            inclusive start of the range in epoch milliseconds
+ * @param to              inclusive end of the range in epoch milliseconds
+ * @param oldestPrice     price of the first tick in the range
+ * @param newestPrice     price of the last tick in the range
+ * @param minPrice        min price in the range
+ * @param maxPrice        max price in the range
+ * @param normalizedRange (max - min) / min of the range
+ */
+public record RangeMetaData(String cryptoName, long from, long to, double oldestPrice, double newestPrice,
+                            double minPrice, double maxPrice, double normalizedRange) {
+
+    public RangeMetaData(CryptoMetaData metaData, long from, long to) {
+        this(metaData.cryptoName(), from, to, metaData.oldestPrice(), metaData.newestPrice(),
+                metaData.minPrice(), metaData.maxPrice(), metaData.normalizedRange());
+    }
+}
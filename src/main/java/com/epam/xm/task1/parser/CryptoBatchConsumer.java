@@ -0,0 +1,16 @@
+package com.epam.xm.task1.parser;
+
+/**
+ * Receives parsed crypto data in batches.
+ * <br> Passed arrays are reused by the producer after the call returns, so they must not be retained.
+ */
+@FunctionalInterface
+public interface CryptoBatchConsumer {
+
+    /**
+     * @param timestamps epoch milliseconds of the ticks
+     * @param prices     prices of the ticks
+     * @param size       number of valid entries in both arrays
+     */
+    void accept(long[] timestamps, double[] prices, int size);
+}
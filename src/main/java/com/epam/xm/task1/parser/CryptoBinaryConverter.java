@@ -0,0 +1,74 @@
+package com.epam.xm.task1.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Converts crypto files {@code CRYPTO_NAME_values.csv} into binary {@code CRYPTO_NAME_values.bin} ones,
+ * which are accepted by uploads as well.
+ * <br> Usage with the application jar:
+ * {@code java -cp task1.jar -Dloader.main=com.epam.xm.task1.parser.CryptoBinaryConverter
+ * org.springframework.boot.loader.PropertiesLauncher BTC_values.csv ...}
+ */
+public final class CryptoBinaryConverter {
+
+    private static final String CSV_SUFFIX = "_values.csv";
+    private static final String BINARY_SUFFIX = "_values.bin";
+
+    private CryptoBinaryConverter() {
+    }
+
+    /**
+     * Writes binary file next to every passed csv file
+     *
+     * @param args paths of csv files
+     * @throws IOException in case of reading or writing problems
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: CryptoBinaryConverter CRYPTO_NAME_values.csv ...");
+            System.exit(1);
+        }
+        for (String arg : args) {
+            Path csv = Path.of(arg);
+            Path binary = binaryPathOf(csv);
+            long records = convert(csv, binary);
+            System.out.printf("%s: %d records written to %s%n", csv, records, binary);
+        }
+    }
+
+    /**
+     * Converts csv file into binary one, crypto's name is taken from name of csv file
+     *
+     * @param csv    path of file named CRYPTO_NAME_values.csv
+     * @param binary path of written binary file, replaced if exists
+     * @return number of written records
+     * @throws IOException in case of reading or writing problems
+     */
+    public static long convert(Path csv, Path binary) throws IOException {
+        String fileName = csv.getFileName().toString();
+        if (!fileName.endsWith(CSV_SUFFIX)) {
+            throw new IllegalArgumentException("Wrong file name format. Right format is: CRYPTO_NAME" + CSV_SUFFIX);
+        }
+        String cryptoName = fileName.substring(0, fileName.length() - CSV_SUFFIX.length()).toLowerCase();
+        try (InputStream inputStream = Files.newInputStream(csv);
+             FileChannel channel = FileChannel.open(binary, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             CryptoBinaryWriter writer = new CryptoBinaryWriter(channel, cryptoName)) {
+            new CryptoCsvParser(cryptoName).parse(inputStream, writer);
+            return writer.count();
+        }
+    }
+
+    static Path binaryPathOf(Path csv) {
+        String fileName = csv.getFileName().toString();
+        String baseName = fileName.endsWith(CSV_SUFFIX)
+                ? fileName.substring(0, fileName.length() - CSV_SUFFIX.length())
+                : fileName;
+        return csv.resolveSibling(baseName + BINARY_SUFFIX);
+    }
+}
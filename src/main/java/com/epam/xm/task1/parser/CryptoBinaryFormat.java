@@ -0,0 +1,27 @@
+package com.epam.xm.task1.parser;
+
+/**
+ * Layout of binary crypto files {@code CRYPTO_NAME_values.bin}, all numbers are big-endian:
+ * <pre>
+ * header   int magic, byte format version, short symbol length, ASCII symbol, long record count
+ * records  long timestamp, double price of every tick, in any order
+ * </pre>
+ * Records have fixed width, so they are read without tokenizing text and converting decimal numbers.
+ */
+final class CryptoBinaryFormat {
+
+    static final int MAGIC = 0x43525442;
+    static final byte FORMAT_VERSION = 1;
+    static final int MAX_SYMBOL_LENGTH = 255;
+    static final int RECORD_SIZE = Long.BYTES + Double.BYTES;
+
+    private CryptoBinaryFormat() {
+    }
+
+    /**
+     * @return size of header with symbol of passed length
+     */
+    static int headerSize(int symbolLength) {
+        return Integer.BYTES + Byte.BYTES + Short.BYTES + symbolLength + Long.BYTES;
+    }
+}
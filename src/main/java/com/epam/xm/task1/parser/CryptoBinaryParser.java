@@ -0,0 +1,134 @@
+package com.epam.xm.task1.parser;
+
+import com.epam.xm.task1.exceptions.WrongCryptoNameException;
+import com.epam.xm.task1.exceptions.WrongFileFormatException;
+import com.epam.xm.task1.model.CryptoMetaDataAccumulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Streaming parser of binary crypto files in {@link CryptoBinaryFormat}.
+ * <br> Records are read from a reused {@link ByteBuffer} directly into batch arrays, which are handed
+ * to {@link CryptoBatchConsumer}, so no object is created per record.
+ * <br> Not thread safe, instance is meant to be used for a single file.
+ */
+public final class CryptoBinaryParser implements CryptoDataParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String cryptoName;
+    private final String expectedSymbol;
+    private final long[] timestamps;
+    private final double[] prices;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    public CryptoBinaryParser(String cryptoName) {
+        this(cryptoName, CryptoCsvParser.DEFAULT_BATCH_SIZE);
+    }
+
+    public CryptoBinaryParser(String cryptoName, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.cryptoName = cryptoName;
+        this.expectedSymbol = cryptoName.toLowerCase(Locale.ROOT);
+        this.timestamps = new long[batchSize];
+        this.prices = new double[batchSize];
+    }
+
+    /**
+     * Parses whole stream, which must contain exactly the number of records declared in its header
+     *
+     * @param inputStream stream with binary content, is not closed by this method
+     * @param consumer    receiver of parsed records
+     * @return metadata collected over all parsed records
+     * @throws IOException               in case of stream reading problems
+     * @throws WrongFileFormatException  if header is malformed or number of records differs from declared one
+     * @throws WrongCryptoNameException  if header contains other crypto than expected
+     */
+    @Override
+    public CryptoMetaDataAccumulator parse(InputStream inputStream, CryptoBatchConsumer consumer) throws IOException {
+        // channel is not closed, as it would close the stream
+        ReadableByteChannel channel = Channels.newChannel(inputStream);
+        ByteBuffer buf = buffer.clear().flip();
+        long remaining = readHeader(channel, buf);
+
+        CryptoMetaDataAccumulator accumulator = new CryptoMetaDataAccumulator();
+        int size = 0;
+        while (remaining > 0) {
+            if (buf.remaining() < CryptoBinaryFormat.RECORD_SIZE) {
+                fill(channel, buf, CryptoBinaryFormat.RECORD_SIZE);
+            }
+            int records = (int) Math.min(Math.min(remaining, timestamps.length - size),
+                    buf.remaining() / CryptoBinaryFormat.RECORD_SIZE);
+            for (int i = 0; i < records; i++) {
+                long timestamp = buf.getLong();
+                double price = buf.getDouble();
+                accumulator.accept(timestamp, price);
+                timestamps[size] = timestamp;
+                prices[size++] = price;
+            }
+            remaining -= records;
+            if (size == timestamps.length) {
+                consumer.accept(timestamps, prices, size);
+                size = 0;
+            }
+        }
+        if (size > 0) {
+            consumer.accept(timestamps, prices, size);
+        }
+        if (buf.hasRemaining() || channel.read(buf.clear()) > 0) {
+            throw new WrongFileFormatException("File contains more records than declared in its header");
+        }
+        return accumulator;
+    }
+
+    /**
+     * @return number of records declared in header
+     */
+    private long readHeader(ReadableByteChannel channel, ByteBuffer buf) throws IOException {
+        fill(channel, buf, CryptoBinaryFormat.headerSize(0));
+        if (buf.getInt() != CryptoBinaryFormat.MAGIC) {
+            throw new WrongFileFormatException("File is not a binary crypto file");
+        }
+        byte version = buf.get();
+        if (version != CryptoBinaryFormat.FORMAT_VERSION) {
+            throw new WrongFileFormatException("Unsupported binary format version " + version);
+        }
+        int symbolLength = Short.toUnsignedInt(buf.getShort());
+        if (symbolLength > CryptoBinaryFormat.MAX_SYMBOL_LENGTH) {
+            throw new WrongFileFormatException("Crypto name is longer than " + CryptoBinaryFormat.MAX_SYMBOL_LENGTH);
+        }
+        fill(channel, buf, symbolLength + Long.BYTES);
+        String symbol = new String(buf.array(), buf.position(), symbolLength, StandardCharsets.US_ASCII)
+                .toLowerCase(Locale.ROOT);
+        buf.position(buf.position() + symbolLength);
+        if (!symbol.equals(expectedSymbol)) {
+            throw new WrongCryptoNameException(String.format("Expected crypto %s, but got %s", cryptoName, symbol));
+        }
+        long records = buf.getLong();
+        if (records < 0) {
+            throw new WrongFileFormatException("Negative number of records: " + records);
+        }
+        return records;
+    }
+
+    /**
+     * Reads from channel until buffer has at least passed number of unread bytes
+     */
+    private static void fill(ReadableByteChannel channel, ByteBuffer buf, int bytes) throws IOException {
+        buf.compact();
+        while (buf.position() < bytes) {
+            if (channel.read(buf) < 0) {
+                throw new WrongFileFormatException("File is shorter than declared in its header");
+            }
+        }
+        buf.flip();
+    }
+}
@@ -0,0 +1,138 @@
+package com.epam.xm.task1.parser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes ticks in {@link CryptoBinaryFormat} as they are received in batches.
+ * <br> Record count in header is written when the writer is closed, unless it is known upfront.
+ * Closing the writer also closes the channel.
+ * <br> Not thread safe, instance is meant to be used for a single file.
+ */
+public final class CryptoBinaryWriter implements CryptoDataWriter, CryptoRecordConsumer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    // -1 if record count is written into header upfront
+    private final long countPosition;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long count;
+
+    /**
+     * Writes header with crypto's name at the current position of channel
+     *
+     * @param channel    channel to write into, its current position is the start of the file
+     * @param cryptoName crypto's name, stored in lower case
+     * @throws IOException in case of writing problems
+     */
+    public CryptoBinaryWriter(SeekableByteChannel channel, String cryptoName) throws IOException {
+        byte[] symbol = symbolOf(cryptoName);
+        this.channel = channel;
+        this.countPosition = channel.position() + CryptoBinaryFormat.headerSize(symbol.length) - Long.BYTES;
+        putHeader(symbol, 0);
+    }
+
+    /**
+     * Writes header with crypto's name and known record count, so the channel does not have to be seekable
+     *
+     * @param channel    channel to write into, nothing is written before the header
+     * @param cryptoName crypto's name, stored in lower case
+     * @param count      number of records which are going to be written
+     */
+    public CryptoBinaryWriter(WritableByteChannel channel, String cryptoName, long count) {
+        this.channel = channel;
+        this.countPosition = -1;
+        putHeader(symbolOf(cryptoName), count);
+    }
+
+    @Override
+    public void accept(long[] timestamps, double[] prices, int size) {
+        try {
+            for (int i = 0; i < size; i++) {
+                if (buffer.remaining() < CryptoBinaryFormat.RECORD_SIZE) {
+                    flush();
+                }
+                buffer.putLong(timestamps[i]).putDouble(prices[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count += size;
+    }
+
+    /**
+     * Writes passed records straight to the channel, without copying them to the buffer
+     */
+    @Override
+    public void acceptRecords(ByteBuffer records) {
+        int size = records.remaining() / CryptoBinaryFormat.RECORD_SIZE;
+        try {
+            flush();
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count += size;
+    }
+
+    /**
+     * @return number of records written so far
+     */
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            flush();
+            if (countPosition < 0) {
+                return;
+            }
+            SeekableByteChannel seekableChannel = (SeekableByteChannel) channel;
+            long end = seekableChannel.position();
+            seekableChannel.position(countPosition);
+            ByteBuffer countBuffer = ByteBuffer.allocate(Long.BYTES).putLong(count).flip();
+            while (countBuffer.hasRemaining()) {
+                seekableChannel.write(countBuffer);
+            }
+            seekableChannel.position(end);
+        }
+    }
+
+    /**
+     * Writes buffered records to the channel, header record count is not written
+     */
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] symbolOf(String cryptoName) {
+        byte[] symbol = cryptoName.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+        if (symbol.length > CryptoBinaryFormat.MAX_SYMBOL_LENGTH) {
+            throw new IllegalArgumentException("Crypto name is longer than " + CryptoBinaryFormat.MAX_SYMBOL_LENGTH);
+        }
+        return symbol;
+    }
+
+    private void putHeader(byte[] symbol, long recordCount) {
+        buffer.putInt(CryptoBinaryFormat.MAGIC)
+                .put(CryptoBinaryFormat.FORMAT_VERSION)
+                .putShort((short) symbol.length)
+                .put(symbol)
+                .putLong(recordCount);
+    }
+}
@@ -0,0 +1,289 @@
+package com.epam.xm.task1.parser;
+
+import com.epam.xm.task1.exceptions.WrongCryptoNameException;
+import com.epam.xm.task1.exceptions.WrongFileFormatException;
+import com.epam.xm.task1.model.CryptoMetaDataAccumulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Streaming parser of crypto csv files in format {@code timestamp,symbol,price}.
+ * <br> Tokenizes raw bytes of the stream without creating per-line objects, hands parsed rows
+ * to {@link CryptoBatchConsumer} in batches and collects metadata in the same pass.
+ * <br> Not thread safe, instance is meant to be used for a single file.
+ */
+public final class CryptoCsvParser implements CryptoDataParser {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Decimal values with mantissa and power of ten in these bounds are exactly representable as double,
+     * so single multiplication or division gives correctly rounded result
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final String cryptoName;
+    private final byte[] expectedSymbol;
+    private final long[] timestamps;
+    private final double[] prices;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int size;
+    private boolean headerSkipped;
+
+    public CryptoCsvParser(String cryptoName) {
+        this(cryptoName, DEFAULT_BATCH_SIZE);
+    }
+
+    public CryptoCsvParser(String cryptoName, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.cryptoName = cryptoName;
+        this.expectedSymbol = cryptoName.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+        this.timestamps = new long[batchSize];
+        this.prices = new double[batchSize];
+    }
+
+    /**
+     * Parses whole stream. The first line is treated as header and skipped.
+     *
+     * @param inputStream stream with csv content, is not closed by this method
+     * @param consumer    receiver of parsed rows
+     * @return metadata collected over all parsed rows
+     * @throws IOException              in case of stream reading problems
+     * @throws NumberFormatException    if row contains malformed number or is malformed itself
+     * @throws WrongCryptoNameException if row contains other crypto than expected
+     * @throws WrongFileFormatException if line does not fit into read buffer
+     */
+    @Override
+    public CryptoMetaDataAccumulator parse(InputStream inputStream, CryptoBatchConsumer consumer) throws IOException {
+        CryptoMetaDataAccumulator accumulator = new CryptoMetaDataAccumulator();
+        byte[] buf = buffer;
+        int start = 0;
+        int scan = 0;
+        int limit = 0;
+        while (true) {
+            while (scan < limit && buf[scan] != '\n') {
+                scan++;
+            }
+            if (scan < limit) {
+                parseLine(buf, start, scan, accumulator, consumer);
+                start = ++scan;
+                continue;
+            }
+            if (start > 0) {
+                System.arraycopy(buf, start, buf, 0, limit - start);
+                limit -= start;
+                scan -= start;
+                start = 0;
+            }
+            if (limit == buf.length) {
+                throw new WrongFileFormatException("Line is longer than " + buf.length + " bytes");
+            }
+            int read = inputStream.read(buf, limit, buf.length - limit);
+            if (read < 0) {
+                break;
+            }
+            limit += read;
+        }
+        if (start < limit) {
+            parseLine(buf, start, limit, accumulator, consumer);
+        }
+        if (size > 0) {
+            consumer.accept(timestamps, prices, size);
+            size = 0;
+        }
+        return accumulator;
+    }
+
+    private void parseLine(byte[] buf, int from, int to, CryptoMetaDataAccumulator accumulator,
+                           CryptoBatchConsumer consumer) {
+        if (to > from && buf[to - 1] == '\r') {
+            to--;
+        }
+        if (!headerSkipped) {
+            headerSkipped = true;
+            return;
+        }
+        if (from == to) {
+            return;
+        }
+
+        int timestampEnd = indexOf(buf, from, to, (byte) ',');
+        int symbolEnd = timestampEnd < 0 ? -1 : indexOf(buf, timestampEnd + 1, to, (byte) ',');
+        if (symbolEnd < 0) {
+            throw new NumberFormatException("Malformed row: " + new String(buf, from, to - from, StandardCharsets.UTF_8));
+        }
+        int priceEnd = indexOf(buf, symbolEnd + 1, to, (byte) ',');
+        if (priceEnd < 0) {
+            priceEnd = to;
+        }
+
+        long timestamp = parseLong(buf, from, timestampEnd);
+        checkSymbol(buf, timestampEnd + 1, symbolEnd);
+        double price = parseDouble(buf, symbolEnd + 1, priceEnd);
+
+        accumulator.accept(timestamp, price);
+        timestamps[size] = timestamp;
+        prices[size] = price;
+        if (++size == timestamps.length) {
+            consumer.accept(timestamps, prices, size);
+            size = 0;
+        }
+    }
+
+    private void checkSymbol(byte[] buf, int from, int to) {
+        boolean matches = to - from == expectedSymbol.length;
+        for (int i = 0; matches && i < expectedSymbol.length; i++) {
+            matches = toLowerAscii(buf[from + i]) == expectedSymbol[i];
+        }
+        if (!matches) {
+            String parsedCryptoName = new String(buf, from, to - from, StandardCharsets.UTF_8).toLowerCase();
+            throw new WrongCryptoNameException(String.format("Expected crypto %s, but got %s", cryptoName, parsedCryptoName));
+        }
+    }
+
+    /**
+     * Same contract as {@link Long#parseLong(String)} applied to bytes
+     */
+    static long parseLong(byte[] buf, int from, int to) {
+        if (from == to) {
+            throw numberFormatException(buf, from, to);
+        }
+        int i = from;
+        boolean negative = false;
+        if (buf[i] == '-' || buf[i] == '+') {
+            negative = buf[i] == '-';
+            if (++i == to) {
+                throw numberFormatException(buf, from, to);
+            }
+        }
+        // accumulating negatively, as Long.MIN_VALUE has no positive counterpart
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        for (; i < to; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9 || result < multiplyMin) {
+                throw numberFormatException(buf, from, to);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormatException(buf, from, to);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses decimal number in plain or scientific notation, surrounding whitespaces are ignored.
+     * <br> Common short decimals are converted with a single exact floating point operation,
+     * others are delegated to {@link Double#parseDouble(String)}.
+     */
+    static double parseDouble(byte[] buf, int from, int to) {
+        while (from < to && buf[from] <= ' ') {
+            from++;
+        }
+        while (to > from && buf[to - 1] <= ' ') {
+            to--;
+        }
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buf[i] == '-' || buf[i] == '+')) {
+            negative = buf[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int mantissaDigits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean exact = true;
+        for (; i < to && isDigit(buf[i]); i++) {
+            anyDigit = true;
+            if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + (buf[i] - '0');
+                if (mantissa != 0) {
+                    mantissaDigits++;
+                }
+            } else {
+                exact = false;
+            }
+        }
+        if (i < to && buf[i] == '.') {
+            for (i++; i < to && isDigit(buf[i]); i++) {
+                anyDigit = true;
+                if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (buf[i] - '0');
+                    exponent--;
+                    if (mantissa != 0) {
+                        mantissaDigits++;
+                    }
+                } else {
+                    exact = false;
+                }
+            }
+        }
+        if (!anyDigit) {
+            throw numberFormatException(buf, from, to);
+        }
+        if (i < to && (buf[i] == 'e' || buf[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (buf[i] == '-' || buf[i] == '+')) {
+                negativeExponent = buf[i] == '-';
+                i++;
+            }
+            if (i == to) {
+                throw numberFormatException(buf, from, to);
+            }
+            int explicitExponent = 0;
+            for (; i < to && isDigit(buf[i]); i++) {
+                if (explicitExponent < 100_000) {
+                    explicitExponent = explicitExponent * 10 + (buf[i] - '0');
+                }
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i != to) {
+            throw numberFormatException(buf, from, to);
+        }
+
+        if (exact && mantissa <= MAX_EXACT_MANTISSA && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(buf, from, to - from, StandardCharsets.US_ASCII));
+    }
+
+    private static int indexOf(byte[] buf, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static byte toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static NumberFormatException numberFormatException(byte[] buf, int from, int to) {
+        return new NumberFormatException("For input string: \"" + new String(buf, from, to - from, StandardCharsets.UTF_8) + "\"");
+    }
+}
@@ -0,0 +1,147 @@
+package com.epam.xm.task1.parser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes ticks as csv in format {@code timestamp,symbol,price} with header line, readable by {@link CryptoCsvParser}.
+ * <br> Rows are formatted straight into a reused buffer. Prices with up to {@link #MAX_SCALE} decimal places
+ * are formatted without creating objects, others fall back to {@link Double#toString(double)}.
+ * <br> Not thread safe, instance is meant to be used for a single file.
+ */
+public final class CryptoCsvWriter implements CryptoDataWriter {
+
+    static final String HEADER = "timestamp,symbol,price\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_SCALE = 12;
+    // longest formatted timestamp or price with separator, Double.toString output is shorter
+    private static final int MAX_NUMBER_LENGTH = 32;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12
+    };
+
+    private final WritableByteChannel channel;
+    private final byte[] symbol;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+    private long count;
+
+    /**
+     * Writes header line to the channel
+     *
+     * @param channel    channel to write into
+     * @param cryptoName crypto's name, written in upper case as in uploaded files
+     */
+    public CryptoCsvWriter(WritableByteChannel channel, String cryptoName) {
+        this.channel = channel;
+        this.symbol = cryptoName.toUpperCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+        if (2 * MAX_NUMBER_LENGTH + symbol.length > BUFFER_SIZE) {
+            throw new IllegalArgumentException("Crypto name is longer than " + (BUFFER_SIZE - 2 * MAX_NUMBER_LENGTH));
+        }
+        buffer.put(HEADER.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public void accept(long[] timestamps, double[] prices, int size) {
+        try {
+            for (int i = 0; i < size; i++) {
+                if (buffer.remaining() < 2 * MAX_NUMBER_LENGTH + symbol.length) {
+                    flush();
+                }
+                putLong(timestamps[i]);
+                buffer.put((byte) ',').put(symbol).put((byte) ',');
+                putPrice(prices[i]);
+                buffer.put((byte) '\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count += size;
+    }
+
+    /**
+     * @return number of rows written so far, header excluded
+     */
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes buffered rows to the channel
+     */
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Puts the shortest decimal with at most {@link #MAX_SCALE} decimal places which parses back to the same price.
+     * <br> Mantissa and power of ten of such decimal are exactly representable as double, so their quotient
+     * is correctly rounded just like parsing the decimal is, and the check below is exact.
+     */
+    private void putPrice(double price) {
+        double abs = Math.abs(price);
+        for (int scale = 0; scale <= MAX_SCALE; scale++) {
+            double scaled = abs * POWERS_OF_TEN[scale];
+            if (scaled >= MAX_EXACT_MANTISSA) {
+                break;
+            }
+            long mantissa = Math.round(scaled);
+            if (mantissa / POWERS_OF_TEN[scale] == abs) {
+                if (price < 0) {
+                    buffer.put((byte) '-');
+                }
+                putDecimal(mantissa, scale);
+                return;
+            }
+        }
+        buffer.put(Double.toString(price).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void putLong(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+        int start = digits.length;
+        // accumulating negatively, as Long.MIN_VALUE has no positive counterpart
+        long rest = value < 0 ? value : -value;
+        do {
+            digits[--start] = (byte) ('0' - rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        buffer.put(digits, start, digits.length - start);
+    }
+
+    private void putDecimal(long mantissa, int scale) {
+        int start = digits.length;
+        long rest = mantissa;
+        for (int i = 0; i < scale; i++) {
+            digits[--start] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        }
+        if (scale > 0) {
+            digits[--start] = '.';
+        }
+        do {
+            digits[--start] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        buffer.put(digits, start, digits.length - start);
+    }
+}
@@ -0,0 +1,23 @@
+package com.epam.xm.task1.parser;
+
+import com.epam.xm.task1.model.CryptoMetaDataAccumulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming parser of crypto file content, which hands parsed ticks to {@link CryptoBatchConsumer} in batches
+ * and collects metadata in the same pass
+ */
+public interface CryptoDataParser {
+
+    /**
+     * Parses whole stream
+     *
+     * @param inputStream stream with file content, is not closed by this method
+     * @param consumer    receiver of parsed ticks
+     * @return metadata collected over all parsed ticks
+     * @throws IOException in case of stream reading problems
+     */
+    CryptoMetaDataAccumulator parse(InputStream inputStream, CryptoBatchConsumer consumer) throws IOException;
+}
@@ -0,0 +1,11 @@
+package com.epam.xm.task1.parser;
+
+import java.io.Closeable;
+import java.io.Flushable;
+
+/**
+ * Writer of crypto file content, which receives ticks of a single crypto in batches.
+ * <br> Content is buffered, {@link #flush} writes it without closing the channel, {@link #close} closes it.
+ */
+public interface CryptoDataWriter extends CryptoBatchConsumer, Flushable, Closeable {
+}
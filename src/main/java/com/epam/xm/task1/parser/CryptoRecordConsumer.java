@@ -0,0 +1,16 @@
+package com.epam.xm.task1.parser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link CryptoBatchConsumer} which also accepts ticks already laid out as {@link CryptoBinaryFormat} records,
+ * so a producer keeping ticks in that layout, like a memory-mapped file, hands them over without decoding.
+ */
+public interface CryptoRecordConsumer extends CryptoBatchConsumer {
+
+    /**
+     * @param records buffer with records between its position and limit, long timestamp and double price
+     *                of every tick, big-endian. Buffer is consumed, but must not be retained.
+     */
+    void acceptRecords(ByteBuffer records);
+}
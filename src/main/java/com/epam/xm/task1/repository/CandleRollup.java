@@ -0,0 +1,135 @@
+package com.epam.xm.task1.repository;
+
+import com.epam.xm.task1.enums.CandleResolutionEnum;
+import com.epam.xm.task1.model.Candle;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable OHLC candles of a single crypto at every {@link CandleResolutionEnum}.
+ * <br> Minute candles are taken from crypto's time series (see {@link CryptoTimeSeries#candle}), every coarser
+ * candle is rolled up from candles of the next finer resolution. So a write recalculates only candles its ticks
+ * fall into, and a query costs O(candles returned) at any resolution.
+ */
+final class CandleRollup {
+
+    private static final CandleResolutionEnum[] RESOLUTIONS = CandleResolutionEnum.values();
+
+    static final CandleRollup EMPTY = new CandleRollup(Arrays.stream(RESOLUTIONS)
+            .map(CandleSeries::empty)
+            .toArray(CandleSeries[]::new));
+
+    // candles by ordinal of resolution
+    private final CandleSeries[] series;
+
+    private CandleRollup(CandleSeries[] series) {
+        this.series = series;
+    }
+
+    /**
+     * Builds candles of the whole series
+     *
+     * @param timeSeries crypto's time series
+     * @return candles of the series
+     */
+    static CandleRollup of(CryptoTimeSeries timeSeries) {
+        if (timeSeries.isEmpty()) {
+            return EMPTY;
+        }
+        CandleResolutionEnum finest = RESOLUTIONS[0];
+        long[] buckets = new long[64];
+        int count = 0;
+        for (long timestamp = timeSeries.firstTimestamp(); timestamp != Long.MAX_VALUE; ) {
+            if (count == buckets.length) {
+                buckets = Arrays.copyOf(buckets, count * 2);
+            }
+            long bucket = finest.bucketOf(timestamp);
+            buckets[count++] = bucket;
+            timestamp = timeSeries.ceilingTimestamp(finest.startOf(bucket + 1));
+        }
+        return EMPTY.withFinestCandles(timeSeries, buckets, count);
+    }
+
+    /**
+     * Recalculates candles, which provided ticks fall into
+     *
+     * @param timeSeries crypto's time series the ticks were merged into
+     * @param timestamps epoch milliseconds of the ticks
+     * @param size       number of valid entries in the array
+     * @return candles of the series
+     */
+    CandleRollup with(CryptoTimeSeries timeSeries, long[] timestamps, int size) {
+        CandleResolutionEnum finest = RESOLUTIONS[0];
+        long[] buckets = new long[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = finest.bucketOf(timestamps[i]);
+        }
+        return withFinestCandles(timeSeries, buckets, size);
+    }
+
+    /**
+     * @param resolution resolution of candles
+     * @param from       inclusive earliest open time in epoch milliseconds
+     * @param to         inclusive latest open time in epoch milliseconds
+     * @return candles opening within the range, ordered by time
+     */
+    List<Candle> candles(CandleResolutionEnum resolution, long from, long to) {
+        long fromBucket = resolution.bucketOf(from) + (resolution.startOf(resolution.bucketOf(from)) < from ? 1 : 0);
+        long toBucket = resolution.bucketOf(to) + 1;
+        return series[resolution.ordinal()].candles(fromBucket, toBucket);
+    }
+
+    /**
+     * Recalculates candles of the finest resolution with provided numbers from the time series,
+     * then candles of every coarser resolution containing them from candles of the next finer one
+     *
+     * @param buckets numbers of candles in any order, the array is reused
+     */
+    private CandleRollup withFinestCandles(CryptoTimeSeries timeSeries, long[] buckets, int count) {
+        Arrays.sort(buckets, 0, count);
+        count = distinct(buckets, count);
+        CandleSeries[] updated = series.clone();
+
+        CandleResolutionEnum finest = RESOLUTIONS[0];
+        CandleSeries.Writer writer = series[0].writer();
+        for (int i = 0; i < count; i++) {
+            long start = finest.startOf(buckets[i]);
+            writer.put(buckets[i], timeSeries.candle(start, start + finest.millis));
+        }
+        updated[0] = writer.build();
+
+        for (int r = 1; r < RESOLUTIONS.length; r++) {
+            CandleResolutionEnum resolution = RESOLUTIONS[r];
+            CandleResolutionEnum finer = resolution.finer();
+            // mapping keeps the order, so candles containing touched ones stay sorted
+            for (int i = 0; i < count; i++) {
+                buckets[i] = resolution.bucketOf(finer.startOf(buckets[i]));
+            }
+            count = distinct(buckets, count);
+            writer = series[r].writer();
+            for (int i = 0; i < count; i++) {
+                long start = resolution.startOf(buckets[i]);
+                writer.put(buckets[i], updated[r - 1].rollUp(finer.bucketOf(start),
+                        finer.bucketOf(start + resolution.millis), start));
+            }
+            updated[r] = writer.build();
+        }
+        return new CandleRollup(updated);
+    }
+
+    /**
+     * Drops repeated numbers of sorted array
+     *
+     * @return number of distinct numbers at the start of the array
+     */
+    private static int distinct(long[] buckets, int count) {
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || buckets[distinct - 1] != buckets[i]) {
+                buckets[distinct++] = buckets[i];
+            }
+        }
+        return distinct;
+    }
+}
@@ -0,0 +1,245 @@
+package com.epam.xm.task1.repository;
+
+import com.epam.xm.task1.enums.CandleResolutionEnum;
+import com.epam.xm.task1.model.Candle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable OHLC candles of a single crypto at a single resolution, addressed by candle number
+ * (see {@link CandleResolutionEnum#bucketOf}).
+ * <br> Candles are grouped into chunks spanning {@link #CHUNK_SPAN} consecutive numbers. A chunk keeps only
+ * existing candles in primitive columns, so sparse candles cost no more than dense ones, and spans without
+ * candles have no chunk. Writes copy only touched chunks.
+ */
+final class CandleSeries {
+
+    static final int CHUNK_SPAN = 1024;
+
+    private final CandleResolutionEnum resolution;
+    private final long[] chunkNumbers;
+    private final CandleChunk[] chunks;
+
+    private CandleSeries(CandleResolutionEnum resolution, long[] chunkNumbers, CandleChunk[] chunks) {
+        this.resolution = resolution;
+        this.chunkNumbers = chunkNumbers;
+        this.chunks = chunks;
+    }
+
+    static CandleSeries empty(CandleResolutionEnum resolution) {
+        return new CandleSeries(resolution, new long[0], new CandleChunk[0]);
+    }
+
+    /**
+     * @param fromBucket inclusive number of the first candle
+     * @param toBucket   exclusive number of the last candle
+     * @return existing candles in the number range, ordered by time
+     */
+    List<Candle> candles(long fromBucket, long toBucket) {
+        List<Candle> candles = new ArrayList<>();
+        forEach(fromBucket, toBucket, (bucket, chunk, index) -> candles.add(new Candle(resolution.startOf(bucket),
+                chunk.open[index], chunk.high[index], chunk.low[index], chunk.close[index])));
+        return candles;
+    }
+
+    /**
+     * Combines existing candles in the number range into a single one
+     *
+     * @param fromBucket inclusive number of the first candle
+     * @param toBucket   exclusive number of the last candle
+     * @param openTime   start of the combined candle in epoch milliseconds
+     * @return combined candle, or null if there is no candle in the range
+     */
+    Candle rollUp(long fromBucket, long toBucket, long openTime) {
+        // open, high, low, close
+        double[] ohlc = {Double.NaN, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NaN};
+        forEach(fromBucket, toBucket, (bucket, chunk, index) -> {
+            if (Double.isNaN(ohlc[0])) {
+                ohlc[0] = chunk.open[index];
+            }
+            ohlc[1] = Math.max(ohlc[1], chunk.high[index]);
+            ohlc[2] = Math.min(ohlc[2], chunk.low[index]);
+            ohlc[3] = chunk.close[index];
+        });
+        return Double.isNaN(ohlc[0]) ? null : new Candle(openTime, ohlc[0], ohlc[1], ohlc[2], ohlc[3]);
+    }
+
+    Writer writer() {
+        return new Writer();
+    }
+
+    private void forEach(long fromBucket, long toBucket, CandleVisitor visitor) {
+        if (fromBucket >= toBucket) {
+            return;
+        }
+        for (int chunkIndex = firstChunkFrom(Math.floorDiv(fromBucket, CHUNK_SPAN)); chunkIndex < chunks.length;
+             chunkIndex++) {
+            long base = chunkNumbers[chunkIndex] * CHUNK_SPAN;
+            if (base >= toBucket) {
+                return;
+            }
+            CandleChunk chunk = chunks[chunkIndex];
+            int index = fromBucket > base ? chunk.lowerBound((int) (fromBucket - base)) : 0;
+            for (; index < chunk.slots.length; index++) {
+                long bucket = base + chunk.slots[index];
+                if (bucket >= toBucket) {
+                    return;
+                }
+                visitor.visit(bucket, chunk, index);
+            }
+        }
+    }
+
+    /**
+     * @return index of the first chunk with number not less than provided one, or chunk count
+     */
+    private int firstChunkFrom(long chunkNumber) {
+        int index = Arrays.binarySearch(chunkNumbers, chunkNumber);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private CandleChunk chunk(long chunkNumber) {
+        int index = Arrays.binarySearch(chunkNumbers, chunkNumber);
+        return index >= 0 ? chunks[index] : null;
+    }
+
+    @FunctionalInterface
+    private interface CandleVisitor {
+
+        void visit(long bucket, CandleChunk chunk, int index);
+    }
+
+    /**
+     * Existing candles of a chunk ordered by their slot, which is candle number minus the first number of the chunk
+     */
+    private static final class CandleChunk {
+
+        private final short[] slots;
+        private final double[] open;
+        private final double[] high;
+        private final double[] low;
+        private final double[] close;
+
+        CandleChunk(int size) {
+            slots = new short[size];
+            open = new double[size];
+            high = new double[size];
+            low = new double[size];
+            close = new double[size];
+        }
+
+        int lowerBound(int slot) {
+            int low = 0;
+            int high = slots.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (slots[mid] < slot) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Accumulates changed candles of a single write, touched chunks are expanded to all their slots until built
+     */
+    final class Writer {
+
+        // open, high, low and close columns of all slots of touched chunks, NaN open marks missing candle
+        private final Map<Long, double[][]> touchedChunks = new TreeMap<>();
+
+        /**
+         * @param bucket number of the candle
+         * @param candle new candle, null removes the candle
+         */
+        void put(long bucket, Candle candle) {
+            double[][] columns = touchedChunks.computeIfAbsent(Math.floorDiv(bucket, CHUNK_SPAN), this::expand);
+            int slot = (int) Math.floorMod(bucket, CHUNK_SPAN);
+            if (candle == null) {
+                columns[0][slot] = Double.NaN;
+                return;
+            }
+            columns[0][slot] = candle.open();
+            columns[1][slot] = candle.high();
+            columns[2][slot] = candle.low();
+            columns[3][slot] = candle.close();
+        }
+
+        CandleSeries build() {
+            if (touchedChunks.isEmpty()) {
+                return CandleSeries.this;
+            }
+            TreeMap<Long, CandleChunk> merged = new TreeMap<>();
+            for (int i = 0; i < chunks.length; i++) {
+                merged.put(chunkNumbers[i], chunks[i]);
+            }
+            touchedChunks.forEach((chunkNumber, columns) -> {
+                CandleChunk chunk = compact(columns);
+                if (chunk == null) {
+                    merged.remove(chunkNumber);
+                } else {
+                    merged.put(chunkNumber, chunk);
+                }
+            });
+            long[] builtNumbers = new long[merged.size()];
+            CandleChunk[] builtChunks = new CandleChunk[merged.size()];
+            int index = 0;
+            for (Map.Entry<Long, CandleChunk> e : merged.entrySet()) {
+                builtNumbers[index] = e.getKey();
+                builtChunks[index++] = e.getValue();
+            }
+            return new CandleSeries(resolution, builtNumbers, builtChunks);
+        }
+
+        private double[][] expand(long chunkNumber) {
+            double[][] columns = new double[4][CHUNK_SPAN];
+            Arrays.fill(columns[0], Double.NaN);
+            CandleChunk chunk = chunk(chunkNumber);
+            if (chunk != null) {
+                for (int i = 0; i < chunk.slots.length; i++) {
+                    int slot = chunk.slots[i];
+                    columns[0][slot] = chunk.open[i];
+                    columns[1][slot] = chunk.high[i];
+                    columns[2][slot] = chunk.low[i];
+                    columns[3][slot] = chunk.close[i];
+                }
+            }
+            return columns;
+        }
+
+        /**
+         * @return chunk of existing candles, or null if there is none
+         */
+        private static CandleChunk compact(double[][] columns) {
+            int size = 0;
+            for (int slot = 0; slot < CHUNK_SPAN; slot++) {
+                if (!Double.isNaN(columns[0][slot])) {
+                    size++;
+                }
+            }
+            if (size == 0) {
+                return null;
+            }
+            CandleChunk chunk = new CandleChunk(size);
+            int index = 0;
+            for (int slot = 0; slot < CHUNK_SPAN; slot++) {
+                if (!Double.isNaN(columns[0][slot])) {
+                    chunk.slots[index] = (short) slot;
+                    chunk.open[index] = columns[0][slot];
+                    chunk.high[index] = columns[1][slot];
+                    chunk.low[index] = columns[2][slot];
+                    chunk.close[index] = columns[3][slot];
+                    index++;
+                }
+            }
+            return chunk;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.epam.xm.task1.repository;
+
+/**
+ * Immutable segment tree of min and max prices of a time series' chunks, so min and max of any run of chunks
+ * is combined from O(log chunks) nodes. The tree also sums returns between neighbour ticks: a leaf holds
+ * returns within its chunk and the return from the last tick of the previous chunk, so the root holds
+ * sums of all returns of the series.
+ * <br> The tree is carried from snapshot to snapshot of {@link CryptoTimeSeries}: setting a chunk copies only
+ * the nodes on the path to its leaf, the rest of the tree is shared with the previous snapshot.
+ */
+final class ChunkRangeIndex {
+
+    static final ChunkRangeIndex EMPTY = new ChunkRangeIndex(null, 1);
+
+    private final Node root;
+    // number of leaves spanned by the root, power of two
+    private final int capacity;
+
+    private ChunkRangeIndex(Node root, int capacity) {
+        this.root = root;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Builds index of all provided chunks in O(chunks)
+     *
+     * @param chunks chunks of the series
+     * @param count  number of valid entries in {@param chunks}
+     * @return index of the chunks
+     */
+    static ChunkRangeIndex of(TimeSeriesChunk[] chunks, int count) {
+        if (count == 0) {
+            return EMPTY;
+        }
+        int capacity = count == 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+        return new ChunkRangeIndex(build(chunks, count, 0, capacity), capacity);
+    }
+
+    /**
+     * @param index    index of the chunk in the series
+     * @param previous chunk preceding the index, null for the first chunk
+     * @param chunk    new chunk at the index
+     * @return index with prices and returns of the chunk set in O(log chunks)
+     */
+    ChunkRangeIndex with(int index, TimeSeriesChunk previous, TimeSeriesChunk chunk) {
+        Node newRoot = root;
+        int newCapacity = capacity;
+        while (index >= newCapacity) {
+            newRoot = Node.of(newRoot, null);
+            newCapacity <<= 1;
+        }
+        return new ChunkRangeIndex(set(newRoot, newCapacity, index, Node.leaf(previous, chunk)), newCapacity);
+    }
+
+    /**
+     * @return min price of all chunks
+     */
+    double minPrice() {
+        return root == null ? Double.POSITIVE_INFINITY : root.minPrice;
+    }
+
+    /**
+     * @return max price of all chunks
+     */
+    double maxPrice() {
+        return root == null ? Double.NEGATIVE_INFINITY : root.maxPrice;
+    }
+
+    /**
+     * @return sum of returns between neighbour ticks of all chunks
+     */
+    double returnSum() {
+        return root == null ? 0 : root.returnSum;
+    }
+
+    /**
+     * @return sum of squared returns between neighbour ticks of all chunks
+     */
+    double returnSquareSum() {
+        return root == null ? 0 : root.returnSquareSum;
+    }
+
+    /**
+     * Updates provided range with prices of chunks from {@param first} to {@param last} inclusive
+     */
+    void collectMinMax(int first, int last, double[] minMax) {
+        collect(root, 0, capacity, first, last, minMax);
+    }
+
+    private static Node build(TimeSeriesChunk[] chunks, int count, int from, int width) {
+        if (from >= count) {
+            return null;
+        }
+        if (width == 1) {
+            return Node.leaf(from == 0 ? null : chunks[from - 1], chunks[from]);
+        }
+        int half = width >>> 1;
+        return Node.of(build(chunks, count, from, half), build(chunks, count, from + half, half));
+    }
+
+    private static Node set(Node node, int width, int index, Node leaf) {
+        if (width == 1) {
+            return leaf;
+        }
+        int half = width >>> 1;
+        Node left = node == null ? null : node.left;
+        Node right = node == null ? null : node.right;
+        return index < half
+                ? Node.of(set(left, half, index, leaf), right)
+                : Node.of(left, set(right, half, index - half, leaf));
+    }
+
+    private static void collect(Node node, int from, int width, int first, int last, double[] minMax) {
+        if (node == null || last < from || first >= from + width) {
+            return;
+        }
+        if (first <= from && from + width - 1 <= last) {
+            minMax[0] = Math.min(minMax[0], node.minPrice);
+            minMax[1] = Math.max(minMax[1], node.maxPrice);
+            return;
+        }
+        int half = width >>> 1;
+        collect(node.left, from, half, first, last, minMax);
+        collect(node.right, from + half, half, first, last, minMax);
+    }
+
+    /**
+     * Min and max prices and sums of returns of a run of chunks, null stands for a run without chunks
+     */
+    private static final class Node {
+
+        private final double minPrice;
+        private final double maxPrice;
+        private final double returnSum;
+        private final double returnSquareSum;
+        private final Node left;
+        private final Node right;
+
+        private Node(double minPrice, double maxPrice, double returnSum, double returnSquareSum,
+                     Node left, Node right) {
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.returnSum = returnSum;
+            this.returnSquareSum = returnSquareSum;
+            this.left = left;
+            this.right = right;
+        }
+
+        static Node leaf(TimeSeriesChunk previous, TimeSeriesChunk chunk) {
+            double[] sums = chunk.returnSums();
+            double returnSum = sums[0];
+            double returnSquareSum = sums[1];
+            if (previous != null) {
+                double tickReturn = chunk.price(0) / previous.price(previous.size() - 1) - 1;
+                returnSum += tickReturn;
+                returnSquareSum += tickReturn * tickReturn;
+            }
+            return new Node(chunk.minPrice(), chunk.maxPrice(), returnSum, returnSquareSum, null, null);
+        }
+
+        static Node of(Node left, Node right) {
+            if (left == null && right == null) {
+                return null;
+            }
+            double minPrice = Math.min(left == null ? Double.POSITIVE_INFINITY : left.minPrice,
+                    right == null ? Double.POSITIVE_INFINITY : right.minPrice);
+            double maxPrice = Math.max(left == null ? Double.NEGATIVE_INFINITY : left.maxPrice,
+                    right == null ? Double.NEGATIVE_INFINITY : right.maxPrice);
+            double returnSum = (left == null ? 0 : left.returnSum) + (right == null ? 0 : right.returnSum);
+            double returnSquareSum = (left == null ? 0 : left.returnSquareSum)
+                    + (right == null ? 0 : right.returnSquareSum);
+            return new Node(minPrice, maxPrice, returnSum, returnSquareSum, left, right);
+        }
+    }
+}
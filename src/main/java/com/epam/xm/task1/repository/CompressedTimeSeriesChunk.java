@@ -0,0 +1,388 @@
+package com.epam.xm.task1.repository;
+
+import java.util.Arrays;
+
+/**
+ * Read only {@link TimeSeriesChunk} compressed on the heap in Gorilla style: timestamps are encoded as
+ * deltas of deltas and prices as XOR with the previous price, each in its own bit stream.
+ * <br> Header keeps first and last ticks, min and max price, block summaries and return sums, so queries covering
+ * the whole chunk or its whole blocks never decompress it.
+ * <br> Every {@link #BLOCK_SIZE} ticks the encoding restarts from a tick kept in the header, so a tick is found
+ * by decoding a single block. The last decoded block is kept, so sequential reads decode every block once.
+ * The chunk is decompressed to the heap only when a write touches it.
+ */
+final class CompressedTimeSeriesChunk extends TimeSeriesChunk {
+
+    private final int size;
+    private final long lastTimestamp;
+    private final double lastPrice;
+    private final double minPrice;
+    private final double maxPrice;
+    // the first tick of every block and positions of its following ticks in the bit streams
+    private final long[] blockTimestamps;
+    private final long[] blockPriceBits;
+    private final int[] blockTimestampPositions;
+    private final int[] blockPricePositions;
+    private final long[] timestampStream;
+    private final long[] priceStream;
+    private volatile DecodedBlock decodedBlock;
+
+    private CompressedTimeSeriesChunk(int size, long lastTimestamp, double lastPrice, double minPrice, double maxPrice,
+                                      long[] blockTimestamps, long[] blockPriceBits, int[] blockTimestampPositions,
+                                      int[] blockPricePositions, long[] timestampStream, long[] priceStream) {
+        this.size = size;
+        this.lastTimestamp = lastTimestamp;
+        this.lastPrice = lastPrice;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.blockTimestamps = blockTimestamps;
+        this.blockPriceBits = blockPriceBits;
+        this.blockTimestampPositions = blockTimestampPositions;
+        this.blockPricePositions = blockPricePositions;
+        this.timestampStream = timestampStream;
+        this.priceStream = priceStream;
+    }
+
+    /**
+     * Compresses ticks of provided chunk
+     *
+     * @param chunk not empty chunk
+     * @return compressed chunk with the same ticks and summaries
+     */
+    static CompressedTimeSeriesChunk of(TimeSeriesChunk chunk) {
+        int size = chunk.size();
+        int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        long[] blockTimestamps = new long[blocks];
+        long[] blockPriceBits = new long[blocks];
+        int[] blockTimestampPositions = new int[blocks];
+        int[] blockPricePositions = new int[blocks];
+        double[] blockMinMax = new double[2 * (size / BLOCK_SIZE)];
+        BitWriter timestamps = new BitWriter(size / 8);
+        BitWriter prices = new BitWriter(size);
+
+        long previousTimestamp = 0;
+        long previousDelta = 0;
+        long previousBits = 0;
+        int leading = -1;
+        int trailing = 0;
+        double blockMin = Double.POSITIVE_INFINITY;
+        double blockMax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            long timestamp = chunk.timestamp(i);
+            double price = chunk.price(i);
+            long bits = Double.doubleToRawLongBits(price);
+            if (i % BLOCK_SIZE == 0) {
+                int block = i / BLOCK_SIZE;
+                blockTimestamps[block] = timestamp;
+                blockPriceBits[block] = bits;
+                blockTimestampPositions[block] = timestamps.position();
+                blockPricePositions[block] = prices.position();
+                previousDelta = 0;
+                leading = -1;
+            } else {
+                long delta = timestamp - previousTimestamp;
+                writeDeltaOfDelta(timestamps, delta - previousDelta);
+                previousDelta = delta;
+                long xor = bits ^ previousBits;
+                if (xor == 0) {
+                    prices.write(0, 1);
+                } else if (leading >= 0 && Long.numberOfLeadingZeros(xor) >= leading
+                        && Long.numberOfTrailingZeros(xor) >= trailing) {
+                    // meaningful bits fit into the window of the previous price
+                    prices.write(0b10, 2);
+                    prices.write(xor >>> trailing, 64 - leading - trailing);
+                } else {
+                    leading = Long.numberOfLeadingZeros(xor);
+                    trailing = Long.numberOfTrailingZeros(xor);
+                    int meaningful = 64 - leading - trailing;
+                    prices.write(0b11, 2);
+                    prices.write(leading, 6);
+                    prices.write(meaningful - 1, 6);
+                    prices.write(xor >>> trailing, meaningful);
+                }
+            }
+            previousTimestamp = timestamp;
+            previousBits = bits;
+
+            blockMin = Math.min(blockMin, price);
+            blockMax = Math.max(blockMax, price);
+            if ((i + 1) % BLOCK_SIZE == 0) {
+                int block = i / BLOCK_SIZE;
+                blockMinMax[2 * block] = blockMin;
+                blockMinMax[2 * block + 1] = blockMax;
+                blockMin = Double.POSITIVE_INFINITY;
+                blockMax = Double.NEGATIVE_INFINITY;
+            }
+        }
+
+        CompressedTimeSeriesChunk compressed = new CompressedTimeSeriesChunk(size, chunk.lastTimestamp(),
+                chunk.price(size - 1), chunk.minPrice(), chunk.maxPrice(), blockTimestamps, blockPriceBits,
+                blockTimestampPositions, blockPricePositions, timestamps.toArray(), prices.toArray());
+        compressed.blockMinMax = blockMinMax;
+        compressed.returnSums = chunk.returnSums();
+        return compressed;
+    }
+
+    @Override
+    HeapTimeSeriesChunk forWrite(long version) {
+        int capacity = Math.max(CAPACITY, size);
+        long[] timestamps = new long[capacity];
+        double[] prices = new double[capacity];
+        for (int block = 0; block < blockTimestamps.length; block++) {
+            DecodedBlock decoded = decode(block);
+            System.arraycopy(decoded.timestamps(), 0, timestamps, block * BLOCK_SIZE, decoded.timestamps().length);
+            System.arraycopy(decoded.prices(), 0, prices, block * BLOCK_SIZE, decoded.prices().length);
+        }
+        return new HeapTimeSeriesChunk(version, timestamps, prices, size);
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    long timestamp(int index) {
+        if (index % BLOCK_SIZE == 0) {
+            return blockTimestamps[index / BLOCK_SIZE];
+        }
+        return index == size - 1 ? lastTimestamp : block(index / BLOCK_SIZE).timestamps()[index % BLOCK_SIZE];
+    }
+
+    @Override
+    double price(int index) {
+        if (index % BLOCK_SIZE == 0) {
+            return Double.longBitsToDouble(blockPriceBits[index / BLOCK_SIZE]);
+        }
+        return index == size - 1 ? lastPrice : block(index / BLOCK_SIZE).prices()[index % BLOCK_SIZE];
+    }
+
+    @Override
+    long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    @Override
+    double minPrice() {
+        return minPrice;
+    }
+
+    @Override
+    double maxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * @return bytes of the bit streams and the header, the last decoded block is not counted
+     */
+    @Override
+    long estimatedHeapBytes() {
+        return (long) (timestampStream.length + priceStream.length) * Long.BYTES
+                + (long) blockTimestamps.length * (2 * Long.BYTES + 2 * Integer.BYTES + 2 * Double.BYTES);
+    }
+
+    @Override
+    int lowerBound(long timestamp) {
+        if (timestamp <= blockTimestamps[0]) {
+            return 0;
+        }
+        if (timestamp > lastTimestamp) {
+            return size;
+        }
+        // the last block starting before the timestamp
+        int low = 0;
+        int high = blockTimestamps.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (blockTimestamps[mid] < timestamp) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        long[] timestamps = block(low).timestamps();
+        int index = 1;
+        while (index < timestamps.length && timestamps[index] < timestamp) {
+            index++;
+        }
+        return low * BLOCK_SIZE + index;
+    }
+
+    @Override
+    void scanMinMax(int from, int to, double[] minMax) {
+        double min = minMax[0];
+        double max = minMax[1];
+        int index = from;
+        while (index < to) {
+            int block = index / BLOCK_SIZE;
+            double[] prices = block(block).prices();
+            int end = Math.min(to - block * BLOCK_SIZE, prices.length);
+            for (int i = index - block * BLOCK_SIZE; i < end; i++) {
+                double price = prices[i];
+                if (price < min) {
+                    min = price;
+                }
+                if (price > max) {
+                    max = price;
+                }
+            }
+            index = block * BLOCK_SIZE + end;
+        }
+        minMax[0] = min;
+        minMax[1] = max;
+    }
+
+    private DecodedBlock block(int block) {
+        DecodedBlock decoded = decodedBlock;
+        if (decoded == null || decoded.index() != block) {
+            decoded = decode(block);
+            decodedBlock = decoded;
+        }
+        return decoded;
+    }
+
+    private DecodedBlock decode(int block) {
+        int count = Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE);
+        long[] timestamps = new long[count];
+        double[] prices = new double[count];
+        BitReader timestampReader = new BitReader(timestampStream, blockTimestampPositions[block]);
+        BitReader priceReader = new BitReader(priceStream, blockPricePositions[block]);
+        long timestamp = blockTimestamps[block];
+        long delta = 0;
+        long bits = blockPriceBits[block];
+        int leading = 0;
+        int trailing = 0;
+        timestamps[0] = timestamp;
+        prices[0] = Double.longBitsToDouble(bits);
+        for (int i = 1; i < count; i++) {
+            delta += readDeltaOfDelta(timestampReader);
+            timestamp += delta;
+            timestamps[i] = timestamp;
+            if (priceReader.read(1) != 0) {
+                if (priceReader.read(1) != 0) {
+                    leading = (int) priceReader.read(6);
+                    trailing = 64 - leading - (int) priceReader.read(6) - 1;
+                }
+                bits ^= priceReader.read(64 - leading - trailing) << trailing;
+            }
+            prices[i] = Double.longBitsToDouble(bits);
+        }
+        return new DecodedBlock(block, timestamps, prices);
+    }
+
+    /**
+     * Writes delta of deltas with a prefix selecting its width: 0 for zero, then 10, 110, 1110 and 11110
+     * for values fitting 7, 9, 12 and 32 bits, 11111 for any other value
+     */
+    private static void writeDeltaOfDelta(BitWriter writer, long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            writer.write(0, 1);
+        } else if (fits(deltaOfDelta, 7)) {
+            writer.write(0b10, 2);
+            writer.write(deltaOfDelta, 7);
+        } else if (fits(deltaOfDelta, 9)) {
+            writer.write(0b110, 3);
+            writer.write(deltaOfDelta, 9);
+        } else if (fits(deltaOfDelta, 12)) {
+            writer.write(0b1110, 4);
+            writer.write(deltaOfDelta, 12);
+        } else if (fits(deltaOfDelta, 32)) {
+            writer.write(0b11110, 5);
+            writer.write(deltaOfDelta, 32);
+        } else {
+            writer.write(0b11111, 5);
+            writer.write(deltaOfDelta, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader reader) {
+        int ones = 0;
+        while (ones < 5 && reader.read(1) != 0) {
+            ones++;
+        }
+        return switch (ones) {
+            case 0 -> 0;
+            case 1 -> signed(reader.read(7), 7);
+            case 2 -> signed(reader.read(9), 9);
+            case 3 -> signed(reader.read(12), 12);
+            case 4 -> signed(reader.read(32), 32);
+            default -> reader.read(64);
+        };
+    }
+
+    private static boolean fits(long value, int bits) {
+        return signed(value, bits) == value;
+    }
+
+    private static long signed(long value, int bits) {
+        return value << (64 - bits) >> (64 - bits);
+    }
+
+    private record DecodedBlock(int index, long[] timestamps, double[] prices) {
+    }
+
+    /**
+     * Appends bits to a stream of longs, the most significant bit first
+     */
+    private static final class BitWriter {
+
+        private long[] words;
+        private int position;
+
+        BitWriter(int initialWords) {
+            words = new long[Math.max(1, initialWords)];
+        }
+
+        int position() {
+            return position;
+        }
+
+        /**
+         * Writes {@param bits} lowest bits of the value
+         */
+        void write(long value, int bits) {
+            if (bits < 64) {
+                value &= (1L << bits) - 1;
+            }
+            int word = position >>> 6;
+            if (word + 1 >= words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            int free = 64 - (position & 63);
+            if (bits <= free) {
+                words[word] |= value << (free - bits);
+            } else {
+                words[word] |= value >>> (bits - free);
+                words[word + 1] |= value << (64 - bits + free);
+            }
+            position += bits;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(words, (position + 63) >>> 6);
+        }
+    }
+
+    private static final class BitReader {
+
+        private final long[] words;
+        private int position;
+
+        BitReader(long[] words, int position) {
+            this.words = words;
+            this.position = position;
+        }
+
+        long read(int bits) {
+            int word = position >>> 6;
+            int free = 64 - (position & 63);
+            position += bits;
+            if (bits <= free) {
+                long value = words[word] >>> (free - bits);
+                return bits == 64 ? value : value & ((1L << bits) - 1);
+            }
+            int rest = bits - free;
+            return (words[word] & ((1L << free) - 1)) << rest | words[word + 1] >>> (64 - rest);
+        }
+    }
+}
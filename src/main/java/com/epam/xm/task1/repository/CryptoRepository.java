@@ -1,103 +1,340 @@
 package com.epam.xm.task1.repository;
 
+import com.epam.xm.task1.enums.CandleResolutionEnum;
 import com.epam.xm.task1.enums.CryptoSortingTypeEnum;
+import com.epam.xm.task1.model.Candle;
 import com.epam.xm.task1.model.Crypto;
 import com.epam.xm.task1.model.CryptoMetaData;
+import com.epam.xm.task1.model.CryptoStatistics;
+import com.epam.xm.task1.model.CryptoTicks;
+import com.epam.xm.task1.parser.CryptoBatchConsumer;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.ApplicationScope;
 
-import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
 
+/**
+ * Thread safe in-memory storage of crypto data.
+ * <br> Writes of different cryptos run in parallel, writes of the same crypto are serialized by its lock.
+ * Time series, candles and metadata of all cryptos form a single immutable state, which every write replaces
+ * with one volatile write. Readers never block and never see a write partially applied.
+ * State of every crypto is kept in the slot of its id, see {@link SymbolRegistry}.
+ * <br> If {@link CryptoWriteAheadLog} is attached, every write is logged before it is applied.
+ * <br> Metadata of every crypto, rankings and leader of every day have versions, which change whenever they change.
+ * Versions are taken from a single sequence, so no version is ever reused for different data.
+ * <br> Per-day aggregates are kept for days of {@code crypto.days.zone}, days of other zones are derived
+ * from time series on request. OHLC candles of every crypto are rolled up on every write.
+ * <br> If {@code crypto.storage.compression.enabled} is set, time series keep only their most recent chunks
+ * uncompressed, older ones are compressed, see {@link CompressedTimeSeriesChunk}.
+ */
 @Component
 @ApplicationScope
 public class CryptoRepository {
 
-    private final Map<String, CryptoMetaData> cryptoMetaData = new HashMap<>();
-    private final Map<LocalDate, Map<String, Set<Crypto>>> cryptosGroupedByDate = new HashMap<>();
+    private final SymbolRegistry symbols;
+    private final Object locksLock = new Object();
+    // write locks indexed by symbol id, replaced when a lock is added; null for symbols never written
+    private volatile Lock[] writeLocks = new Lock[0];
+    private final ConcurrentMap<LocalDate, DayAggregate> dayAggregates = new ConcurrentHashMap<>();
+    private final Object stateLock = new Object();
+    private volatile RepositoryState state = RepositoryState.EMPTY;
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private volatile CryptoWriteAheadLog writeAheadLog;
+    private volatile Timer metadataTimer;
+    private final AtomicLong versions = new AtomicLong();
+    private final DayBoundaries days;
+    private final int uncompressedChunks;
 
     /**
-     * Stores metadata for crypto in memory
+     * Creates repository aggregating days of UTC
+     */
+    public CryptoRepository() {
+        this(ZoneOffset.UTC);
+    }
+
+    /**
+     * Creates repository keeping time series uncompressed
      *
-     * @param cryptoMetaData crypto's metadata
+     * @param daysZone zone of days aggregated while data arrives
+     */
+    public CryptoRepository(ZoneId daysZone) {
+        this(daysZone, false, 0, new SymbolRegistry());
+    }
+
+    /**
+     * @param daysZone           zone of days aggregated while data arrives
+     * @param compression        true if older chunks of time series are compressed
+     * @param uncompressedChunks number of the most recent chunks of every time series kept uncompressed, at least 1
+     * @param symbols            registry interning symbols of stored cryptos
      */
-    public void addMetadataForCrypto(CryptoMetaData cryptoMetaData) {
-        this.cryptoMetaData.put(cryptoMetaData.cryptoName(), cryptoMetaData);
+    @Autowired
+    public CryptoRepository(@Value("${crypto.days.zone:UTC}") ZoneId daysZone,
+                            @Value("${crypto.storage.compression.enabled:false}") boolean compression,
+                            @Value("${crypto.storage.compression.uncompressed-chunks:2}") int uncompressedChunks,
+                            SymbolRegistry symbols) {
+        this.days = new DayBoundaries(daysZone);
+        this.symbols = symbols;
+        this.uncompressedChunks = compression ? Math.max(1, uncompressedChunks) : Integer.MAX_VALUE;
     }
 
     /**
-     * Sorts cryptos with provided algorithm
+     * Sorts cryptos with provided algorithm. Sorting is done once per metadata change, see {@link MetaDataView}.
      *
      * @param sorting provided algorithm for sorting of type {@link CryptoSortingTypeEnum}
-     * @return sorted names of cryptos
+     * @return immutable sorted names of cryptos, the same instance is returned until metadata of any crypto changes
      */
     public List<String> getSortedCryptosByPassedAlgo(CryptoSortingTypeEnum sorting) {
-        return cryptoMetaData.values().stream()
-                .sorted(sorting.comparator)
-                .map(CryptoMetaData::cryptoName)
-                .toList();
+        return state.metaDataView().ranking(sorting, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Selects the first cryptos ranked with provided algorithm without sorting all of them
+     *
+     * @param sorting provided algorithm for sorting of type {@link CryptoSortingTypeEnum}
+     * @param limit   max number of returned cryptos
+     * @return immutable sorted names of at most {@param limit} cryptos
+     */
+    public List<String> getSortedCryptosByPassedAlgo(CryptoSortingTypeEnum sorting, int limit) {
+        return state.metaDataView().ranking(sorting, limit);
     }
 
     /**
-     * Groups crypto data by date
+     * Stores crypto data in crypto's time series
      *
      * @param crypto {@link Crypto} data
      */
     public void addByDate(Crypto crypto) {
-        LocalDate localDate = LocalDate.ofInstant(
-                Instant.ofEpochMilli(crypto.timestamp()),
-                TimeZone.getDefault().toZoneId());
-
-        if (!cryptosGroupedByDate.containsKey(localDate)) {
-            Set<Crypto> cryptoData = new HashSet<>();
-            cryptoData.add(crypto);
-            Map<String, Set<Crypto>> cryptoDataMap = new HashMap<>();
-            cryptoDataMap.put(crypto.symbol(), cryptoData);
-            cryptosGroupedByDate.put(localDate, cryptoDataMap);
-        } else {
-            Map<String, Set<Crypto>> cryptoDataMap = cryptosGroupedByDate.get(localDate);
-            if (!cryptoDataMap.containsKey(crypto.symbol())) {
-                Set<Crypto> cryptoData = new HashSet<>();
-                cryptoData.add(crypto);
-                cryptoDataMap.put(crypto.symbol(), cryptoData);
-            } else {
-                Set<Crypto> cryptoData = cryptoDataMap.get(crypto.symbol());
-                cryptoData.add(crypto);
+        addBatch(crypto.symbol(), new long[]{crypto.timestamp()}, new double[]{crypto.price()}, 1);
+    }
+
+    /**
+     * Merges batch of crypto data into crypto's time series. Tick with already stored timestamp replaces stored price.
+     * <br> Crypto's metadata and per-day aggregates are updated from the merged series without recalculation
+     * over the whole history.
+     *
+     * @param symbol     crypto's name
+     * @param timestamps epoch milliseconds of the ticks
+     * @param prices     prices of the ticks
+     * @param size       number of valid entries in both arrays
+     */
+    public void addBatch(String symbol, long[] timestamps, double[] prices, int size) {
+        int id = symbols.idOf(symbol);
+        Lock writeLock = lockOf(id);
+        checkpointLock.readLock().lock();
+        writeLock.lock();
+        try {
+            CryptoState current = cryptoState(state, id);
+            CryptoTimeSeries timeSeries = current.timeSeries().withTicks(timestamps, prices, size, uncompressedChunks);
+            long metadataStart = System.nanoTime();
+            List<DayRange> dayRanges = new ArrayList<>();
+            aggregateByDay(id, timeSeries, timestamps, size, dayRanges);
+            CandleRollup candles = current.candles().with(timeSeries, timestamps, size);
+            CryptoStatistics statistics = timeSeries.toStatistics(symbol);
+            appendToLog(List.of(new CryptoTicks(symbol, timestamps, prices, size)), false);
+            publish(List.of(new CryptoUpdate(id, symbol, timeSeries, candles, statistics)));
+            updateDayAggregates(dayRanges);
+            recordMetadataTime(metadataStart);
+        } finally {
+            writeLock.unlock();
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores ticks of several cryptos all together: time series, candles and metadata of all of them are published
+     * with a single write of the repository state, so readers see either all of them or none.
+     * <br> Everything derived from the ticks, per-day price ranges included, is built before the commit is logged,
+     * so if anything fails on the way, nothing is logged or published. Per-day aggregates are updated with
+     * the built ranges right after the state is published, so the leader of a day may lag behind the rest
+     * of the commit for a moment.
+     * <br> Locks of all touched cryptos are held for the whole commit, they are taken in name order
+     * to avoid deadlocks with concurrent commits.
+     *
+     * @param ticks   {@link CryptoTicks} to store, several entries of the same crypto are merged in provided order
+     * @param replace true if stored history of touched cryptos is dropped before provided ticks are stored
+     */
+    public void addAll(List<CryptoTicks> ticks, boolean replace) {
+        Map<String, List<CryptoTicks>> ticksBySymbol = new TreeMap<>();
+        for (CryptoTicks cryptoTicks : ticks) {
+            ticksBySymbol.computeIfAbsent(cryptoTicks.symbol(), s -> new ArrayList<>()).add(cryptoTicks);
+        }
+        List<Lock> heldLocks = new ArrayList<>(ticksBySymbol.size());
+        checkpointLock.readLock().lock();
+        try {
+            for (String symbol : ticksBySymbol.keySet()) {
+                Lock writeLock = lockOf(symbols.idOf(symbol));
+                writeLock.lock();
+                heldLocks.add(writeLock);
+            }
+
+            RepositoryState previous = state;
+            Map<String, CryptoTimeSeries> committed = new HashMap<>();
+            for (Map.Entry<String, List<CryptoTicks>> e : ticksBySymbol.entrySet()) {
+                CryptoTimeSeries timeSeries = replace
+                        ? CryptoTimeSeries.EMPTY
+                        : cryptoState(previous, symbols.find(e.getKey())).timeSeries();
+                for (CryptoTicks cryptoTicks : e.getValue()) {
+                    timeSeries = timeSeries.withTicks(cryptoTicks.timestamps(), cryptoTicks.prices(), cryptoTicks.size(),
+                            uncompressedChunks);
+                }
+                committed.put(e.getKey(), timeSeries);
             }
+
+            long metadataStart = System.nanoTime();
+            List<CryptoUpdate> updates = new ArrayList<>(ticksBySymbol.size());
+            List<DayRange> dayRanges = new ArrayList<>();
+            for (Map.Entry<String, List<CryptoTicks>> e : ticksBySymbol.entrySet()) {
+                int id = symbols.find(e.getKey());
+                CryptoState current = cryptoState(previous, id);
+                CryptoTimeSeries timeSeries = committed.get(e.getKey());
+                CandleRollup candles = replace ? CandleRollup.EMPTY : current.candles();
+                if (replace) {
+                    refreshDays(id, current.timeSeries(), timeSeries, dayRanges);
+                }
+                for (CryptoTicks cryptoTicks : e.getValue()) {
+                    aggregateByDay(id, timeSeries, cryptoTicks.timestamps(), cryptoTicks.size(), dayRanges);
+                    candles = candles.with(timeSeries, cryptoTicks.timestamps(), cryptoTicks.size());
+                }
+                updates.add(new CryptoUpdate(id, e.getKey(), timeSeries, candles, timeSeries.toStatistics(e.getKey())));
+            }
+            appendToLog(ticks, replace);
+            publish(updates);
+            updateDayAggregates(dayRanges);
+            recordMetadataTime(metadataStart);
+        } finally {
+            heldLocks.forEach(Lock::unlock);
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Starts building new history of crypto, which readers do not see until it replaces the stored one,
+     * see {@link #replaceHistory}
+     *
+     * @param symbol crypto's name
+     * @return empty {@link StagedHistory} of the crypto
+     */
+    public StagedHistory stageHistory(String symbol) {
+        return new StagedHistory(symbol, uncompressedChunks);
+    }
+
+    /**
+     * Replaces stored history of crypto with staged one. Metadata, candles and per-day aggregates are derived
+     * from the staged series, which is logged as a single record, so the replacement survives a crash
+     * either completely or not at all.
+     *
+     * @param stagedHistory {@link StagedHistory} of the crypto, nothing may be added to it afterwards
+     */
+    public void replaceHistory(StagedHistory stagedHistory) {
+        int id = symbols.idOf(stagedHistory.symbol);
+        Lock writeLock = lockOf(id);
+        checkpointLock.readLock().lock();
+        writeLock.lock();
+        try {
+            replaceSeries(id, stagedHistory.symbol, stagedHistory.timeSeries, true);
+        } finally {
+            writeLock.unlock();
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all data of crypto
+     *
+     * @param symbol crypto's name
+     */
+    public void removeCrypto(String symbol) {
+        int id = symbols.find(symbol);
+        Lock writeLock = lockAt(writeLocks, id);
+        if (Objects.isNull(writeLock)) {
+            return;
+        }
+        checkpointLock.readLock().lock();
+        writeLock.lock();
+        try {
+            List<DayRange> dayRanges = new ArrayList<>();
+            refreshDays(id, cryptoState(state, id).timeSeries(), CryptoTimeSeries.EMPTY, dayRanges);
+            appendToLog(List.of(new CryptoTicks(symbol, new long[0], new double[0], 0)), true);
+            publish(List.of(new CryptoUpdate(id, symbol, CryptoTimeSeries.EMPTY, CandleRollup.EMPTY, null)));
+            updateDayAggregates(dayRanges);
+        } finally {
+            writeLock.unlock();
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits until all data stored before the call survives a crash. Returns immediately if write-ahead log is off.
+     */
+    public void flush() {
+        CryptoWriteAheadLog log = writeAheadLog;
+        if (Objects.nonNull(log)) {
+            log.awaitDurable();
         }
     }
 
     /**
-     * Retrieves crypto with the highest normalized range on specific date
+     * Retrieves crypto with the highest normalized range on specific date of {@code crypto.days.zone}
      *
      * @param specificDate provided date of type {@link LocalDate}
      * @return name of crypto with the highest specific dte
      */
     public String getHighestNormalizedRangesForDay(LocalDate specificDate) {
-        String cryptoName = "";
-        Map<String, Set<Crypto>> stringSetMap = cryptosGroupedByDate.get(specificDate);
-        double highestNormalized = 0;
-        if (!Objects.isNull(stringSetMap)) {
-            for (Map.Entry<String, Set<Crypto>> e : stringSetMap.entrySet()) {
-                if (!Objects.isNull(e.getValue())) {
-                    double minPrice = e.getValue().stream().mapToDouble(Crypto::price).min().orElse(1d);
-                    double maxPrice = e.getValue().stream().mapToDouble(Crypto::price).max().orElse(0d);
-                    double normalized = (maxPrice - minPrice) / minPrice;
-                    if (highestNormalized < normalized) {
-                        cryptoName = e.getKey();
-                        highestNormalized = normalized;
-                    }
-                }
+        DayAggregate dayAggregate = dayAggregates.get(specificDate);
+        // day has no leader while prices of all its cryptos are flat
+        return Objects.isNull(dayAggregate) || dayAggregate.leader() == DayAggregate.NO_LEADER
+                ? ""
+                : symbols.symbolOf(dayAggregate.leader());
+    }
+
+    /**
+     * Retrieves crypto with the highest normalized range on specific date of provided zone.
+     * <br> Days of other zone than {@code crypto.days.zone} are not aggregated: price range of every crypto
+     * within the day is taken from its time series, see {@link CryptoTimeSeries#priceRange}.
+     *
+     * @param specificDate provided date of type {@link LocalDate}
+     * @param zone         zone of the date
+     * @return name of crypto with the highest normalized range, or empty string if there is no data for the date
+     */
+    public String getHighestNormalizedRangesForDay(LocalDate specificDate, ZoneId zone) {
+        if (days.isSameZone(zone)) {
+            return getHighestNormalizedRangesForDay(specificDate);
+        }
+        long dayStart = specificDate.atStartOfDay(zone).toInstant().toEpochMilli();
+        long nextDayStart = specificDate.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        String leader = "";
+        double leaderNormalizedRange = 0;
+        for (CryptoState cryptoState : cryptoStates()) {
+            PriceRange range = cryptoState.timeSeries().priceRange(dayStart, nextDayStart);
+            if (Objects.nonNull(range) && leaderNormalizedRange < range.normalizedRange()) {
+                leader = cryptoState.symbol();
+                leaderNormalizedRange = range.normalizedRange();
             }
         }
-        return cryptoName;
+        return leader;
     }
 
     /**
@@ -107,6 +344,389 @@ public class CryptoRepository {
      * @return {@link CryptoMetaData} object with data for desired crypto
      */
     public CryptoMetaData getMetadataForCrypto(String cryptoName) {
-        return cryptoMetaData.get(cryptoName);
+        int id = symbols.find(cryptoName);
+        return id < 0 ? null : state.metaDataView().get(id);
+    }
+
+    /**
+     * Version is published together with metadata, so metadata read after the version
+     * is at least as new as the version
+     *
+     * @param cryptoName crypto's name
+     * @return version of crypto's metadata, 0 if crypto was never stored
+     */
+    public long getMetadataVersion(String cryptoName) {
+        return cryptoState(state, symbols.find(cryptoName)).metadataVersion();
+    }
+
+    /**
+     * @return version of rankings of all {@link CryptoSortingTypeEnum}, 0 if no crypto was ever stored
+     */
+    public long getRankingsVersion() {
+        return state.metaDataView().version();
+    }
+
+    /**
+     * @param date provided date of type {@link LocalDate}
+     * @return version of crypto with the highest normalized range on the date, 0 if there is no data for the date
+     */
+    public long getDayVersion(LocalDate date) {
+        DayAggregate dayAggregate = dayAggregates.get(date);
+        return Objects.isNull(dayAggregate) ? 0 : dayAggregate.version();
+    }
+
+    /**
+     * @param date provided date of type {@link LocalDate}
+     * @param zone zone of the date
+     * @return version of crypto with the highest normalized range on the date, for other zone than
+     * {@code crypto.days.zone} it is version of time series of all cryptos, which changes on every write
+     */
+    public long getDayVersion(LocalDate date, ZoneId zone) {
+        return days.isSameZone(zone) ? getDayVersion(date) : state.seriesVersion();
+    }
+
+    /**
+     * Replaces crypto's data with time series restored from storage
+     *
+     * @param symbol     crypto's name
+     * @param timeSeries restored {@link CryptoTimeSeries}
+     */
+    void restore(String symbol, CryptoTimeSeries timeSeries) {
+        int id = symbols.idOf(symbol);
+        Lock writeLock = lockOf(id);
+        writeLock.lock();
+        try {
+            replaceSeries(id, symbol, timeSeries, false);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Starts appending every write to provided log before it is applied
+     */
+    void attach(CryptoWriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    /**
+     * Starts timing derivation of metadata and per-day aggregates on every write
+     */
+    void attachMetadataTimer(Timer metadataTimer) {
+        this.metadataTimer = metadataTimer;
+    }
+
+    /**
+     * Runs action while no write is in progress, so every write is either completely done before the action
+     * or starts after it
+     */
+    void checkpoint(Runnable action) {
+        checkpointLock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return current time series of every crypto ever stored, empty ones included
+     */
+    Map<String, CryptoTimeSeries> timeSeriesBySymbol() {
+        Map<String, CryptoTimeSeries> timeSeriesBySymbol = new HashMap<>();
+        for (CryptoState cryptoState : cryptoStates()) {
+            timeSeriesBySymbol.put(cryptoState.symbol(), cryptoState.timeSeries());
+        }
+        return timeSeriesBySymbol;
+    }
+
+    /**
+     * @return number of days having ticks of any crypto
+     */
+    int dayCount() {
+        return dayAggregates.size();
+    }
+
+    /**
+     * @return estimated heap bytes of ticks of all cryptos, memory-mapped ticks are not counted
+     */
+    long estimatedHeapBytes() {
+        long bytes = 0;
+        for (CryptoState cryptoState : cryptoStates()) {
+            bytes += cryptoState.timeSeries().estimatedHeapBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Retrieving metadata for desired crypto within time range. Ticks of the range are not scanned,
+     * see {@link CryptoTimeSeries#priceRange}.
+     *
+     * @param cryptoName crypto's name
+     * @param from       inclusive start of the range in epoch milliseconds
+     * @param to         inclusive end of the range in epoch milliseconds
+     * @return {@link CryptoMetaData} object with data for desired crypto, or null if there is no data in the range
+     */
+    public CryptoMetaData getMetadataForCrypto(String cryptoName, long from, long to) {
+        if (from > to) {
+            return null;
+        }
+        long toExclusive = to == Long.MAX_VALUE ? Long.MAX_VALUE : to + 1;
+        return cryptoState(state, symbols.find(cryptoName)).timeSeries().toMetaData(cryptoName, from, toExclusive);
+    }
+
+    /**
+     * @return write lock of the crypto, which is added if crypto has no lock yet
+     */
+    private Lock lockOf(int id) {
+        Lock writeLock = lockAt(writeLocks, id);
+        if (Objects.nonNull(writeLock)) {
+            return writeLock;
+        }
+        synchronized (locksLock) {
+            Lock[] locks = writeLocks;
+            writeLock = lockAt(locks, id);
+            if (Objects.isNull(writeLock)) {
+                locks = Arrays.copyOf(locks, Math.max(locks.length, symbols.size()));
+                writeLock = new ReentrantLock();
+                locks[id] = writeLock;
+                writeLocks = locks;
+            }
+            return writeLock;
+        }
+    }
+
+    private static Lock lockAt(Lock[] locks, int id) {
+        return id >= 0 && id < locks.length ? locks[id] : null;
+    }
+
+    /**
+     * @return state of the crypto, empty state if crypto has no data in provided repository state
+     */
+    private static CryptoState cryptoState(RepositoryState repositoryState, int id) {
+        CryptoState cryptoState = id < 0 ? null : repositoryState.cryptos().get(id);
+        return Objects.isNull(cryptoState) ? CryptoState.EMPTY : cryptoState;
+    }
+
+    /**
+     * @return states of every crypto ever stored, empty ones included, all taken from the same repository state
+     */
+    private List<CryptoState> cryptoStates() {
+        List<CryptoState> cryptoStates = new ArrayList<>();
+        state.cryptos().forEach(cryptoStates::add);
+        return cryptoStates;
+    }
+
+    /**
+     * Retrieving OHLC candles of desired crypto, which are rolled up while data arrives, see {@link CandleRollup}
+     *
+     * @param cryptoName crypto's name
+     * @param resolution resolution of candles
+     * @param from       inclusive earliest open time of candles in epoch milliseconds
+     * @param to         inclusive latest open time of candles in epoch milliseconds
+     * @return candles ordered by time, empty if there is no data in the range
+     */
+    public List<Candle> getCandles(String cryptoName, CandleResolutionEnum resolution, long from, long to) {
+        return cryptoState(state, symbols.find(cryptoName)).candles().candles(resolution, from, to);
+    }
+
+    /**
+     * Exports raw ticks of desired crypto from a single version of its time series, see {@link CryptoTimeSeries#export}
+     *
+     * @param cryptoName      crypto's name
+     * @param from            inclusive start of the range in epoch milliseconds
+     * @param to              inclusive end of the range in epoch milliseconds
+     * @param consumerFactory creates receiver of the ticks for the number of ticks in the range
+     * @return receiver of the ticks
+     */
+    public <C extends CryptoBatchConsumer> C exportTicks(String cryptoName, long from, long to,
+                                                         LongFunction<C> consumerFactory) {
+        CryptoTimeSeries timeSeries = cryptoState(state, symbols.find(cryptoName)).timeSeries();
+        long toExclusive = to == Long.MAX_VALUE ? Long.MAX_VALUE : to + 1;
+        C consumer = consumerFactory.apply(timeSeries.count(from, toExclusive));
+        timeSeries.export(from, toExclusive, consumer);
+        return consumer;
+    }
+
+    /**
+     * Replaces crypto's time series with provided one and derives everything else from it,
+     * caller holds the write lock of the crypto
+     *
+     * @param logged true if replacement is appended to the log before it is published
+     */
+    private void replaceSeries(int id, String symbol, CryptoTimeSeries timeSeries, boolean logged) {
+        long metadataStart = System.nanoTime();
+        List<DayRange> dayRanges = new ArrayList<>();
+        refreshDays(id, cryptoState(state, id).timeSeries(), timeSeries, dayRanges);
+        refreshDays(id, timeSeries, timeSeries, dayRanges);
+        CandleRollup candles = CandleRollup.of(timeSeries);
+        CryptoStatistics statistics = timeSeries.toStatistics(symbol);
+        CryptoWriteAheadLog log = writeAheadLog;
+        if (logged && Objects.nonNull(log)) {
+            log.appendReplacement(symbol, timeSeries);
+        }
+        publish(List.of(new CryptoUpdate(id, symbol, timeSeries, candles, statistics)));
+        updateDayAggregates(dayRanges);
+        recordMetadataTime(metadataStart);
+    }
+
+    private void appendToLog(List<CryptoTicks> ticks, boolean replace) {
+        CryptoWriteAheadLog log = writeAheadLog;
+        if (Objects.nonNull(log)) {
+            log.append(ticks, replace);
+        }
+    }
+
+    private void recordMetadataTime(long startNanos) {
+        Timer timer = metadataTimer;
+        if (Objects.nonNull(timer)) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Publishes time series, candles, metadata and ranking metrics of several cryptos with a single write
+     * of the repository state, null statistics removes crypto's metadata.
+     * Versions of cryptos with changed metadata are published in the same state.
+     */
+    private void publish(List<CryptoUpdate> updates) {
+        Map<Integer, CryptoStatistics> statistics = new HashMap<>();
+        updates.forEach(update -> statistics.put(update.id(), update.statistics()));
+        synchronized (stateLock) {
+            RepositoryState previous = state;
+            MetaDataView metaDataView = previous.metaDataView().with(statistics, versions::incrementAndGet);
+            PersistentArray<CryptoState> cryptos = previous.cryptos();
+            for (CryptoUpdate update : updates) {
+                long metadataVersion = Objects.equals(previous.metaDataView().get(update.id()),
+                        metaDataView.get(update.id()))
+                        ? cryptoState(previous, update.id()).metadataVersion()
+                        : versions.incrementAndGet();
+                cryptos = cryptos.with(update.id(),
+                        new CryptoState(update.symbol(), update.timeSeries(), update.candles(), metadataVersion));
+            }
+            state = new RepositoryState(cryptos, metaDataView, versions.incrementAndGet());
+        }
+    }
+
+    /**
+     * Collects price ranges of {@param rangesOf} within every day having ticks in {@param daysOf}
+     */
+    private void refreshDays(int id, CryptoTimeSeries daysOf, CryptoTimeSeries rangesOf,
+                             List<DayRange> dayRanges) {
+        if (daysOf.isEmpty()) {
+            return;
+        }
+        for (long timestamp = daysOf.firstTimestamp(); timestamp != Long.MAX_VALUE; ) {
+            long epochDay = days.epochDayOf(timestamp);
+            long dayStart = days.startOf(epochDay);
+            long nextDayStart = days.startOf(epochDay + 1);
+            dayRanges.add(new DayRange(LocalDate.ofEpochDay(epochDay), id,
+                    rangesOf.priceRange(dayStart, nextDayStart)));
+            timestamp = daysOf.ceilingTimestamp(nextDayStart);
+        }
+    }
+
+    /**
+     * Collects price ranges of the merged series within days touched by the batch, once per day.
+     * Day is looked up only when a tick falls out of the current day, see {@link DayBoundaries}.
+     */
+    private void aggregateByDay(int id, CryptoTimeSeries timeSeries, long[] timestamps, int size,
+                                List<DayRange> dayRanges) {
+        Set<Long> refreshedDays = new HashSet<>();
+        long dayStart = 0;
+        long nextDayStart = 0;
+        for (int i = 0; i < size; i++) {
+            long timestamp = timestamps[i];
+            if (i == 0 || timestamp < dayStart || timestamp >= nextDayStart) {
+                long epochDay = days.epochDayOf(timestamp);
+                dayStart = days.startOf(epochDay);
+                nextDayStart = days.startOf(epochDay + 1);
+                if (refreshedDays.add(epochDay)) {
+                    dayRanges.add(new DayRange(LocalDate.ofEpochDay(epochDay), id,
+                            timeSeries.priceRange(dayStart, nextDayStart)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets collected price ranges into per-day aggregates, which also elects new leaders of the days
+     */
+    private void updateDayAggregates(List<DayRange> dayRanges) {
+        for (DayRange dayRange : dayRanges) {
+            dayAggregates.compute(dayRange.date(), (d, dayAggregate) -> {
+                DayAggregate updated = (Objects.isNull(dayAggregate) ? DayAggregate.EMPTY : dayAggregate)
+                        .with(dayRange.id(), dayRange.range(), versions::incrementAndGet);
+                return updated.isEmpty() ? null : updated;
+            });
+        }
+    }
+
+    /**
+     * Time series, candles and metadata of all cryptos as of a single write
+     *
+     * @param cryptos       state of every crypto ever stored by symbol id
+     * @param metaDataView  metadata and rankings of all cryptos
+     * @param seriesVersion version of time series of all cryptos, changed on every write
+     */
+    private record RepositoryState(PersistentArray<CryptoState> cryptos, MetaDataView metaDataView,
+                                   long seriesVersion) {
+
+        static final RepositoryState EMPTY = new RepositoryState(PersistentArray.empty(), MetaDataView.EMPTY, 0);
+    }
+
+    /**
+     * @param metadataVersion version of crypto's metadata, 0 if crypto never had any
+     */
+    private record CryptoState(String symbol, CryptoTimeSeries timeSeries, CandleRollup candles,
+                               long metadataVersion) {
+
+        static final CryptoState EMPTY = new CryptoState("", CryptoTimeSeries.EMPTY, CandleRollup.EMPTY, 0);
+    }
+
+    /**
+     * Price range of a crypto within a day, null range removes crypto from the day
+     */
+    private record DayRange(LocalDate date, int id, PriceRange range) {
+    }
+
+    /**
+     * New data of a crypto to publish, null statistics removes crypto's metadata
+     */
+    private record CryptoUpdate(int id, String symbol, CryptoTimeSeries timeSeries, CandleRollup candles,
+                                CryptoStatistics statistics) {
+    }
+
+    /**
+     * New history of a crypto built from batches, which is not visible to readers until
+     * it replaces the stored one, see {@link #replaceHistory}.
+     * <br> Batches are merged into time series of the storage format right away, so the history is not
+     * buffered twice. Not thread safe: batches must be added one at a time.
+     */
+    public static class StagedHistory implements CryptoBatchConsumer {
+
+        private final String symbol;
+        private final int uncompressedChunks;
+        private CryptoTimeSeries timeSeries = CryptoTimeSeries.EMPTY;
+
+        private StagedHistory(String symbol, int uncompressedChunks) {
+            this.symbol = symbol;
+            this.uncompressedChunks = uncompressedChunks;
+        }
+
+        /**
+         * Merges batch into staged history. Tick with already staged timestamp replaces staged price.
+         */
+        @Override
+        public void accept(long[] timestamps, double[] prices, int size) {
+            timeSeries = timeSeries.withTicks(timestamps, prices, size, uncompressedChunks);
+        }
+
+        /**
+         * @return number of staged ticks
+         */
+        public long size() {
+            return timeSeries.size();
+        }
     }
 }
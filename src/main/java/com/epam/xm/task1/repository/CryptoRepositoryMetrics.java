@@ -0,0 +1,56 @@
+package com.epam.xm.task1.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Publishes size of {@link CryptoRepository} as gauges and times derivation of metadata on its writes.
+ * <br> Per-crypto tick counts are refreshed on schedule, as cryptos appear while the application runs.
+ */
+@Component
+@RequiredArgsConstructor
+public class CryptoRepositoryMetrics implements MeterBinder {
+
+    private final CryptoRepository cryptoRepository;
+    private volatile MultiGauge ticksBySymbol;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cryptoRepository.attachMetadataTimer(Timer.builder("crypto.ingestion.stage")
+                .description("Time spent in a stage of ingestion")
+                .tag("stage", "metadata")
+                .publishPercentileHistogram()
+                .register(registry));
+        Gauge.builder("crypto.repository.days", cryptoRepository, CryptoRepository::dayCount)
+                .description("Days having ticks of any crypto")
+                .register(registry);
+        Gauge.builder("crypto.repository.heap", cryptoRepository, CryptoRepository::estimatedHeapBytes)
+                .description("Estimated heap occupied by stored ticks")
+                .baseUnit("bytes")
+                .register(registry);
+        ticksBySymbol = MultiGauge.builder("crypto.repository.ticks")
+                .description("Ticks stored for a crypto")
+                .register(registry);
+        refreshTicksBySymbol();
+    }
+
+    @Scheduled(fixedDelayString = "${crypto.metrics.refresh-interval-ms:15000}")
+    public void refreshTicksBySymbol() {
+        MultiGauge gauge = ticksBySymbol;
+        if (Objects.isNull(gauge)) {
+            return;
+        }
+        gauge.register(cryptoRepository.timeSeriesBySymbol().entrySet().stream()
+                .<MultiGauge.Row<?>>map(e -> MultiGauge.Row.of(Tags.of("symbol", e.getKey()), e.getValue().size()))
+                .toList(), true);
+    }
+}
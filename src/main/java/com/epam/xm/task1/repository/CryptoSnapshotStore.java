@@ -0,0 +1,224 @@
+package com.epam.xm.task1.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Persists time series of cryptos into snapshot files of {@code crypto.storage.data-dir}, one file per crypto.
+ * Persistence is disabled if the directory is not set.
+ * <br> On startup snapshots are memory-mapped, so {@link CryptoRepository} serves restored data right away
+ * without parsing it or copying it to the heap. Snapshots of changed cryptos are written when application is closed.
+ * <p> Snapshot layout, all numbers are big-endian:
+ * <pre>
+ * header   int magic, int format version, long tick count, double min price, double max price
+ * chunks   double min price, double max price of every {@link TimeSeriesChunk#CAPACITY} records
+ * records  long timestamp, double price of every tick in ascending timestamp order
+ * </pre>
+ */
+@Component
+@Slf4j
+public class CryptoSnapshotStore {
+
+    static final String FILE_SUFFIX = ".snapshot";
+    private static final int MAGIC = 0x43525453;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int CHUNK_SUMMARY_SIZE = 16;
+    // a single mapping can not exceed 2GB, so records are mapped in segments of whole chunks
+    private static final int CHUNKS_PER_MAPPING = 8192;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final CryptoRepository cryptoRepository;
+    private final Path dataDir;
+    private final Map<String, CryptoTimeSeries> persistedSeries = new HashMap<>();
+
+    public CryptoSnapshotStore(CryptoRepository cryptoRepository,
+                               @Value("${crypto.storage.data-dir:}") String dataDir) {
+        this.cryptoRepository = cryptoRepository;
+        this.dataDir = dataDir.isBlank() ? null : Path.of(dataDir);
+    }
+
+    /**
+     * Restores all cryptos from snapshots of data directory
+     *
+     * @throws IOException if snapshot can not be read
+     */
+    @PostConstruct
+    public synchronized void load() throws IOException {
+        if (Objects.isNull(dataDir)) {
+            return;
+        }
+        Files.createDirectories(dataDir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dataDir, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String symbol = fileName.substring(0, fileName.length() - FILE_SUFFIX.length());
+                CryptoTimeSeries timeSeries = read(file);
+                cryptoRepository.restore(symbol, timeSeries);
+                persistedSeries.put(symbol, timeSeries);
+                log.info("Restored {} ticks of crypto {} from {}", timeSeries.size(), symbol, file);
+            }
+        }
+    }
+
+    /**
+     * Saves snapshots when application is closing. Context closed event comes before web application scope
+     * holding {@link CryptoRepository} is destroyed, unlike destruction callbacks of this bean.
+     *
+     * @throws IOException if snapshot can not be written
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() throws IOException {
+        save();
+    }
+
+    /**
+     * Writes snapshots of cryptos changed since they were restored or saved last time
+     *
+     * @throws IOException if snapshot can not be written
+     */
+    public synchronized void save() throws IOException {
+        if (Objects.isNull(dataDir)) {
+            return;
+        }
+        Files.createDirectories(dataDir);
+        for (Map.Entry<String, CryptoTimeSeries> e : cryptoRepository.timeSeriesBySymbol().entrySet()) {
+            CryptoTimeSeries timeSeries = e.getValue();
+            if (persistedSeries.get(e.getKey()) == timeSeries) {
+                continue;
+            }
+            Path file = dataDir.resolve(e.getKey() + FILE_SUFFIX);
+            if (timeSeries.isEmpty()) {
+                Files.deleteIfExists(file);
+            } else {
+                write(timeSeries, file);
+                log.info("Saved {} ticks of crypto {} to {}", timeSeries.size(), e.getKey(), file);
+            }
+            persistedSeries.put(e.getKey(), timeSeries);
+        }
+    }
+
+    /**
+     * Maps snapshot file into time series. Only header and chunk summaries are read eagerly.
+     */
+    static CryptoTimeSeries read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported snapshot format of " + file);
+            }
+            long size = header.getLong();
+            double minPrice = header.getDouble();
+            double maxPrice = header.getDouble();
+            int chunkCount = Math.toIntExact((size + TimeSeriesChunk.CAPACITY - 1) / TimeSeriesChunk.CAPACITY);
+            long recordsOffset = HEADER_SIZE + (long) chunkCount * CHUNK_SUMMARY_SIZE;
+            if (channel.size() != recordsOffset + size * MappedTimeSeriesChunk.RECORD_SIZE) {
+                throw new IllegalStateException("Snapshot " + file + " is corrupted");
+            }
+
+            ByteBuffer summaries = readFully(channel, HEADER_SIZE, chunkCount * CHUNK_SUMMARY_SIZE);
+            TimeSeriesChunk[] chunks = new TimeSeriesChunk[chunkCount];
+            long chunkBytes = (long) TimeSeriesChunk.CAPACITY * MappedTimeSeriesChunk.RECORD_SIZE;
+            MappedByteBuffer mapping = null;
+            for (int i = 0; i < chunkCount; i++) {
+                if (i % CHUNKS_PER_MAPPING == 0) {
+                    long position = recordsOffset + i * chunkBytes;
+                    long length = Math.min(CHUNKS_PER_MAPPING * chunkBytes, channel.size() - position);
+                    mapping = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                }
+                int chunkSize = (int) Math.min(TimeSeriesChunk.CAPACITY, size - (long) i * TimeSeriesChunk.CAPACITY);
+                int offset = (int) ((i % CHUNKS_PER_MAPPING) * chunkBytes);
+                ByteBuffer records = mapping.slice(offset, chunkSize * MappedTimeSeriesChunk.RECORD_SIZE);
+                chunks[i] = new MappedTimeSeriesChunk(records, chunkSize, summaries.getDouble(), summaries.getDouble());
+            }
+            return CryptoTimeSeries.of(chunks, size, minPrice, maxPrice);
+        }
+    }
+
+    /**
+     * Writes snapshot into temporary file and moves it in place of the previous one,
+     * so a crash never leaves half-written snapshot and mapped previous snapshot stays intact.
+     */
+    static void write(CryptoTimeSeries timeSeries, Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        int chunkCount = Math.toIntExact((timeSeries.size() + TimeSeriesChunk.CAPACITY - 1) / TimeSeriesChunk.CAPACITY);
+        long recordsOffset = HEADER_SIZE + (long) chunkCount * CHUNK_SUMMARY_SIZE;
+        ByteBuffer summaries = ByteBuffer.allocate(chunkCount * CHUNK_SUMMARY_SIZE);
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer records = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            channel.position(recordsOffset);
+            int chunkSize = 0;
+            double minPrice = Double.POSITIVE_INFINITY;
+            double maxPrice = Double.NEGATIVE_INFINITY;
+            for (int c = 0; c < timeSeries.chunkCount(); c++) {
+                TimeSeriesChunk chunk = timeSeries.chunk(c);
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (!records.hasRemaining()) {
+                        writeFully(channel, records.flip());
+                        records.clear();
+                    }
+                    double price = chunk.price(i);
+                    records.putLong(chunk.timestamp(i)).putDouble(price);
+                    minPrice = Math.min(minPrice, price);
+                    maxPrice = Math.max(maxPrice, price);
+                    if (++chunkSize == TimeSeriesChunk.CAPACITY) {
+                        summaries.putDouble(minPrice).putDouble(maxPrice);
+                        chunkSize = 0;
+                        minPrice = Double.POSITIVE_INFINITY;
+                        maxPrice = Double.NEGATIVE_INFINITY;
+                    }
+                }
+            }
+            if (chunkSize > 0) {
+                summaries.putDouble(minPrice).putDouble(maxPrice);
+            }
+            writeFully(channel, records.flip());
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(timeSeries.size())
+                    .putDouble(timeSeries.minPrice())
+                    .putDouble(timeSeries.maxPrice());
+            channel.position(0);
+            writeFully(channel, header.flip());
+            writeFully(channel, summaries.flip());
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of snapshot");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
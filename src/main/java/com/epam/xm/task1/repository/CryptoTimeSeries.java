@@ -0,0 +1,531 @@
+package com.epam.xm.task1.repository;
+
+import com.epam.xm.task1.model.Candle;
+import com.epam.xm.task1.model.CryptoMetaData;
+import com.epam.xm.task1.model.CryptoStatistics;
+import com.epam.xm.task1.parser.CryptoBatchConsumer;
+import com.epam.xm.task1.parser.CryptoRecordConsumer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Immutable snapshot of a single crypto's time series, sorted by timestamp and split into {@link TimeSeriesChunk}s.
+ * <br> Ticks are kept in primitive columns, so a tick costs 16 bytes of heap and periods are
+ * located by binary search instead of grouping ticks into per-day collections.
+ * <br> Writes produce a new snapshot reusing untouched chunks, so readers never block and never
+ * observe a half-applied write. Writes of the same series must not run concurrently.
+ * <br> Writes may compress chunks older than the most recent ones into {@link CompressedTimeSeriesChunk}s,
+ * recent chunks stay on the heap uncompressed for fast appends.
+ */
+final class CryptoTimeSeries {
+
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+    static final CryptoTimeSeries EMPTY = new CryptoTimeSeries(new TimeSeriesChunk[0], 0, 0,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, ChunkRangeIndex.EMPTY);
+
+    private final TimeSeriesChunk[] chunks;
+    private final long size;
+    private final long version;
+    private final double minPrice;
+    private final double maxPrice;
+    private final ChunkRangeIndex chunkRangeIndex;
+
+    private CryptoTimeSeries(TimeSeriesChunk[] chunks, long size, long version, double minPrice, double maxPrice,
+                             ChunkRangeIndex chunkRangeIndex) {
+        this.chunks = chunks;
+        this.size = size;
+        this.version = version;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.chunkRangeIndex = chunkRangeIndex;
+    }
+
+    /**
+     * Creates series from chunks restored from storage
+     *
+     * @param chunks   sorted chunks with ticks in ascending timestamp order
+     * @param size     number of ticks in all chunks
+     * @param minPrice min price of all chunks
+     * @param maxPrice max price of all chunks
+     * @return series of provided chunks
+     */
+    static CryptoTimeSeries of(TimeSeriesChunk[] chunks, long size, double minPrice, double maxPrice) {
+        return chunks.length == 0 ? EMPTY : new CryptoTimeSeries(chunks, size, 0, minPrice, maxPrice,
+                ChunkRangeIndex.of(chunks, chunks.length));
+    }
+
+    long size() {
+        return size;
+    }
+
+    int chunkCount() {
+        return chunks.length;
+    }
+
+    TimeSeriesChunk chunk(int index) {
+        return chunks[index];
+    }
+
+    double minPrice() {
+        return minPrice;
+    }
+
+    double maxPrice() {
+        return maxPrice;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long firstTimestamp() {
+        return chunks[0].firstTimestamp();
+    }
+
+    long lastTimestamp() {
+        return chunks[chunks.length - 1].lastTimestamp();
+    }
+
+    /**
+     * @return estimated heap bytes of the series' chunks
+     */
+    long estimatedHeapBytes() {
+        long bytes = 0;
+        for (TimeSeriesChunk chunk : chunks) {
+            bytes += chunk.estimatedHeapBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Builds metadata of the whole series without scanning ticks
+     *
+     * @param cryptoName crypto's name
+     * @return {@link CryptoMetaData} of the series, or null if series is empty
+     */
+    CryptoMetaData toMetaData(String cryptoName) {
+        if (isEmpty()) {
+            return null;
+        }
+        TimeSeriesChunk last = chunks[chunks.length - 1];
+        double oldestPrice = chunks[0].price(0);
+        double newestPrice = last.price(last.size() - 1);
+        return new CryptoMetaData(cryptoName, oldestPrice, newestPrice, minPrice, maxPrice,
+                (maxPrice - minPrice) / minPrice);
+    }
+
+    /**
+     * Builds metadata of the series together with its ranking metrics.
+     * <br> Trailing windows end at the newest tick of the series. Only chunks at the window edges are
+     * looked into, whole chunks of the window are covered by {@link ChunkRangeIndex}, which also keeps sums
+     * of returns updated by writes. So the cost grows only logarithmically with the length of the history.
+     *
+     * @param cryptoName crypto's name
+     * @return {@link CryptoStatistics} of the series, or null if series is empty
+     */
+    CryptoStatistics toStatistics(String cryptoName) {
+        if (isEmpty()) {
+            return null;
+        }
+        return new CryptoStatistics(toMetaData(cryptoName), trailingNormalizedRange(DAY_MILLIS),
+                trailingNormalizedRange(7 * DAY_MILLIS), trailingNormalizedRange(30 * DAY_MILLIS), volatility());
+    }
+
+    private double trailingNormalizedRange(long windowMillis) {
+        long last = lastTimestamp();
+        return priceRange(last - windowMillis + 1, last + 1).normalizedRange();
+    }
+
+    /**
+     * @return standard deviation of returns between neighbour ticks, or 0 if there is a single tick
+     */
+    private double volatility() {
+        long returns = size - 1;
+        if (returns == 0) {
+            return 0;
+        }
+        double mean = chunkRangeIndex.returnSum() / returns;
+        return Math.sqrt(Math.max(0, chunkRangeIndex.returnSquareSum() / returns - mean * mean));
+    }
+
+    /**
+     * Merges batch of ticks into the series. Ticks which are newer than the last stored one are simply appended,
+     * others are inserted in place. Tick with already stored timestamp replaces the stored price.
+     * <br> Costs O(batch size) unless ticks land far from the end of the series or replace current min or max price.
+     *
+     * @param timestamps epoch milliseconds of the ticks
+     * @param prices     prices of the ticks
+     * @param count      number of valid entries in both arrays
+     * @return new snapshot containing provided ticks
+     */
+    CryptoTimeSeries withTicks(long[] timestamps, double[] prices, int count) {
+        return withTicks(timestamps, prices, count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Merges batch of ticks into the series like {@link #withTicks(long[], double[], int)} and compresses
+     * heap chunks, which are not among the most recent ones
+     *
+     * @param timestamps         epoch milliseconds of the ticks
+     * @param prices             prices of the ticks
+     * @param count              number of valid entries in both arrays
+     * @param uncompressedChunks number of the most recent chunks kept uncompressed, positive
+     * @return new snapshot containing provided ticks
+     */
+    CryptoTimeSeries withTicks(long[] timestamps, double[] prices, int count, int uncompressedChunks) {
+        Writer writer = new Writer(uncompressedChunks);
+        for (int i = 0; i < count; i++) {
+            writer.upsert(timestamps[i], prices[i]);
+        }
+        return writer.build();
+    }
+
+    /**
+     * Builds metadata of ticks in provided period without scanning them
+     *
+     * @param cryptoName  crypto's name
+     * @param from        inclusive start of period in epoch milliseconds
+     * @param toExclusive exclusive end of period in epoch milliseconds
+     * @return {@link CryptoMetaData} of the period, or null if there is no ticks in the period
+     */
+    CryptoMetaData toMetaData(String cryptoName, long from, long toExclusive) {
+        Candle candle = candle(from, toExclusive);
+        if (candle == null) {
+            return null;
+        }
+        return new CryptoMetaData(cryptoName, candle.open(), candle.close(), candle.low(), candle.high(),
+                new PriceRange(candle.low(), candle.high()).normalizedRange());
+    }
+
+    /**
+     * Builds OHLC candle of ticks in provided period without scanning them
+     *
+     * @param from        inclusive start of period in epoch milliseconds
+     * @param toExclusive exclusive end of period in epoch milliseconds
+     * @return {@link Candle} opening at {@param from}, or null if there is no ticks in the period
+     */
+    Candle candle(long from, long toExclusive) {
+        PriceRange range = priceRange(from, toExclusive);
+        if (range == null) {
+            return null;
+        }
+        TimeSeriesChunk oldest = chunks[firstChunkEndingAtOrAfter(from)];
+        TimeSeriesChunk newest = chunks[lastChunkStartingBefore(toExclusive)];
+        return new Candle(from, oldest.price(oldest.lowerBound(from)), range.maxPrice(), range.minPrice(),
+                newest.price(newest.lowerBound(toExclusive) - 1));
+    }
+
+    /**
+     * Calculates min and max prices of ticks in provided period.
+     * <br> Only chunks at the period edges are looked into, whole chunks in between are covered by
+     * {@link ChunkRangeIndex} in logarithmic time.
+     *
+     * @param from        inclusive start of period in epoch milliseconds
+     * @param toExclusive exclusive end of period in epoch milliseconds
+     * @return {@link PriceRange} of the period, or null if there is no ticks in the period
+     */
+    PriceRange priceRange(long from, long toExclusive) {
+        if (chunks.length == 0 || from >= toExclusive) {
+            return null;
+        }
+        int first = firstChunkEndingAtOrAfter(from);
+        int last = lastChunkStartingBefore(toExclusive);
+        if (first > last) {
+            return null;
+        }
+        double[] minMax = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        collectChunkMinMax(chunks[first], from, toExclusive, minMax);
+        if (first < last) {
+            chunkRangeIndex.collectMinMax(first + 1, last - 1, minMax);
+            collectChunkMinMax(chunks[last], from, toExclusive, minMax);
+        }
+        return minMax[0] == Double.POSITIVE_INFINITY ? null : new PriceRange(minMax[0], minMax[1]);
+    }
+
+    /**
+     * @return timestamp of the first tick not older than provided one, or {@link Long#MAX_VALUE} if there is none
+     */
+    long ceilingTimestamp(long timestamp) {
+        int chunkIndex = firstChunkEndingAtOrAfter(timestamp);
+        if (chunkIndex == chunks.length) {
+            return Long.MAX_VALUE;
+        }
+        TimeSeriesChunk chunk = chunks[chunkIndex];
+        return chunk.timestamp(chunk.lowerBound(timestamp));
+    }
+
+    /**
+     * @param from        inclusive start of period in epoch milliseconds
+     * @param toExclusive exclusive end of period in epoch milliseconds
+     * @return number of ticks in the period, only chunks at the period edges are looked into
+     */
+    long count(long from, long toExclusive) {
+        long count = 0;
+        if (from >= toExclusive) {
+            return count;
+        }
+        int last = lastChunkStartingBefore(toExclusive);
+        for (int chunkIndex = firstChunkEndingAtOrAfter(from); chunkIndex <= last; chunkIndex++) {
+            TimeSeriesChunk chunk = chunks[chunkIndex];
+            count += chunkEnd(chunk, toExclusive) - chunkStart(chunk, from);
+        }
+        return count;
+    }
+
+    /**
+     * Hands ticks in provided period to the consumer in ascending timestamp order, in batches of at most
+     * {@link TimeSeriesChunk#CAPACITY} ticks.
+     * <br> Ticks of memory-mapped chunks are passed to {@link CryptoRecordConsumer} as mapped records,
+     * so they are neither decoded nor copied to the heap. Other ticks are copied to a pair of arrays reused
+     * for the whole export.
+     *
+     * @param from        inclusive start of period in epoch milliseconds
+     * @param toExclusive exclusive end of period in epoch milliseconds
+     * @param consumer    receiver of the ticks
+     */
+    void export(long from, long toExclusive, CryptoBatchConsumer consumer) {
+        if (from >= toExclusive) {
+            return;
+        }
+        long[] timestamps = null;
+        double[] prices = null;
+        int last = lastChunkStartingBefore(toExclusive);
+        for (int chunkIndex = firstChunkEndingAtOrAfter(from); chunkIndex <= last; chunkIndex++) {
+            TimeSeriesChunk chunk = chunks[chunkIndex];
+            int start = chunkStart(chunk, from);
+            int end = chunkEnd(chunk, toExclusive);
+            if (chunk instanceof MappedTimeSeriesChunk mapped && consumer instanceof CryptoRecordConsumer records) {
+                records.acceptRecords(mapped.records(start, end));
+                continue;
+            }
+            if (timestamps == null) {
+                timestamps = new long[TimeSeriesChunk.CAPACITY];
+                prices = new double[TimeSeriesChunk.CAPACITY];
+            }
+            for (int batchStart = start; batchStart < end; batchStart += TimeSeriesChunk.CAPACITY) {
+                int batchEnd = Math.min(end, batchStart + TimeSeriesChunk.CAPACITY);
+                chunk.copyTicks(batchStart, batchEnd, timestamps, prices);
+                consumer.accept(timestamps, prices, batchEnd - batchStart);
+            }
+        }
+    }
+
+    private static int chunkStart(TimeSeriesChunk chunk, long from) {
+        return chunk.firstTimestamp() >= from ? 0 : chunk.lowerBound(from);
+    }
+
+    private static int chunkEnd(TimeSeriesChunk chunk, long toExclusive) {
+        return chunk.lastTimestamp() < toExclusive ? chunk.size() : chunk.lowerBound(toExclusive);
+    }
+
+    private static void collectChunkMinMax(TimeSeriesChunk chunk, long from, long toExclusive, double[] minMax) {
+        int start = chunkStart(chunk, from);
+        int end = chunkEnd(chunk, toExclusive);
+        if (start < end) {
+            chunk.collectMinMax(start, end, minMax);
+        }
+    }
+
+    /**
+     * @return index of the last chunk with the first timestamp less than {@param timestamp}, or -1
+     */
+    private int lastChunkStartingBefore(long timestamp) {
+        int low = 0;
+        int high = chunks.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunks[mid].firstTimestamp() < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * @return index of the first chunk with the last timestamp not less than {@param timestamp}, or chunk count
+     */
+    private int firstChunkEndingAtOrAfter(long timestamp) {
+        int low = 0;
+        int high = chunks.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunks[mid].lastTimestamp() < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Accumulates changes of a single write. Chunks are copied only when touched for the first time.
+     */
+    private final class Writer {
+
+        private final long writeVersion = version + 1;
+        private final int uncompressedChunks;
+        private TimeSeriesChunk[] newChunks = Arrays.copyOf(chunks, Math.max(4, chunks.length + 1));
+        private int chunkCount = chunks.length;
+        private long newSize = size;
+        private double newMinPrice = minPrice;
+        private double newMaxPrice = maxPrice;
+        private boolean extremesReplaced;
+        private int firstTouchedChunk = Integer.MAX_VALUE;
+        // chunks at these indexes were replaced in place, chunks from the first moved one on were added or shifted
+        private final BitSet replacedChunks = new BitSet();
+        private int firstMovedChunk = Integer.MAX_VALUE;
+
+        Writer(int uncompressedChunks) {
+            this.uncompressedChunks = uncompressedChunks;
+        }
+
+        void upsert(long timestamp, double price) {
+            TimeSeriesChunk last = chunkCount == 0 ? null : newChunks[chunkCount - 1];
+            if (last == null || timestamp > last.lastTimestamp()) {
+                HeapTimeSeriesChunk appended;
+                if (last == null || last.isFull()) {
+                    appended = new HeapTimeSeriesChunk(writeVersion);
+                    addChunk(chunkCount, appended);
+                } else {
+                    appended = writable(chunkCount - 1);
+                }
+                appended.append(timestamp, price);
+                added(price);
+                return;
+            }
+
+            int chunkIndex = chunkIndexFor(timestamp);
+            int index = newChunks[chunkIndex].indexOf(timestamp);
+            if (index >= 0) {
+                double replacedPrice = writable(chunkIndex).replace(index, price);
+                extremesReplaced |= replacedPrice == newMinPrice || replacedPrice == newMaxPrice;
+                updateExtremes(price);
+                return;
+            }
+
+            HeapTimeSeriesChunk target = writable(chunkIndex);
+            if (target.isFull()) {
+                HeapTimeSeriesChunk upper = target.split();
+                addChunk(chunkIndex + 1, upper);
+                if (timestamp >= upper.firstTimestamp()) {
+                    target = upper;
+                }
+            }
+            target.insert(timestamp, price);
+            added(price);
+        }
+
+        CryptoTimeSeries build() {
+            compressColdChunks();
+            TimeSeriesChunk[] builtChunks = Arrays.copyOf(newChunks, chunkCount);
+            ChunkRangeIndex newIndex = buildIndex(builtChunks);
+            if (extremesReplaced) {
+                // replaced price might be the only min or max, so extremes are taken from all chunks again
+                newMinPrice = newIndex.minPrice();
+                newMaxPrice = newIndex.maxPrice();
+            }
+            return new CryptoTimeSeries(builtChunks, newSize, writeVersion, newMinPrice, newMaxPrice, newIndex);
+        }
+
+        /**
+         * Sets replaced, added and shifted chunks in the index of the previous snapshot,
+         * or builds the index again if most of the chunks moved. Chunk following a replaced one is set as well,
+         * as the return between them may have changed.
+         */
+        private ChunkRangeIndex buildIndex(TimeSeriesChunk[] builtChunks) {
+            int firstMoved = Math.min(firstMovedChunk, chunkCount);
+            if (firstMoved < chunkCount / 2) {
+                return ChunkRangeIndex.of(builtChunks, chunkCount);
+            }
+            ChunkRangeIndex index = chunkRangeIndex;
+            int lastSet = -1;
+            for (int chunkIndex = replacedChunks.nextSetBit(0); chunkIndex >= 0 && chunkIndex < firstMoved;
+                 chunkIndex = replacedChunks.nextSetBit(chunkIndex + 1)) {
+                if (chunkIndex > lastSet) {
+                    index = withChunk(index, builtChunks, chunkIndex);
+                }
+                if (chunkIndex + 1 < firstMoved) {
+                    index = withChunk(index, builtChunks, chunkIndex + 1);
+                    lastSet = chunkIndex + 1;
+                }
+            }
+            for (int chunkIndex = firstMoved; chunkIndex < chunkCount; chunkIndex++) {
+                index = withChunk(index, builtChunks, chunkIndex);
+            }
+            return index;
+        }
+
+        private static ChunkRangeIndex withChunk(ChunkRangeIndex index, TimeSeriesChunk[] builtChunks, int chunkIndex) {
+            return index.with(chunkIndex, chunkIndex == 0 ? null : builtChunks[chunkIndex - 1], builtChunks[chunkIndex]);
+        }
+
+        /**
+         * Compresses heap chunks, which this write touched or moved out of the most recent ones
+         */
+        private void compressColdChunks() {
+            int coldChunks = chunkCount - uncompressedChunks;
+            int first = Math.max(0, Math.min(firstTouchedChunk, chunks.length - uncompressedChunks));
+            for (int chunkIndex = first; chunkIndex < coldChunks; chunkIndex++) {
+                if (newChunks[chunkIndex] instanceof HeapTimeSeriesChunk chunk) {
+                    newChunks[chunkIndex] = CompressedTimeSeriesChunk.of(chunk);
+                }
+            }
+        }
+
+        private void added(double price) {
+            newSize++;
+            updateExtremes(price);
+        }
+
+        private void updateExtremes(double price) {
+            if (price < newMinPrice) {
+                newMinPrice = price;
+            }
+            if (price > newMaxPrice) {
+                newMaxPrice = price;
+            }
+        }
+
+        private HeapTimeSeriesChunk writable(int index) {
+            HeapTimeSeriesChunk chunk = newChunks[index].forWrite(writeVersion);
+            newChunks[index] = chunk;
+            firstTouchedChunk = Math.min(firstTouchedChunk, index);
+            replacedChunks.set(index);
+            return chunk;
+        }
+
+        /**
+         * @return index of the chunk, where tick with provided timestamp is or should be stored
+         */
+        private int chunkIndexFor(long timestamp) {
+            int low = 0;
+            int high = chunkCount - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (newChunks[mid].firstTimestamp() <= timestamp) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        private void addChunk(int index, TimeSeriesChunk chunk) {
+            if (chunkCount == newChunks.length) {
+                newChunks = Arrays.copyOf(newChunks, chunkCount * 2);
+            }
+            System.arraycopy(newChunks, index, newChunks, index + 1, chunkCount - index);
+            newChunks[index] = chunk;
+            chunkCount++;
+            firstTouchedChunk = Math.min(firstTouchedChunk, index);
+            firstMovedChunk = Math.min(firstMovedChunk, index);
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package com.epam.xm.task1.repository;
+
+import com.epam.xm.task1.model.CryptoTicks;
+import com.epam.xm.task1.parser.CryptoBatchConsumer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Append-only log of writes to {@link CryptoRepository}, which makes accepted ticks survive a crash.
+ * Enabled together with snapshots by {@code crypto.storage.data-dir}.
+ * <br> Writes are appended to the log before they are applied, but are not forced to disk one by one.
+ * {@link #awaitDurable} forces everything appended so far with a single fsync, which is shared by all
+ * concurrent uploads waiting at the same time (group commit).
+ * <br> On startup the log is replayed on top of restored snapshots. Compaction saves snapshots and deletes
+ * log segments covered by them.
+ * <p> Record layout, all numbers are big-endian:
+ * <pre>
+ * header   int payload length, int CRC32 of payload
+ * payload  byte flags (1 - replace), int entry count,
+ *          entries of short symbol length, symbol UTF-8 bytes, int tick count, long timestamp and double price of each tick
+ * </pre>
+ */
+@Component
+@Slf4j
+public class CryptoWriteAheadLog {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 8;
+    private static final byte REPLACE_FLAG = 1;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final CryptoRepository cryptoRepository;
+    private final CryptoSnapshotStore snapshotStore;
+    private final Path dataDir;
+    private final long compactionThreshold;
+
+    // guards writing of the segment; lock instead of monitor, so uploads on virtual threads appending
+    // to the log do not pin their carriers while the channel is written
+    private final Lock appendLock = new ReentrantLock();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final CRC32 writeChecksum = new CRC32();
+    // read without append lock by sync, segment is closed only when no sync is running
+    private volatile FileChannel segment;
+    private long segmentNumber;
+    private long segmentPosition;
+
+    private final Object compactionLock = new Object();
+    // lock instead of monitor, so uploads on virtual threads waiting for a sync do not pin their carriers
+    private final Lock syncLock = new ReentrantLock();
+    private final Condition syncFinished = syncLock.newCondition();
+    private volatile long appendedBytes;
+    private long syncedBytes;
+    private boolean syncing;
+
+    public CryptoWriteAheadLog(CryptoRepository cryptoRepository, CryptoSnapshotStore snapshotStore,
+                               @Value("${crypto.storage.data-dir:}") String dataDir,
+                               @Value("${crypto.storage.wal.enabled:true}") boolean enabled,
+                               @Value("${crypto.storage.wal.compaction-threshold-bytes:268435456}") long compactionThreshold) {
+        this.cryptoRepository = cryptoRepository;
+        this.snapshotStore = snapshotStore;
+        this.dataDir = dataDir.isBlank() || !enabled ? null : Path.of(dataDir);
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Replays log segments left by previous run and starts logging writes of the repository
+     *
+     * @throws IOException if log can not be read or written
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (Objects.isNull(dataDir)) {
+            return;
+        }
+        Files.createDirectories(dataDir);
+        List<Path> segments = segments();
+        long replayed = 0;
+        for (Path file : segments) {
+            replayed += replay(file);
+        }
+        appendLock.lock();
+        try {
+            segmentNumber = segments.isEmpty() ? 0 : segmentNumber(segments.get(segments.size() - 1));
+            startSegment();
+        } finally {
+            appendLock.unlock();
+        }
+        cryptoRepository.attach(this);
+        if (replayed > 0) {
+            log.info("Replayed {} log records from {} segments", replayed, segments.size());
+            compact();
+        }
+    }
+
+    /**
+     * Appends write to the log without forcing it to disk. Writes of a crypto must be appended in the order
+     * they are applied, so repository calls it holding locks of written cryptos.
+     *
+     * @param ticks   written {@link CryptoTicks}
+     * @param replace true if stored history of written cryptos is dropped before ticks are stored
+     */
+    void append(List<CryptoTicks> ticks, boolean replace) {
+        List<LogEntry> entries = new ArrayList<>(ticks.size());
+        for (CryptoTicks cryptoTicks : ticks) {
+            entries.add(new LogEntry(cryptoTicks.symbol(), cryptoTicks.size(),
+                    consumer -> consumer.accept(cryptoTicks.timestamps(), cryptoTicks.prices(), cryptoTicks.size())));
+        }
+        appendRecord(entries, replace);
+    }
+
+    /**
+     * Appends replacement of crypto's whole history as a single record, so it is replayed either completely
+     * or not at all. Ticks are streamed from the series, they are not copied into arrays first.
+     *
+     * @param symbol     crypto's name
+     * @param timeSeries {@link CryptoTimeSeries} replacing stored history of the crypto
+     */
+    void appendReplacement(String symbol, CryptoTimeSeries timeSeries) {
+        long size = timeSeries.count(Long.MIN_VALUE, Long.MAX_VALUE);
+        appendRecord(List.of(new LogEntry(symbol, size,
+                consumer -> timeSeries.export(Long.MIN_VALUE, Long.MAX_VALUE, consumer))), true);
+    }
+
+    private void appendRecord(List<LogEntry> entries, boolean replace) {
+        appendLock.lock();
+        try {
+            long recordPosition = segmentPosition;
+            long payloadLength = Byte.BYTES + Integer.BYTES;
+            List<byte[]> symbols = new ArrayList<>(entries.size());
+            for (LogEntry entry : entries) {
+                byte[] symbol = entry.symbol().getBytes(StandardCharsets.UTF_8);
+                symbols.add(symbol);
+                payloadLength += Short.BYTES + symbol.length + Integer.BYTES
+                        + entry.size() * MappedTimeSeriesChunk.RECORD_SIZE;
+            }
+            int checkedPayloadLength = Math.toIntExact(payloadLength);
+
+            writeChecksum.reset();
+            writeBuffer.clear();
+            segmentPosition += HEADER_SIZE;
+            writeBuffer.put(replace ? REPLACE_FLAG : 0).putInt(entries.size());
+            for (int e = 0; e < entries.size(); e++) {
+                LogEntry entry = entries.get(e);
+                ensureRemaining(Short.BYTES + symbols.get(e).length + Integer.BYTES);
+                writeBuffer.putShort((short) symbols.get(e).length).put(symbols.get(e)).putInt((int) entry.size());
+                entry.ticks().accept(this::writeTicks);
+            }
+            writePayload();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(checkedPayloadLength)
+                    .putInt((int) writeChecksum.getValue());
+            writeFully(header.flip(), recordPosition);
+            appendedBytes += segmentPosition - recordPosition;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while writing to log", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void writeTicks(long[] timestamps, double[] prices, int size) {
+        try {
+            for (int i = 0; i < size; i++) {
+                ensureRemaining(MappedTimeSeriesChunk.RECORD_SIZE);
+                writeBuffer.putLong(timestamps[i]).putDouble(prices[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while writing to log", e);
+        }
+    }
+
+    /**
+     * Waits until everything appended before the call is forced to disk. A single fsync covers
+     * all records appended until it starts, so concurrent callers mostly share it.
+     */
+    void awaitDurable() {
+        long target = appendedBytes;
+        while (true) {
+            long syncTarget;
+            syncLock.lock();
+            try {
+                while (syncing && syncedBytes < target) {
+                    awaitSyncFinished();
+                }
+                if (syncedBytes >= target) {
+                    return;
+                }
+                syncing = true;
+                syncTarget = appendedBytes;
+            } finally {
+                syncLock.unlock();
+            }
+            boolean synced = false;
+            try {
+                segment.force(false);
+                synced = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error while syncing log", e);
+            } finally {
+                finishSync(synced ? syncTarget : -1);
+            }
+        }
+    }
+
+    /**
+     * Compacts the log if current segment exceeds {@code crypto.storage.wal.compaction-threshold-bytes}
+     *
+     * @throws IOException if snapshots can not be saved
+     */
+    @Scheduled(fixedDelayString = "${crypto.storage.wal.compaction-check-interval-ms:60000}")
+    public void compactIfNeeded() throws IOException {
+        if (Objects.nonNull(dataDir) && segmentSize() >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Starts a new segment, saves snapshots of all cryptos and deletes segments, which are covered by snapshots.
+     * <br> Segment is switched while repository writes are paused, so every write of the old segments
+     * is applied before snapshots are taken. Writes which come after that go to the new segment and are
+     * replayed on top of snapshots after a crash, replaying a write already present in snapshot does not change it.
+     *
+     * @throws IOException if snapshots can not be saved
+     */
+    public void compact() throws IOException {
+        if (Objects.isNull(dataDir)) {
+            return;
+        }
+        // append lock is not held here, as writers waiting for the checkpoint may hold it
+        synchronized (compactionLock) {
+            long lastSealed = currentSegmentNumber();
+            cryptoRepository.checkpoint(this::switchSegment);
+            snapshotStore.save();
+            for (Path file : segments()) {
+                if (segmentNumber(file) <= lastSealed) {
+                    Files.delete(file);
+                }
+            }
+            log.info("Log compacted up to segment {}", lastSealed);
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() throws IOException {
+        compact();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (Objects.nonNull(segment)) {
+                segment.close();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private long replay(Path file) throws IOException {
+        long records = 0;
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file), WRITE_BUFFER_SIZE)) {
+            DataInputStream headerInput = new DataInputStream(inputStream);
+            while (true) {
+                int payloadLength;
+                int checksum;
+                try {
+                    payloadLength = headerInput.readInt();
+                    checksum = headerInput.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                CheckedInputStream checkedInput = new CheckedInputStream(inputStream, new CRC32());
+                DataInputStream payload = new DataInputStream(checkedInput);
+                boolean replace;
+                List<CryptoTicks> ticks = new ArrayList<>();
+                try {
+                    replace = payload.readByte() == REPLACE_FLAG;
+                    int entries = payload.readInt();
+                    for (int e = 0; e < entries; e++) {
+                        String symbol = new String(payload.readNBytes(payload.readUnsignedShort()), StandardCharsets.UTF_8);
+                        int size = payload.readInt();
+                        if (size < 0 || (long) size * MappedTimeSeriesChunk.RECORD_SIZE > payloadLength) {
+                            throw new StreamCorruptedException("Wrong number of ticks " + size);
+                        }
+                        long[] timestamps = new long[size];
+                        double[] prices = new double[size];
+                        for (int i = 0; i < size; i++) {
+                            timestamps[i] = payload.readLong();
+                            prices[i] = payload.readDouble();
+                        }
+                        ticks.add(new CryptoTicks(symbol, timestamps, prices, size));
+                    }
+                } catch (EOFException e) {
+                    log.warn("Log segment {} ends with incomplete record, which is skipped", file);
+                    break;
+                } catch (StreamCorruptedException e) {
+                    log.warn("Log segment {} has corrupted record, the rest of the segment is skipped", file);
+                    break;
+                }
+                if ((int) checkedInput.getChecksum().getValue() != checksum) {
+                    log.warn("Log segment {} has corrupted record, the rest of the segment is skipped", file);
+                    break;
+                }
+                cryptoRepository.addAll(ticks, replace);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Forces and closes current segment and starts the next one. Waits for running sync, which uses current segment.
+     */
+    private void switchSegment() {
+        appendLock.lock();
+        try {
+            syncLock.lock();
+            try {
+                while (syncing) {
+                    awaitSyncFinished();
+                }
+                syncing = true;
+            } finally {
+                syncLock.unlock();
+            }
+            boolean synced = false;
+            try {
+                segment.force(false);
+                synced = true;
+                segment.close();
+                startSegment();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error while switching log segment", e);
+            } finally {
+                finishSync(synced ? appendedBytes : -1);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until running sync finishes, must be called holding sync lock
+     */
+    private void awaitSyncFinished() {
+        try {
+            syncFinished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for log sync", e);
+        }
+    }
+
+    /**
+     * Marks running sync finished and wakes up waiting uploads
+     *
+     * @param syncedTarget appended bytes made durable by the sync, negative if it failed
+     */
+    private void finishSync(long syncedTarget) {
+        syncLock.lock();
+        try {
+            syncedBytes = Math.max(syncedBytes, syncedTarget);
+            syncing = false;
+            syncFinished.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void startSegment() throws IOException {
+        segment = FileChannel.open(dataDir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segmentNumber + 1, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentNumber++;
+        segmentPosition = 0;
+    }
+
+    private long currentSegmentNumber() {
+        appendLock.lock();
+        try {
+            return segmentNumber;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private long segmentSize() {
+        appendLock.lock();
+        try {
+            return segmentPosition;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dataDir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            files.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static long segmentNumber(Path file) {
+        String fileName = file.getFileName().toString();
+        return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (writeBuffer.remaining() < bytes) {
+            writePayload();
+        }
+    }
+
+    private void writePayload() throws IOException {
+        writeBuffer.flip();
+        writeChecksum.update(writeBuffer.duplicate());
+        int length = writeBuffer.remaining();
+        writeFully(writeBuffer, segmentPosition);
+        segmentPosition += length;
+        writeBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            segment.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Entry of a log record: ticks of a crypto, which are passed to the consumer in batches
+     */
+    private record LogEntry(String symbol, long size, Consumer<CryptoBatchConsumer> ticks) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.epam.xm.task1.repository;
+
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Immutable price ranges of all cryptos within a single day together with the crypto
+ * having the highest normalized range, maintained while data arrives.
+ * <br> Ranges are kept by symbol id, see {@link SymbolRegistry}, so setting a range copies only a few slots
+ * of {@link PersistentArray} instead of ranges of all cryptos of the day.
+ * <br> Version of the aggregate changes only when its leader changes.
+ */
+final class DayAggregate {
+
+    static final int NO_LEADER = -1;
+
+    static final DayAggregate EMPTY = new DayAggregate(PersistentArray.empty(), 0, NO_LEADER, 0, 0);
+
+    private final PersistentArray<PriceRange> ranges;
+    private final int size;
+    private final int leader;
+    private final double leaderNormalizedRange;
+    private final long version;
+
+    private DayAggregate(PersistentArray<PriceRange> ranges, int size, int leader, double leaderNormalizedRange,
+                         long version) {
+        this.ranges = ranges;
+        this.size = size;
+        this.leader = leader;
+        this.leaderNormalizedRange = leaderNormalizedRange;
+        this.version = version;
+    }
+
+    /**
+     * Sets price range of crypto and updates the leader
+     *
+     * @param id          id of crypto's symbol
+     * @param range       crypto's price range within the day, null if crypto has no data for the day
+     * @param nextVersion supplier of version of the new aggregate, called only if the leader changes
+     * @return aggregate containing new range
+     */
+    DayAggregate with(int id, PriceRange range, LongSupplier nextVersion) {
+        PriceRange previous = ranges.get(id);
+        if (Objects.equals(previous, range)) {
+            return this;
+        }
+        PersistentArray<PriceRange> updated = ranges.with(id, range);
+        int updatedSize = size + (Objects.isNull(previous) ? 1 : 0) - (Objects.isNull(range) ? 1 : 0);
+
+        double normalizedRange = Objects.isNull(range) ? 0 : range.normalizedRange();
+        if (leaderNormalizedRange < normalizedRange) {
+            return new DayAggregate(updated, updatedSize, id, normalizedRange,
+                    leader == id ? version : nextVersion.getAsLong());
+        }
+        if (leader != id) {
+            return new DayAggregate(updated, updatedSize, leader, leaderNormalizedRange, version);
+        }
+        // range of the leader shrank, so another crypto may lead now
+        Leader newLeader = new Leader();
+        updated.forEachIndexed(newLeader::offer);
+        return new DayAggregate(updated, updatedSize, newLeader.id, newLeader.normalizedRange,
+                newLeader.id == leader ? version : nextVersion.getAsLong());
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return id of crypto with the highest normalized range, or {@link #NO_LEADER} if there is none
+     */
+    int leader() {
+        return leader;
+    }
+
+    long version() {
+        return version;
+    }
+
+    /**
+     * Crypto with the highest normalized range among offered ones
+     */
+    private static final class Leader {
+
+        private int id = NO_LEADER;
+        private double normalizedRange;
+
+        private void offer(PriceRange range, int id) {
+            if (normalizedRange < range.normalizedRange()) {
+                this.id = id;
+                this.normalizedRange = range.normalizedRange();
+            }
+        }
+    }
+}
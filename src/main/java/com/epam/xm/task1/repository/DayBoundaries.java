@@ -0,0 +1,85 @@
+package com.epam.xm.task1.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Epoch millisecond boundaries of days in a time zone, so day of a timestamp is found without date-time conversion.
+ * <br> Days of fixed offset zones are found arithmetically. Days of other zones are found by binary search
+ * over starts of days precomputed for years {@value #FIRST_YEAR} - {@value #LAST_YEAR}, timestamps out of these
+ * years are converted as usual.
+ * <br> Days are identified by epoch day, like {@link LocalDate#toEpochDay()}.
+ */
+final class DayBoundaries {
+
+    private static final int FIRST_YEAR = 1970;
+    private static final int LAST_YEAR = 2099;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final ZoneId zone;
+    private final long firstEpochDay;
+    // starts of all days of the precomputed years and start of the day after them; null for fixed offset zones
+    private final long[] dayStarts;
+    private final long offsetMillis;
+
+    DayBoundaries(ZoneId zone) {
+        this.zone = zone;
+        LocalDate firstDay = LocalDate.of(FIRST_YEAR, 1, 1);
+        this.firstEpochDay = firstDay.toEpochDay();
+        if (zone.getRules().isFixedOffset()) {
+            this.offsetMillis = zone.getRules().getOffset(Instant.EPOCH).getTotalSeconds() * 1000L;
+            this.dayStarts = null;
+        } else {
+            this.offsetMillis = 0;
+            int days = (int) (LocalDate.of(LAST_YEAR + 1, 1, 1).toEpochDay() - firstEpochDay);
+            this.dayStarts = new long[days + 1];
+            for (int i = 0; i <= days; i++) {
+                dayStarts[i] = firstDay.plusDays(i).atStartOfDay(zone).toInstant().toEpochMilli();
+            }
+        }
+    }
+
+    /**
+     * @return epoch day of the date containing the timestamp
+     */
+    long epochDayOf(long epochMillis) {
+        if (dayStarts == null) {
+            return Math.floorDiv(epochMillis + offsetMillis, MILLIS_PER_DAY);
+        }
+        if (epochMillis < dayStarts[0] || epochMillis >= dayStarts[dayStarts.length - 1]) {
+            return LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), zone).toEpochDay();
+        }
+        int index = Arrays.binarySearch(dayStarts, epochMillis);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        // a day skipped by the zone, like 2011-12-30 in Pacific/Apia, starts with the next one
+        while (dayStarts[index + 1] == dayStarts[index]) {
+            index++;
+        }
+        return firstEpochDay + index;
+    }
+
+    /**
+     * @return epoch milliseconds of the start of the day
+     */
+    long startOf(long epochDay) {
+        if (dayStarts == null) {
+            return epochDay * MILLIS_PER_DAY - offsetMillis;
+        }
+        long index = epochDay - firstEpochDay;
+        if (index < 0 || index >= dayStarts.length) {
+            return LocalDate.ofEpochDay(epochDay).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        return dayStarts[(int) index];
+    }
+
+    /**
+     * @return true if passed zone has the same rules, like UTC and Z
+     */
+    boolean isSameZone(ZoneId other) {
+        return zone.normalized().equals(other.normalized());
+    }
+}
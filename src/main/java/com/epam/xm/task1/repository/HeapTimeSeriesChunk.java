@@ -0,0 +1,251 @@
+package com.epam.xm.task1.repository;
+
+import java.util.Arrays;
+
+/**
+ * {@link TimeSeriesChunk} stored in primitive columns on the heap.
+ * <br> Chunk is mutable only within the write which created it (see {@link #forWrite}), once published
+ * it is never changed. Published chunk may share its arrays with a newer chunk, which appends
+ * ticks behind the published size, so readers of the older chunk never observe them.
+ */
+final class HeapTimeSeriesChunk extends TimeSeriesChunk {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long writeVersion;
+    private long[] timestamps;
+    private double[] prices;
+    private boolean ownsArrays;
+    private boolean ownsReturnSums;
+    private int size;
+    private double minPrice = Double.POSITIVE_INFINITY;
+    private double maxPrice = Double.NEGATIVE_INFINITY;
+
+    HeapTimeSeriesChunk(long writeVersion) {
+        this(writeVersion, new long[INITIAL_CAPACITY], new double[INITIAL_CAPACITY], true);
+    }
+
+    /**
+     * Creates chunk owning provided arrays
+     */
+    HeapTimeSeriesChunk(long writeVersion, long[] timestamps, double[] prices, int size) {
+        this(writeVersion, timestamps, prices, true);
+        this.size = size;
+        recalculateMinMax();
+    }
+
+    private HeapTimeSeriesChunk(long writeVersion, long[] timestamps, double[] prices, boolean ownsArrays) {
+        this.writeVersion = writeVersion;
+        this.timestamps = timestamps;
+        this.prices = prices;
+        this.ownsArrays = ownsArrays;
+    }
+
+    /**
+     * @return this chunk if it was created by the same write, otherwise its copy sharing the arrays
+     */
+    @Override
+    HeapTimeSeriesChunk forWrite(long version) {
+        if (writeVersion == version) {
+            return this;
+        }
+        HeapTimeSeriesChunk copy = new HeapTimeSeriesChunk(version, timestamps, prices, false);
+        copy.size = size;
+        copy.minPrice = minPrice;
+        copy.maxPrice = maxPrice;
+        copy.returnSums = returnSums;
+        copy.blockMinMax = blockMinMax;
+        return copy;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    @Override
+    double price(int index) {
+        return prices[index];
+    }
+
+    @Override
+    double minPrice() {
+        return minPrice;
+    }
+
+    @Override
+    double maxPrice() {
+        return maxPrice;
+    }
+
+    @Override
+    long estimatedHeapBytes() {
+        return (long) timestamps.length * Long.BYTES + (long) prices.length * Double.BYTES;
+    }
+
+    @Override
+    void copyTicks(int from, int to, long[] timestamps, double[] prices) {
+        System.arraycopy(this.timestamps, from, timestamps, 0, to - from);
+        System.arraycopy(this.prices, from, prices, 0, to - from);
+    }
+
+    @Override
+    int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Appends tick, which must not be older than the last one. Must be called on the last chunk of the series only.
+     */
+    void append(long timestamp, double price) {
+        if (size == timestamps.length) {
+            grow(Math.min(CAPACITY, size * 2));
+        }
+        timestamps[size] = timestamp;
+        prices[size] = price;
+        size++;
+        updateMinMax(price);
+        appendReturn();
+    }
+
+    /**
+     * Inserts tick keeping the order. Chunk must not be full and must not contain tick with the same timestamp.
+     */
+    void insert(long timestamp, double price) {
+        int index = lowerBound(timestamp);
+        if (!ownsArrays || size == timestamps.length) {
+            // shifting ticks in shared arrays would corrupt published chunks
+            grow(size == timestamps.length ? Math.min(CAPACITY, size * 2) : timestamps.length);
+        }
+        System.arraycopy(timestamps, index, timestamps, index + 1, size - index);
+        System.arraycopy(prices, index, prices, index + 1, size - index);
+        timestamps[index] = timestamp;
+        prices[index] = price;
+        size++;
+        updateMinMax(price);
+        resetSummaries();
+    }
+
+    /**
+     * Replaces price of the tick with provided index
+     *
+     * @return replaced price
+     */
+    double replace(int index, double price) {
+        if (!ownsArrays) {
+            grow(timestamps.length);
+        }
+        double replacedPrice = prices[index];
+        prices[index] = price;
+        resetSummaries();
+        if (replacedPrice == minPrice || replacedPrice == maxPrice) {
+            recalculateMinMax();
+        } else {
+            updateMinMax(price);
+        }
+        return replacedPrice;
+    }
+
+    /**
+     * Moves the upper half of the ticks to a new chunk
+     *
+     * @return chunk with the upper half of the ticks
+     */
+    HeapTimeSeriesChunk split() {
+        int half = size / 2;
+        HeapTimeSeriesChunk upper = new HeapTimeSeriesChunk(writeVersion, new long[CAPACITY], new double[CAPACITY], true);
+        upper.size = size - half;
+        System.arraycopy(timestamps, half, upper.timestamps, 0, upper.size);
+        System.arraycopy(prices, half, upper.prices, 0, upper.size);
+        upper.recalculateMinMax();
+        if (!ownsArrays) {
+            grow(timestamps.length);
+        }
+        size = half;
+        recalculateMinMax();
+        resetSummaries();
+        return upper;
+    }
+
+    @Override
+    void scanMinMax(int from, int to, double[] minMax) {
+        double min = minMax[0];
+        double max = minMax[1];
+        for (int i = from; i < to; i++) {
+            double price = prices[i];
+            if (price < min) {
+                min = price;
+            }
+            if (price > max) {
+                max = price;
+            }
+        }
+        minMax[0] = min;
+        minMax[1] = max;
+    }
+
+    private void grow(int capacity) {
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        ownsArrays = true;
+    }
+
+    /**
+     * Adds return of the appended tick to return sums, if they were calculated. Sums shared with the published
+     * chunk are copied first, so its readers never observe them changing.
+     */
+    private void appendReturn() {
+        double[] sums = returnSums;
+        if (sums == null || size < 2) {
+            return;
+        }
+        if (!ownsReturnSums) {
+            sums = sums.clone();
+            ownsReturnSums = true;
+        }
+        double tickReturn = prices[size - 1] / prices[size - 2] - 1;
+        sums[0] += tickReturn;
+        sums[1] += tickReturn * tickReturn;
+        returnSums = sums;
+    }
+
+    /**
+     * Drops block and return summaries after ticks were shifted or changed, they are recalculated on demand
+     */
+    private void resetSummaries() {
+        blockMinMax = null;
+        returnSums = null;
+    }
+
+    private void updateMinMax(double price) {
+        if (price < minPrice) {
+            minPrice = price;
+        }
+        if (price > maxPrice) {
+            maxPrice = price;
+        }
+    }
+
+    private void recalculateMinMax() {
+        minPrice = Double.POSITIVE_INFINITY;
+        maxPrice = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            updateMinMax(prices[i]);
+        }
+    }
+}
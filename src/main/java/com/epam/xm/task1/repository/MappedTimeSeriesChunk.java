@@ -0,0 +1,116 @@
+package com.epam.xm.task1.repository;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read only {@link TimeSeriesChunk} backed by a memory-mapped snapshot file (see {@link CryptoSnapshotStore}).
+ * <br> Ticks are read straight from the mapping, so restored data is neither parsed nor copied to the heap.
+ * The chunk is copied to the heap only when a write touches it.
+ */
+final class MappedTimeSeriesChunk extends TimeSeriesChunk {
+
+    static final int RECORD_SIZE = Long.BYTES + Double.BYTES;
+
+    private final ByteBuffer records;
+    private final int size;
+    private final double minPrice;
+    private final double maxPrice;
+
+    /**
+     * @param records  buffer starting at the first record of the chunk, only absolute reads are made
+     * @param size     number of records
+     * @param minPrice min price of the records
+     * @param maxPrice max price of the records
+     */
+    MappedTimeSeriesChunk(ByteBuffer records, int size, double minPrice, double maxPrice) {
+        this.records = records;
+        this.size = size;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    @Override
+    HeapTimeSeriesChunk forWrite(long version) {
+        int capacity = Math.max(CAPACITY, size);
+        long[] timestamps = new long[capacity];
+        double[] prices = new double[capacity];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = timestamp(i);
+            prices[i] = price(i);
+        }
+        return new HeapTimeSeriesChunk(version, timestamps, prices, size);
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    long timestamp(int index) {
+        return records.getLong(index * RECORD_SIZE);
+    }
+
+    @Override
+    double price(int index) {
+        return records.getDouble(index * RECORD_SIZE + Long.BYTES);
+    }
+
+    @Override
+    double minPrice() {
+        return minPrice;
+    }
+
+    @Override
+    double maxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * @return 0, ticks are kept in the mapped file outside of the heap
+     */
+    @Override
+    long estimatedHeapBytes() {
+        return 0;
+    }
+
+    /**
+     * @return view of the mapped records of ticks in [{@param from}, {@param to}) index range, records have
+     * the same layout as records of binary crypto files, see {@link com.epam.xm.task1.parser.CryptoRecordConsumer}
+     */
+    ByteBuffer records(int from, int to) {
+        return records.slice(from * RECORD_SIZE, (to - from) * RECORD_SIZE);
+    }
+
+    @Override
+    int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamp(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    void scanMinMax(int from, int to, double[] minMax) {
+        double min = minMax[0];
+        double max = minMax[1];
+        for (int i = from; i < to; i++) {
+            double price = price(i);
+            if (price < min) {
+                min = price;
+            }
+            if (price > max) {
+                max = price;
+            }
+        }
+        minMax[0] = min;
+        minMax[1] = max;
+    }
+}
@@ -0,0 +1,133 @@
+package com.epam.xm.task1.repository;
+
+import com.epam.xm.task1.enums.CryptoSortingTypeEnum;
+import com.epam.xm.task1.model.CryptoMetaData;
+import com.epam.xm.task1.model.CryptoStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Immutable metadata and ranking metrics of all cryptos together with their rankings.
+ * <br> Statistics are kept by symbol id in a {@link PersistentArray}, so a new view shares all statistics
+ * except updated ones with the previous view.
+ * <br> Ranking of each {@link CryptoSortingTypeEnum} is selected on its first request and then returned
+ * as is until metadata changes, which replaces the whole view. Requests for the first cryptos only
+ * select them with a bounded heap instead of sorting all cryptos.
+ * <br> Every view has its own version, which identifies its rankings for HTTP caching.
+ */
+final class MetaDataView {
+
+    private static final int SORTINGS = CryptoSortingTypeEnum.values().length;
+
+    static final MetaDataView EMPTY = new MetaDataView(PersistentArray.empty(), 0, 0);
+
+    private final PersistentArray<CryptoStatistics> statistics;
+    private final int size;
+    private final long version;
+    // the longest ranking selected so far, shorter ones are its prefixes;
+    // racing selections produce equal rankings, so one of them is simply kept
+    private final AtomicReferenceArray<List<String>> rankings = new AtomicReferenceArray<>(SORTINGS);
+    // rankings of every requested length by sorting, so repeated requests get the same instance
+    private final AtomicReferenceArray<AtomicReferenceArray<List<String>>> rankingsByLength =
+            new AtomicReferenceArray<>(SORTINGS);
+
+    private MetaDataView(PersistentArray<CryptoStatistics> statistics, int size, long version) {
+        this.statistics = statistics;
+        this.size = size;
+        this.version = version;
+    }
+
+    /**
+     * @param updates     new statistics of cryptos by symbol id, null statistics removes crypto
+     * @param nextVersion supplier of version of the new view, called only if updates change anything
+     * @return view with applied updates, or this view if updates change nothing, so its rankings are kept
+     */
+    MetaDataView with(Map<Integer, CryptoStatistics> updates, LongSupplier nextVersion) {
+        PersistentArray<CryptoStatistics> allStatistics = statistics;
+        int newSize = size;
+        boolean changed = false;
+        for (Map.Entry<Integer, CryptoStatistics> e : updates.entrySet()) {
+            CryptoStatistics previous = allStatistics.get(e.getKey());
+            if (Objects.equals(previous, e.getValue())) {
+                continue;
+            }
+            changed = true;
+            newSize += (Objects.isNull(e.getValue()) ? 0 : 1) - (Objects.isNull(previous) ? 0 : 1);
+            allStatistics = allStatistics.with(e.getKey(), e.getValue());
+        }
+        return changed ? new MetaDataView(allStatistics, newSize, nextVersion.getAsLong()) : this;
+    }
+
+    long version() {
+        return version;
+    }
+
+    /**
+     * @param id symbol id of crypto
+     * @return metadata of crypto, null if crypto has no data
+     */
+    CryptoMetaData get(int id) {
+        CryptoStatistics cryptoStatistics = statistics.get(id);
+        return Objects.isNull(cryptoStatistics) ? null : cryptoStatistics.metaData();
+    }
+
+    /**
+     * @param limit max number of cryptos in the ranking
+     * @return immutable names of the first cryptos ranked with provided algorithm,
+     * the same instance for every request of the same length
+     */
+    List<String> ranking(CryptoSortingTypeEnum sorting, int limit) {
+        int length = Math.min(limit, size);
+        AtomicReferenceArray<List<String>> byLength = rankingsByLength.get(sorting.ordinal());
+        if (byLength == null) {
+            rankingsByLength.compareAndSet(sorting.ordinal(), null, new AtomicReferenceArray<>(size + 1));
+            byLength = rankingsByLength.get(sorting.ordinal());
+        }
+        List<String> cached = byLength.get(length);
+        if (cached != null) {
+            return cached;
+        }
+        List<String> longest = rankings.get(sorting.ordinal());
+        List<String> ranking;
+        if (longest != null && longest.size() >= length) {
+            ranking = longest.size() == length ? longest : longest.subList(0, length);
+        } else {
+            ranking = select(sorting, length);
+            rankings.accumulateAndGet(sorting.ordinal(), ranking,
+                    (current, candidate) -> current == null || current.size() < candidate.size() ? candidate : current);
+        }
+        return byLength.compareAndSet(length, null, ranking) ? ranking : byLength.get(length);
+    }
+
+    private List<String> select(CryptoSortingTypeEnum sorting, int length) {
+        if (length == size) {
+            List<CryptoStatistics> all = new ArrayList<>(size);
+            statistics.forEach(all::add);
+            return all.stream()
+                    .sorted(sorting.comparator)
+                    .map(CryptoStatistics::cryptoName)
+                    .toList();
+        }
+        // heap head is the last of the best cryptos seen so far
+        PriorityQueue<CryptoStatistics> best = new PriorityQueue<>(length + 1, sorting.comparator.reversed());
+        statistics.forEach(cryptoStatistics -> {
+            if (best.size() < length) {
+                best.add(cryptoStatistics);
+            } else if (length > 0 && sorting.comparator.compare(cryptoStatistics, best.peek()) < 0) {
+                best.poll();
+                best.add(cryptoStatistics);
+            }
+        });
+        String[] names = new String[best.size()];
+        for (int i = names.length - 1; i >= 0; i--) {
+            names[i] = best.poll().cryptoName();
+        }
+        return List.of(names);
+    }
+}
@@ -0,0 +1,131 @@
+package com.epam.xm.task1.repository;
+
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Immutable sparse array indexed by symbol id, see {@link SymbolRegistry}.
+ * <br> Elements are kept in a trie of 32-slot nodes. Setting an element copies only the nodes on the path
+ * to its slot, so the cost does not depend on the number of stored elements beyond the trie depth,
+ * which is 2 for up to 1024 symbols. Unchanged nodes are shared between the old and the new array.
+ *
+ * @param <T> type of elements
+ */
+final class PersistentArray<T> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    // root of this depth covers all non-negative ids
+    private static final int MAX_SHIFT = 30;
+
+    private static final PersistentArray<?> EMPTY = new PersistentArray<>(new Object[WIDTH], 0);
+
+    private final Object[] root;
+    // bit offset of root's slot within an index, leaves have 0
+    private final int shift;
+
+    private PersistentArray(Object[] root, int shift) {
+        this.root = root;
+        this.shift = shift;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PersistentArray<T> empty() {
+        return (PersistentArray<T>) EMPTY;
+    }
+
+    /**
+     * @param index non-negative index
+     * @return element at the index, null if none was set
+     */
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        if (exceedsRoot(index, shift)) {
+            return null;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+            if (node == null) {
+                return null;
+            }
+        }
+        return (T) node[index & MASK];
+    }
+
+    /**
+     * @param index non-negative index
+     * @param value new element, null clears the slot
+     * @return array with the element set, or this array if the slot already holds the same instance
+     */
+    PersistentArray<T> with(int index, T value) {
+        if (get(index) == value) {
+            return this;
+        }
+        Object[] newRoot = root;
+        int newShift = shift;
+        while (exceedsRoot(index, newShift)) {
+            Object[] grown = new Object[WIDTH];
+            grown[0] = newRoot;
+            newRoot = grown;
+            newShift += BITS;
+        }
+        return new PersistentArray<>(set(newRoot, newShift, index, value), newShift);
+    }
+
+    /**
+     * Passes all set elements to the action in the order of their indexes
+     */
+    void forEach(Consumer<? super T> action) {
+        forEach(root, shift, action);
+    }
+
+    /**
+     * Passes all set elements together with their indexes to the action in the order of the indexes
+     */
+    void forEachIndexed(ObjIntConsumer<? super T> action) {
+        forEachIndexed(root, shift, 0, action);
+    }
+
+    private static boolean exceedsRoot(int index, int shift) {
+        return shift < MAX_SHIFT && index >>> (shift + BITS) != 0;
+    }
+
+    private static Object[] set(Object[] node, int level, int index, Object value) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        int slot = (index >>> level) & MASK;
+        copy[slot] = level == 0 ? value : set((Object[]) copy[slot], level - BITS, index, value);
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void forEach(Object[] node, int level, Consumer<? super T> action) {
+        for (Object child : node) {
+            if (child == null) {
+                continue;
+            }
+            if (level == 0) {
+                action.accept((T) child);
+            } else {
+                forEach((Object[]) child, level - BITS, action);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void forEachIndexed(Object[] node, int level, int base, ObjIntConsumer<? super T> action) {
+        for (int slot = 0; slot < WIDTH; slot++) {
+            Object child = node[slot];
+            if (child == null) {
+                continue;
+            }
+            int index = base | slot << level;
+            if (level == 0) {
+                action.accept((T) child, index);
+            } else {
+                forEachIndexed((Object[]) child, level - BITS, index, action);
+            }
+        }
+    }
+}
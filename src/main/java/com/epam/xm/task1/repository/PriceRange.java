@@ -0,0 +1,11 @@
+package com.epam.xm.task1.repository;
+
+/**
+ * Min and max prices of crypto within some period
+ */
+record PriceRange(double minPrice, double maxPrice) {
+
+    double normalizedRange() {
+        return (maxPrice - minPrice) / minPrice;
+    }
+}
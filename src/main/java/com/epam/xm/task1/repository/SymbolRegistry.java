@@ -0,0 +1,261 @@
+package com.epam.xm.task1.repository;
+
+import com.epam.xm.task1.exceptions.WrongCryptoNameException;
+import com.epam.xm.task1.model.CryptoSymbol;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread safe registry of crypto symbols.
+ * <br> Every symbol ever seen is interned to a dense int id, which is never reused, so per-symbol state is kept
+ * in arrays indexed by the id, see {@link CryptoRepository}. Ids are lost on restart and assigned again
+ * as symbols are seen.
+ * <br> Uploads are accepted only for enabled symbols. Symbols of {@code crypto.symbols.enabled} are enabled
+ * on startup, others are enabled and disabled at runtime. Disabled symbol keeps its id and stored data.
+ * <br> Symbols enabled or disabled at runtime are saved into {@code crypto.storage.data-dir}, if it is set,
+ * and override {@code crypto.symbols.enabled} after restart. At most {@code crypto.symbols.max-count} symbols
+ * can be registered at runtime, each of at most {@link #MAX_SYMBOL_LENGTH} characters.
+ */
+@Component
+public class SymbolRegistry {
+
+    public static final int MAX_SYMBOL_LENGTH = 16;
+    static final String STATES_FILE = "symbols.properties";
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Set<String> enabledSymbols = ConcurrentHashMap.newKeySet();
+    private final Object registrationLock = new Object();
+    // symbols by id, replaced on every registration
+    private volatile String[] symbols = new String[0];
+    // enabled flags of symbols changed at runtime, guarded by registration lock
+    private final Map<String, Boolean> runtimeStates = new HashMap<>();
+    private final Path statesFile;
+    private final int maxCount;
+
+    /**
+     * Creates registry without enabled symbols
+     */
+    public SymbolRegistry() {
+        this(Set.of());
+    }
+
+    /**
+     * Creates registry, which does not save runtime changes
+     *
+     * @param enabledSymbols symbols enabled from the start (case ignored)
+     */
+    public SymbolRegistry(Set<String> enabledSymbols) {
+        this(enabledSymbols, "", 1024);
+    }
+
+    /**
+     * @param enabledSymbols symbols enabled from the start (case ignored)
+     * @param dataDir        directory runtime changes are saved into, they are not saved if it is blank
+     * @param maxCount       max number of symbols, new ones are not registered at runtime beyond it
+     */
+    @Autowired
+    public SymbolRegistry(@Value("${crypto.symbols.enabled:btc,doge,eth,ltc,xrp}") Set<String> enabledSymbols,
+                          @Value("${crypto.storage.data-dir:}") String dataDir,
+                          @Value("${crypto.symbols.max-count:1024}") int maxCount) {
+        this.statesFile = dataDir.isBlank() ? null : Path.of(dataDir, STATES_FILE);
+        this.maxCount = maxCount;
+        for (String symbol : enabledSymbols) {
+            String name = symbol.toLowerCase();
+            idOf(name);
+            this.enabledSymbols.add(name);
+        }
+    }
+
+    /**
+     * Applies runtime changes saved before restart on top of {@code crypto.symbols.enabled}
+     *
+     * @throws IOException if saved changes can not be read
+     */
+    @PostConstruct
+    public void load() throws IOException {
+        if (Objects.isNull(statesFile) || !Files.exists(statesFile)) {
+            return;
+        }
+        Properties states = new Properties();
+        try (InputStream inputStream = Files.newInputStream(statesFile)) {
+            states.load(inputStream);
+        }
+        synchronized (registrationLock) {
+            for (String symbol : states.stringPropertyNames()) {
+                boolean enabled = Boolean.parseBoolean(states.getProperty(symbol));
+                idOf(symbol);
+                if (enabled) {
+                    enabledSymbols.add(symbol);
+                } else {
+                    enabledSymbols.remove(symbol);
+                }
+                runtimeStates.put(symbol, enabled);
+            }
+        }
+    }
+
+    /**
+     * Interns symbol, assigning it the next id if it is seen for the first time
+     *
+     * @param symbol crypto's name
+     * @return id of the symbol
+     */
+    public int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        synchronized (registrationLock) {
+            id = ids.get(symbol);
+            if (id == null) {
+                String[] registered = Arrays.copyOf(symbols, symbols.length + 1);
+                id = symbols.length;
+                registered[id] = symbol;
+                symbols = registered;
+                ids.put(symbol, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * @param symbol crypto's name
+     * @return id of the symbol, or -1 if symbol was never seen
+     */
+    public int find(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id id returned by {@link #idOf}
+     * @return symbol of the id
+     */
+    public String symbolOf(int id) {
+        return symbols[id];
+    }
+
+    /**
+     * @return number of symbols ever seen, ids are in [0, size)
+     */
+    public int size() {
+        return symbols.length;
+    }
+
+    /**
+     * Enables uploads of the symbol and saves the change
+     *
+     * @param symbol crypto's name (case ignored)
+     * @return registered symbol
+     * @throws WrongCryptoNameException if symbol is too long, or it is new and registry is full
+     * @throws UncheckedIOException     if the change can not be saved, nothing is changed then
+     */
+    public CryptoSymbol enable(String symbol) {
+        String name = symbol.toLowerCase();
+        if (name.length() > MAX_SYMBOL_LENGTH) {
+            throw new WrongCryptoNameException(String.format("Crypto name %s is longer than %d characters",
+                    name, MAX_SYMBOL_LENGTH));
+        }
+        synchronized (registrationLock) {
+            if (find(name) < 0 && size() >= maxCount) {
+                throw new WrongCryptoNameException(String.format(
+                        "Crypto %s can not be registered, at most %d cryptos are allowed", name, maxCount));
+            }
+            saveState(name, true);
+            int id = idOf(name);
+            enabledSymbols.add(name);
+            return new CryptoSymbol(id, name, true);
+        }
+    }
+
+    /**
+     * Disables uploads of the symbol and saves the change, its stored data stays available
+     *
+     * @param symbol crypto's name (case ignored)
+     * @return disabled symbol, or null if symbol was never seen
+     * @throws UncheckedIOException if the change can not be saved, nothing is changed then
+     */
+    public CryptoSymbol disable(String symbol) {
+        String name = symbol.toLowerCase();
+        synchronized (registrationLock) {
+            int id = find(name);
+            if (id < 0) {
+                return null;
+            }
+            saveState(name, false);
+            enabledSymbols.remove(name);
+            return new CryptoSymbol(id, name, false);
+        }
+    }
+
+    /**
+     * @param symbol crypto's name in lower case
+     * @return true if uploads of the symbol are accepted
+     */
+    public boolean isEnabled(String symbol) {
+        return enabledSymbols.contains(symbol);
+    }
+
+    /**
+     * @return all symbols ever seen in the order of their ids
+     */
+    public List<CryptoSymbol> symbols() {
+        String[] registered = symbols;
+        List<CryptoSymbol> result = new ArrayList<>(registered.length);
+        for (int id = 0; id < registered.length; id++) {
+            result.add(new CryptoSymbol(id, registered[id], isEnabled(registered[id])));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Writes runtime changes including the new one into a temporary file, which then atomically replaces
+     * the saved one, so a crash never leaves them half-written. Caller holds the registration lock.
+     */
+    private void saveState(String symbol, boolean enabled) {
+        Map<String, Boolean> states = new HashMap<>(runtimeStates);
+        states.put(symbol, enabled);
+        if (Objects.nonNull(statesFile)) {
+            Properties properties = new Properties();
+            states.forEach((name, state) -> properties.setProperty(name, state.toString()));
+            Path tempFile = statesFile.resolveSibling(STATES_FILE + ".tmp");
+            try {
+                Files.createDirectories(statesFile.getParent());
+                try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                     OutputStream outputStream = Channels.newOutputStream(channel)) {
+                    properties.store(outputStream, "Symbols enabled or disabled at runtime");
+                    channel.force(true);
+                }
+                Files.move(tempFile, statesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error while saving symbols", e);
+            }
+        }
+        runtimeStates.put(symbol, enabled);
+    }
+}
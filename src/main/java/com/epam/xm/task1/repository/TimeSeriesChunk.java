@@ -0,0 +1,153 @@
+package com.epam.xm.task1.repository;
+
+import java.util.Arrays;
+
+/**
+ * Sorted by timestamp piece of crypto's time series.
+ * <br> Keeps min and max price of its ticks, so fully covered chunks are never scanned. Partially covered chunk
+ * scans at most two edge blocks of {@link #BLOCK_SIZE} ticks and takes min and max of the blocks in between
+ * from block summaries, which are calculated on the first such query.
+ * <br> Published chunk is never changed, writes modify chunks returned by {@link #forWrite}.
+ */
+abstract sealed class TimeSeriesChunk permits HeapTimeSeriesChunk, MappedTimeSeriesChunk,
+        CompressedTimeSeriesChunk {
+
+    static final int CAPACITY = 4096;
+    static final int BLOCK_SIZE = 64;
+
+    // min and max price of every full block, racing calculations produce equal arrays;
+    // chunk being written keeps summaries of blocks its writes did not change, see HeapTimeSeriesChunk
+    volatile double[] blockMinMax;
+    // sum of returns between neighbour ticks and sum of their squares, racing calculations produce equal arrays;
+    // chunk being written keeps them up to date on appends, see HeapTimeSeriesChunk
+    volatile double[] returnSums;
+
+    /**
+     * Returns chunk which may be modified within provided write
+     *
+     * @param version version of the series being written
+     * @return chunk with the same ticks, which is owned by the write
+     */
+    abstract HeapTimeSeriesChunk forWrite(long version);
+
+    abstract int size();
+
+    abstract long timestamp(int index);
+
+    abstract double price(int index);
+
+    abstract double minPrice();
+
+    abstract double maxPrice();
+
+    /**
+     * @return estimated heap bytes of the chunk's ticks, including reserved capacity
+     */
+    abstract long estimatedHeapBytes();
+
+    /**
+     * @return index of the first tick with timestamp not less than {@param timestamp}, or size if there is none
+     */
+    abstract int lowerBound(long timestamp);
+
+    /**
+     * Updates provided range with prices of ticks in [{@param from}, {@param to}) index range by scanning the ticks
+     */
+    abstract void scanMinMax(int from, int to, double[] minMax);
+
+    /**
+     * Copies ticks in [{@param from}, {@param to}) index range to the start of provided arrays
+     */
+    void copyTicks(int from, int to, long[] timestamps, double[] prices) {
+        for (int i = from; i < to; i++) {
+            timestamps[i - from] = timestamp(i);
+            prices[i - from] = price(i);
+        }
+    }
+
+    boolean isFull() {
+        return size() >= CAPACITY;
+    }
+
+    long firstTimestamp() {
+        return timestamp(0);
+    }
+
+    long lastTimestamp() {
+        return timestamp(size() - 1);
+    }
+
+    /**
+     * @return index of the tick with provided timestamp, or negative value if there is none
+     */
+    int indexOf(long timestamp) {
+        int index = lowerBound(timestamp);
+        return index < size() && timestamp(index) == timestamp ? index : -1;
+    }
+
+    /**
+     * Updates provided range with prices of ticks in [{@param from}, {@param to}) index range
+     */
+    void collectMinMax(int from, int to, double[] minMax) {
+        if (from == 0 && to == size()) {
+            minMax[0] = Math.min(minMax[0], minPrice());
+            minMax[1] = Math.max(minMax[1], maxPrice());
+            return;
+        }
+        int firstBlock = (from + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int endBlock = to / BLOCK_SIZE;
+        if (firstBlock >= endBlock) {
+            scanMinMax(from, to, minMax);
+            return;
+        }
+        scanMinMax(from, firstBlock * BLOCK_SIZE, minMax);
+        double[] blocks = blockMinMax();
+        for (int block = firstBlock; block < endBlock; block++) {
+            minMax[0] = Math.min(minMax[0], blocks[2 * block]);
+            minMax[1] = Math.max(minMax[1], blocks[2 * block + 1]);
+        }
+        scanMinMax(endBlock * BLOCK_SIZE, to, minMax);
+    }
+
+    /**
+     * Sums returns between neighbour ticks of the chunk, there are size - 1 such returns.
+     * <br> Sums are calculated on the first call, so a series recalculates them only for chunks changed by a write.
+     *
+     * @return sum of returns and sum of their squares
+     */
+    double[] returnSums() {
+        double[] sums = returnSums;
+        if (sums == null) {
+            sums = new double[2];
+            for (int index = 1; index < size(); index++) {
+                double tickReturn = price(index) / price(index - 1) - 1;
+                sums[0] += tickReturn;
+                sums[1] += tickReturn * tickReturn;
+            }
+            returnSums = sums;
+        }
+        return sums;
+    }
+
+    /**
+     * @return min and max price of every full block, only blocks not summarized yet are scanned
+     */
+    private double[] blockMinMax() {
+        double[] blocks = blockMinMax;
+        int fullBlocks = size() / BLOCK_SIZE;
+        if (blocks == null || blocks.length < 2 * fullBlocks) {
+            int summarized = blocks == null ? 0 : blocks.length / 2;
+            blocks = blocks == null ? new double[2 * fullBlocks] : Arrays.copyOf(blocks, 2 * fullBlocks);
+            double[] minMax = new double[2];
+            for (int block = summarized; block < fullBlocks; block++) {
+                minMax[0] = Double.POSITIVE_INFINITY;
+                minMax[1] = Double.NEGATIVE_INFINITY;
+                scanMinMax(block * BLOCK_SIZE, (block + 1) * BLOCK_SIZE, minMax);
+                blocks[2 * block] = minMax[0];
+                blocks[2 * block + 1] = minMax[1];
+            }
+            blockMinMax = blocks;
+        }
+        return blocks;
+    }
+}
@@ -1,27 +1,66 @@
 package com.epam.xm.task1.service;
 
+import com.epam.xm.task1.enums.CandleResolutionEnum;
+import com.epam.xm.task1.enums.CryptoFileFormatEnum;
 import com.epam.xm.task1.enums.CryptoSortingTypeEnum;
+import com.epam.xm.task1.enums.FileUploadStatusEnum;
+import com.epam.xm.task1.enums.UploadModeEnum;
 import com.epam.xm.task1.exceptions.WrongCryptoNameException;
-import com.epam.xm.task1.model.Crypto;
+import com.epam.xm.task1.exceptions.WrongFileFormatException;
+import com.epam.xm.task1.model.BulkUploadReport;
+import com.epam.xm.task1.model.Candle;
 import com.epam.xm.task1.model.CryptoMetaData;
+import com.epam.xm.task1.model.CryptoMetaDataAccumulator;
+import com.epam.xm.task1.model.CryptoSymbol;
+import com.epam.xm.task1.model.CryptoTicks;
+import com.epam.xm.task1.model.FileUploadResult;
 import com.epam.xm.task1.model.MetaDataAdapter;
+import com.epam.xm.task1.model.RangeMetaData;
+import com.epam.xm.task1.parser.CryptoBatchConsumer;
 import com.epam.xm.task1.repository.CryptoRepository;
-import com.epam.xm.task1.utils.CryptoUtils;
+import com.epam.xm.task1.repository.SymbolRegistry;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.DateTimeException;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
 
 @Service
 @RequiredArgsConstructor
@@ -30,34 +69,118 @@ public class CryptoService {
 
     public static final String ERR_HEADER_NAME = "ErrorMsg";
     private final CryptoRepository cryptoRepository;
-    private final Set<String> allowedCryptos = Set.of("btc", "doge", "eth", "ltc", "xrp");
+    private final AsyncTaskExecutor cryptoComputeExecutor;
+    private final ObjectMapper objectMapper;
+    private final IngestionMetrics ingestionMetrics;
+    private final ResponseBodyCache responseBodyCache;
+    private final SymbolRegistry symbolRegistry;
+    private final MultipartProperties multipartProperties;
+    private static final int MAX_ZIP_ENTRIES = 1024;
+    private static final int MAX_ZIP_ENTRY_SIZE = 256 * 1024 * 1024;
+    private static final long MAX_ZIP_CONTENT_SIZE = 1024L * 1024 * 1024;
+    private static final String ALL_SYMBOLS = "all";
 
     public ResponseEntity<Void> processUploadedFile(MultipartFile file) {
+        return processUploadedFile(file, UploadModeEnum.APPEND.name());
+    }
+
+    /**
+     * Stores crypto data from uploaded file
+     *
+     * @param file uploaded file named CRYPTO_NAME_values.csv or CRYPTO_NAME_values.bin
+     * @param mode case ignored string version from one of {@link UploadModeEnum}
+     * @return {@link ResponseEntity} with ok status if data was stored,
+     * <br> or with badRequest status and error message in header if file, its content or mode is wrong
+     * <br> or with internalServerError status and error message in header in case of processing problems
+     */
+    public ResponseEntity<Void> processUploadedFile(MultipartFile file, String mode) {
 
-        if (file.isEmpty()) {
-            return badRequest("File is empty");
+        UploadModeEnum uploadMode;
+        try {
+            uploadMode = UploadModeEnum.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_MODE);
+            return badRequest("Wrong upload mode. Available modes: " + Arrays.toString(UploadModeEnum.values()));
         }
 
-        if (file.getOriginalFilename() == null || !file.getOriginalFilename().matches("[\\w\\d]+_values\\.csv")) {
-            return badRequest("Wrong file name format. Right format is: CRYPTO_NAME_values.csv");
+        String fileError = validateFile(file.getOriginalFilename(), file.isEmpty());
+        if (Objects.nonNull(fileError)) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_FILE);
+            return badRequest(fileError);
+        }
+
+        return storeUploadedContent(cryptoNameOf(file.getOriginalFilename()),
+                CryptoFileFormatEnum.fromFileName(file.getOriginalFilename()), uploadMode, file, false);
+    }
+
+    /**
+     * Stores crypto data from request body as it arrives, without buffering the whole upload in memory
+     * or in a temporary file. Reading of the body waits while parsed batches are being stored.
+     * <br> In append mode batches are stored as soon as they are parsed, so if a wrong row is met, batches
+     * preceding it stay stored and only the rest of the body has to be uploaded again.
+     * In replace mode batches are merged into new history of crypto, which replaces stored one only once
+     * the whole body was parsed successfully, so a wrong body leaves stored history untouched. New history
+     * is built in the storage format as batches arrive, the body itself is never buffered.
+     *
+     * @param cryptoName crypto's name (case ignored)
+     * @param format     format of body, the same as of CRYPTO_NAME_values.csv or CRYPTO_NAME_values.bin file
+     * @param body       content in passed format
+     * @param mode       case ignored string version from one of {@link UploadModeEnum}
+     * @return {@link ResponseEntity} with ok status if data was stored,
+     * <br> or with badRequest status and error message in header if crypto, content or mode is wrong
+     * <br> or with internalServerError status and error message in header in case of processing problems
+     */
+    public ResponseEntity<Void> processUploadedStream(String cryptoName, CryptoFileFormatEnum format, InputStream body,
+                                                      String mode) {
+
+        UploadModeEnum uploadMode;
+        try {
+            uploadMode = UploadModeEnum.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_MODE);
+            return badRequest("Wrong upload mode. Available modes: " + Arrays.toString(UploadModeEnum.values()));
         }
 
-        String cryptoName = file.getOriginalFilename().split("_")[0].toLowerCase();
-        if (!allowedCryptos.contains(cryptoName.toLowerCase())) {
-            return badRequest(String.format("Currently crypto %s is not allowed", cryptoName));
+        String name = cryptoName.toLowerCase();
+        if (!symbolRegistry.isEnabled(name)) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_FILE);
+            return badRequest(String.format("Currently crypto %s is not allowed", name));
         }
 
-        List<Crypto> cryptos;
+        return storeUploadedContent(name, format, uploadMode, () -> body, true);
+    }
+
+    /**
+     * @param streamed whether content is stored batch by batch while being parsed, in replace mode into
+     *                 staged history, otherwise it is parsed completely and stored only if it is valid
+     */
+    private ResponseEntity<Void> storeUploadedContent(String cryptoName, CryptoFileFormatEnum format,
+                                                      UploadModeEnum uploadMode, InputStreamSource content,
+                                                      boolean streamed) {
         try {
-            cryptos = getParsedListOfCryptoData(cryptoName, file);
-            if (cryptos.isEmpty()) {
+            CryptoMetaDataAccumulator accumulator;
+            if (!streamed) {
+                accumulator = computeAndWait(() -> parseAndCommitCryptoData(cryptoName, format, content,
+                        uploadMode == UploadModeEnum.REPLACE));
+            } else if (uploadMode == UploadModeEnum.APPEND) {
+                accumulator = parseAndStoreCryptoData(cryptoName, format, content,
+                        (timestamps, prices, size) -> cryptoRepository.addBatch(cryptoName, timestamps, prices, size));
+            } else {
+                accumulator = parseAndReplaceCryptoData(cryptoName, format, content);
+            }
+            cryptoRepository.flush();
+            if (accumulator.isEmpty()) {
                 return internalError("No data was retrieved from file. Please check the file.");
             }
-            processParsedData(cryptoName, cryptos);
-        } catch (WrongCryptoNameException e) {
+        } catch (WrongCryptoNameException | WrongFileFormatException e) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_CONTENT);
             return badRequest(e.getMessage());
         } catch (NumberFormatException e) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_CONTENT);
             return badRequest("Wrong number provided in file. Please, check the file for number formats");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return internalError("Processing of uploaded file was interrupted");
         } catch (Exception e) {
             log.error("Error occurred while parsing file. " + e.getMessage(), e);
             return internalError("Error while processing uploaded file. Please, refer logs for more information");
@@ -66,53 +189,331 @@ public class CryptoService {
         return ResponseEntity.ok().build();
     }
 
-    private void processParsedData(String cryptoName, List<Crypto> cryptos) {
-        CryptoMetaData cryptoMetaData = CryptoUtils.calculateCryptoMetadata(cryptoName, cryptos);
-        cryptoRepository.addMetadataForCrypto(cryptoMetaData);
-        cryptos.forEach(cryptoRepository::addByDate);
+    /**
+     * Stores crypto data from several files at once. Files are parsed in parallel on compute executor
+     * and their data is stored all together there as well, only if every file is valid.
+     *
+     * @param files uploaded files named CRYPTO_NAME_values.csv or CRYPTO_NAME_values.bin, or a single ZIP archive containing such files
+     * @param mode  case ignored string version from one of {@link UploadModeEnum}
+     * @return {@link ResponseEntity} with ok status and {@link BulkUploadReport} if data was stored,
+     * <br> or with badRequest status and {@link BulkUploadReport} if any file was rejected, nothing is stored then
+     * <br> or with badRequest status and error message in header if mode, archive or list of files is wrong
+     * <br> or with internalServerError status and error message in header in case of processing problems
+     */
+    public ResponseEntity<BulkUploadReport> processUploadedFiles(List<MultipartFile> files, String mode) {
+
+        UploadModeEnum uploadMode;
+        try {
+            uploadMode = UploadModeEnum.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_MODE);
+            return badRequest("Wrong upload mode. Available modes: " + Arrays.toString(UploadModeEnum.values()));
+        }
+
+        if (Objects.isNull(files) || files.isEmpty()) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_FILE);
+            return badRequest("No files uploaded");
+        }
+
+        List<UploadedPart> parts;
+        try {
+            parts = toUploadedParts(files);
+        } catch (ZipException e) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_ARCHIVE);
+            return badRequest("Wrong ZIP archive: " + e.getMessage());
+        } catch (IOException e) {
+            log.error("Error occurred while reading uploaded files. " + e.getMessage(), e);
+            return internalError("Error while processing uploaded files. Please, refer logs for more information");
+        }
+        if (parts.isEmpty()) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_ARCHIVE);
+            return badRequest("No files found in ZIP archive");
+        }
+
+        List<ParsedPart> parsedParts;
+        try {
+            parsedParts = parseInParallel(parts);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return internalError("Processing of uploaded files was interrupted");
+        } catch (ExecutionException e) {
+            log.error("Error occurred while parsing files. " + e.getMessage(), e);
+            return internalError("Error while processing uploaded files. Please, refer logs for more information");
+        }
+
+        boolean valid = parsedParts.stream().allMatch(parsedPart -> Objects.isNull(parsedPart.error()));
+        if (valid) {
+            try {
+                long storeStart = System.nanoTime();
+                computeAndWait(() -> {
+                    cryptoRepository.addAll(parsedParts.stream().map(ParsedPart::ticks).toList(),
+                            uploadMode == UploadModeEnum.REPLACE);
+                    return null;
+                });
+                ingestionMetrics.recordStore(System.nanoTime() - storeStart);
+                cryptoRepository.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return internalError("Processing of uploaded files was interrupted");
+            } catch (Exception e) {
+                log.error("Error occurred while storing files. " + e.getMessage(), e);
+                return internalError("Error while processing uploaded files. Please, refer logs for more information");
+            }
+        }
+
+        List<FileUploadResult> results = parsedParts.stream()
+                .map(parsedPart -> parsedPart.toResult(valid))
+                .toList();
+        BulkUploadReport report = new BulkUploadReport(valid, results);
+        return valid ? ResponseEntity.ok(report) : ResponseEntity.badRequest().body(report);
+    }
+
+    /**
+     * Unpacks single uploaded ZIP archive, other files are taken as they are.
+     * <br> Archive may hold up to {@link #MAX_ZIP_ENTRIES} files, which are limited by configured max file size
+     * each and by max request size all together once unpacked.
+     */
+    private List<UploadedPart> toUploadedParts(List<MultipartFile> files) throws IOException {
+        MultipartFile first = files.get(0);
+        if (files.size() > 1 || Objects.isNull(first.getOriginalFilename())
+                || !first.getOriginalFilename().toLowerCase().endsWith(".zip")) {
+            return files.stream()
+                    .map(file -> new UploadedPart(file.getOriginalFilename(), file.isEmpty(), file))
+                    .toList();
+        }
+
+        long maxEntrySize = Math.min(MAX_ZIP_ENTRY_SIZE, limitOf(multipartProperties.getMaxFileSize(), MAX_ZIP_ENTRY_SIZE));
+        long maxContentSize = limitOf(multipartProperties.getMaxRequestSize(), MAX_ZIP_CONTENT_SIZE);
+        long remainingSize = maxContentSize;
+        List<UploadedPart> parts = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(first.getInputStream())) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (parts.size() == MAX_ZIP_ENTRIES) {
+                    throw new ZipException(String.format("Archive contains more than %d files", MAX_ZIP_ENTRIES));
+                }
+                String fileName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                int maxSize = (int) Math.min(maxEntrySize, remainingSize);
+                byte[] content = zip.readNBytes(maxSize + 1);
+                if (content.length > maxSize) {
+                    throw new ZipException(maxSize == maxEntrySize
+                            ? String.format("File %s exceeds %d bytes", fileName, maxEntrySize)
+                            : String.format("Unpacked files exceed %d bytes", maxContentSize));
+                }
+                remainingSize -= content.length;
+                parts.add(new UploadedPart(fileName, content.length == 0, new ByteArrayResource(content)));
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * @return configured size in bytes, or fallback if size is unlimited
+     */
+    private static long limitOf(DataSize size, long fallback) {
+        return Objects.isNull(size) || size.isNegative() ? fallback : size.toBytes();
+    }
+
+    private List<ParsedPart> parseInParallel(List<UploadedPart> parts) throws InterruptedException, ExecutionException {
+        List<Future<ParsedPart>> futures = new ArrayList<>(parts.size());
+        for (UploadedPart part : parts) {
+            futures.add(cryptoComputeExecutor.submit(() -> parse(part)));
+        }
+        List<ParsedPart> parsedParts = new ArrayList<>(parts.size());
+        for (Future<ParsedPart> future : futures) {
+            parsedParts.add(future.get());
+        }
+        return parsedParts;
+    }
+
+    /**
+     * Parses file completely into memory, so nothing is stored until all files of the upload are parsed
+     */
+    private ParsedPart parse(UploadedPart part) {
+        String fileError = validateFile(part.fileName(), part.empty());
+        if (Objects.nonNull(fileError)) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_FILE);
+            return ParsedPart.rejected(part.fileName(), fileError);
+        }
+
+        String cryptoName = cryptoNameOf(part.fileName());
+        try (TimedInputStream inputStream = new TimedInputStream(part.source().getInputStream())) {
+            TickBuffer buffer = new TickBuffer();
+            long parseStart = System.nanoTime();
+            CryptoMetaDataAccumulator accumulator = CryptoFileFormatEnum.fromFileName(part.fileName())
+                    .newParser(cryptoName)
+                    .parse(inputStream, buffer);
+            ingestionMetrics.recordParsing(inputStream, System.nanoTime() - parseStart, 0, accumulator.getCount());
+            if (accumulator.isEmpty()) {
+                ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_CONTENT);
+                return ParsedPart.rejected(part.fileName(), "No data was retrieved from file. Please check the file.");
+            }
+            return new ParsedPart(part.fileName(), buffer.toCryptoTicks(cryptoName), accumulator.getCount(), null);
+        } catch (WrongCryptoNameException | WrongFileFormatException e) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_CONTENT);
+            return ParsedPart.rejected(part.fileName(), e.getMessage());
+        } catch (NumberFormatException e) {
+            ingestionMetrics.recordRejected(IngestionMetrics.REJECTED_CONTENT);
+            return ParsedPart.rejected(part.fileName(),
+                    "Wrong number provided in file. Please, check the file for number formats");
+        } catch (Exception e) {
+            log.error("Error occurred while parsing file " + part.fileName() + ". " + e.getMessage(), e);
+            return ParsedPart.rejected(part.fileName(),
+                    "Error while processing uploaded file. Please, refer logs for more information");
+        }
+    }
+
+    /**
+     * @return error message if file can not be processed, null otherwise
+     */
+    private String validateFile(String fileName, boolean empty) {
+        if (empty) {
+            return "File is empty";
+        }
+        if (fileName == null || !fileName.matches("[\\w\\d]+_values\\.(csv|bin)")) {
+            return "Wrong file name format. Right format is: CRYPTO_NAME_values.csv or CRYPTO_NAME_values.bin";
+        }
+        String cryptoName = cryptoNameOf(fileName);
+        if (!symbolRegistry.isEnabled(cryptoName)) {
+            return String.format("Currently crypto %s is not allowed", cryptoName);
+        }
+        return null;
+    }
+
+    private static String cryptoNameOf(String fileName) {
+        return fileName.split("_")[0].toLowerCase();
     }
 
     /**
-     * Returns list of {@link Crypto}s data for provided crypto file
+     * Runs CPU-bound task on compute executor and waits for its result, so request threads, virtual ones
+     * included, never parse or merge data themselves
+     *
+     * @return result of the task
+     * @throws Exception thrown by the task
+     */
+    private <T> T computeAndWait(Callable<T> task) throws Exception {
+        try {
+            return cryptoComputeExecutor.submit(task).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw (Error) e.getCause();
+        }
+    }
+
+    /**
+     * Parses provided crypto file completely into memory and stores its data at once, so nothing is stored
+     * if the file turns out to be wrong. Metadata of the file itself is collected on the way.
      *
      * @param cryptoName crypto's name
-     * @param file       {@link MultipartFile} uploaded file
-     * @return list ot {@link Crypto}s for crypto data
+     * @param format     format of content
+     * @param content    uploaded file or request body
+     * @param replace    whether stored history of crypto is replaced by the file's data instead of merged with it
+     * @return metadata collected over all rows of the file
      * @throws Exception in case of file parsing problems
      */
-    private List<Crypto> getParsedListOfCryptoData(String cryptoName, MultipartFile file) throws Exception {
-        List<Crypto> cryptos = new LinkedList<>();
-        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(file.getInputStream()));
-        String line;
-        bufferedReader.readLine(); // skipping the first line
-        while ((line = bufferedReader.readLine()) != null) {
-            String[] values = line.split(",");
-            long timestamp = Long.parseLong(values[0]);
-            String parsedCryptoName = values[1].toLowerCase();
-            double price = Double.parseDouble(values[2]);
-
-            if (!cryptoName.equalsIgnoreCase(parsedCryptoName)) {
-                throw new WrongCryptoNameException(String.format("Expected crypto %s, but got %s", cryptoName, parsedCryptoName));
-            }
+    private CryptoMetaDataAccumulator parseAndCommitCryptoData(String cryptoName, CryptoFileFormatEnum format,
+                                                               InputStreamSource content, boolean replace)
+            throws Exception {
+        TickBuffer buffer = new TickBuffer();
+        CryptoMetaDataAccumulator accumulator;
+        try (TimedInputStream inputStream = new TimedInputStream(content.getInputStream())) {
+            long parseStart = System.nanoTime();
+            accumulator = format.newParser(cryptoName).parse(inputStream, buffer);
+            ingestionMetrics.recordParsing(inputStream, System.nanoTime() - parseStart, 0, accumulator.getCount());
+        }
+        if (!accumulator.isEmpty()) {
+            long storeStart = System.nanoTime();
+            cryptoRepository.addAll(List.of(buffer.toCryptoTicks(cryptoName)), replace);
+            ingestionMetrics.recordStore(System.nanoTime() - storeStart);
+        }
+        return accumulator;
+    }
 
-            cryptos.add(new Crypto(timestamp, cryptoName, price));
+    /**
+     * Parses provided crypto content into staged history of crypto batch by batch and replaces stored history
+     * with it on compute executor, only if the whole content is valid. Staged history is dropped otherwise.
+     *
+     * @param cryptoName crypto's name
+     * @param format     format of content
+     * @param content    request body
+     * @return metadata collected over all rows of the content
+     * @throws Exception in case of content parsing problems
+     */
+    private CryptoMetaDataAccumulator parseAndReplaceCryptoData(String cryptoName, CryptoFileFormatEnum format,
+                                                                InputStreamSource content) throws Exception {
+        CryptoRepository.StagedHistory stagedHistory = cryptoRepository.stageHistory(cryptoName);
+        CryptoMetaDataAccumulator accumulator = parseAndStoreCryptoData(cryptoName, format, content, stagedHistory);
+        if (!accumulator.isEmpty()) {
+            long storeStart = System.nanoTime();
+            computeAndWait(() -> {
+                cryptoRepository.replaceHistory(stagedHistory);
+                return null;
+            });
+            ingestionMetrics.recordStore(System.nanoTime() - storeStart);
         }
-        return cryptos;
+        return accumulator;
+    }
+
+    /**
+     * Streams provided crypto content into storage in batches, e.g. into repository, which merges them into
+     * crypto's history and updates its metadata. Metadata of the content itself is collected on the way.
+     * Batches are stored on compute executor while the next one is parsed. If parsing fails, batches
+     * accepted before the failure stay stored, the one being stored is waited for before returning.
+     *
+     * @param cryptoName crypto's name
+     * @param format     format of content
+     * @param content    request body
+     * @param store      receiver of parsed batches
+     * @return metadata collected over all rows of the content
+     * @throws Exception in case of content parsing problems
+     */
+    private CryptoMetaDataAccumulator parseAndStoreCryptoData(String cryptoName, CryptoFileFormatEnum format,
+                                                              InputStreamSource content, CryptoBatchConsumer store)
+            throws Exception {
+        try (PipelinedBatchWriter writer = new PipelinedBatchWriter(cryptoComputeExecutor,
+                (timestamps, prices, size) -> {
+                    long storeStart = System.nanoTime();
+                    store.accept(timestamps, prices, size);
+                    ingestionMetrics.recordStore(System.nanoTime() - storeStart);
+                });
+             TimedInputStream inputStream = new TimedInputStream(content.getInputStream())) {
+            long parseStart = System.nanoTime();
+            CryptoMetaDataAccumulator accumulator = format.newParser(cryptoName).parse(inputStream, writer);
+            ingestionMetrics.recordParsing(inputStream, System.nanoTime() - parseStart, writer.waitingNanos(),
+                    accumulator.getCount());
+            writer.finish();
+            return accumulator;
+        }
+    }
+
+    public ResponseEntity<List<String>> getSortedCryptos(String sortingType) {
+        return getSortedCryptos(sortingType, null);
     }
 
     /**
      * Returns cryptos sorted with provided algorithm type
      *
      * @param sortingType case ignored string version from one of {@link CryptoSortingTypeEnum}
+     * @param limit       max number of returned cryptos, or null to return all of them
      * @return {@link ResponseEntity} with sorted crypto names
-     * <br> or with badRequest status and error message in header if bad sorting type provided
+     * <br> or with badRequest status and error message in header if bad sorting type or limit provided
      * <br> or with noContent status and error message in header if there is no crypto to sort
      */
-    public ResponseEntity<List<String>> getSortedCryptos(String sortingType) {
+    public ResponseEntity<List<String>> getSortedCryptos(String sortingType, Integer limit) {
+        if (Objects.nonNull(limit) && limit < 1) {
+            return badRequest("Limit must be positive");
+        }
+
         List<String> sortedCryptos;
         try {
-            CryptoSortingTypeEnum sorting = CryptoSortingTypeEnum.valueOf(sortingType.toUpperCase());
-            sortedCryptos = cryptoRepository.getSortedCryptosByPassedAlgo(sorting);
+            CryptoSortingTypeEnum sorting = CryptoSortingTypeEnum.fromName(sortingType);
+            sortedCryptos = Objects.isNull(limit)
+                    ? cryptoRepository.getSortedCryptosByPassedAlgo(sorting)
+                    : cryptoRepository.getSortedCryptosByPassedAlgo(sorting, limit);
         } catch (IllegalArgumentException e) {
             String errorMsg = "Wrong sorting type. Available sorting: " + Arrays.toString(CryptoSortingTypeEnum.values());
             return badRequest(errorMsg);
@@ -125,6 +526,35 @@ public class CryptoService {
         return ResponseEntity.ok().body(sortedCryptos);
     }
 
+    public ResponseEntity<byte[]> getSortedCryptosAsJson(String sortingType, Integer limit) {
+        return getSortedCryptosAsJson(sortingType, limit, null);
+    }
+
+    /**
+     * Returns names of cryptos in sorted order as JSON array. Serialized ranking is cached until
+     * metadata of any crypto changes.
+     *
+     * @param sortingType {@link CryptoSortingTypeEnum} string representation (case ignored)
+     * @param limit       max number of returned cryptos, or null to return all of them
+     * @param ifNoneMatch value of If-None-Match request header, may be null
+     * @return {@link ResponseEntity} with JSON array of sorted crypto names and ETag of the rankings,
+     * <br> or with notModified status if the ETag matches, repository is not queried then
+     * <br> or with the same status and error message in header as {@link #getSortedCryptos(String, Integer)}
+     */
+    public ResponseEntity<byte[]> getSortedCryptosAsJson(String sortingType, Integer limit, String ifNoneMatch) {
+        String key;
+        try {
+            key = "sorted/" + CryptoSortingTypeEnum.fromName(sortingType) + "/" + limit;
+        } catch (IllegalArgumentException e) {
+            key = null;
+        }
+        if (Objects.isNull(key) || (Objects.nonNull(limit) && limit < 1)) {
+            return withoutBody(getSortedCryptos(sortingType, limit));
+        }
+        return cachedJson(key, cryptoRepository.getRankingsVersion(), ifNoneMatch,
+                () -> getSortedCryptos(sortingType, limit));
+    }
+
     /**
      * Retrieved crypto with the highest normalized range in date
      *
@@ -134,16 +564,52 @@ public class CryptoService {
      * <br> with badRequest status ane error message in header if bad formatted date passed in
      */
     public ResponseEntity<String> getCryptoWithHighestNormalizedRangeForDate(String date) {
+        return getCryptoWithHighestNormalizedRangeForDate(date, null, null);
+    }
+
+    /**
+     * Retrieved crypto with the highest normalized range in date of provided zone,
+     * if it changed since the client's version
+     *
+     * @param date        provided date in format YYYY-MM-DD
+     * @param zone        time zone ID of the date, like Europe/Paris or +02:00, or null for the zone of stored days
+     * @param ifNoneMatch value of If-None-Match request header, may be null
+     * @return {@link ResponseEntity} with retrieved data and ETag of the day
+     * <br> or with notModified status if the ETag matches
+     * <br> with noContent status and error message in header if there is no data for provided date
+     * <br> with badRequest status ane error message in header if bad formatted date or zone passed in
+     */
+    public ResponseEntity<String> getCryptoWithHighestNormalizedRangeForDate(String date, String zone,
+                                                                             String ifNoneMatch) {
+        LocalDate parsedDate;
         try {
-            LocalDate parsedDate = LocalDate.parse(date);
-            String result = cryptoRepository.getHighestNormalizedRangesForDay(parsedDate);
-            if (result.isEmpty()) {
-                return noContent("No crypto data registered for date: " + date);
-            }
-            return ResponseEntity.ok().body(result);
+            parsedDate = LocalDate.parse(date);
         } catch (DateTimeParseException e) {
             return badRequest("Error while parsing provided time: " + date);
         }
+        ZoneId zoneId;
+        try {
+            zoneId = Objects.isNull(zone) ? null : ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            return badRequest("Wrong time zone: " + zone);
+        }
+
+        String eTag = responseBodyCache.eTag(Objects.isNull(zoneId)
+                ? cryptoRepository.getDayVersion(parsedDate)
+                : cryptoRepository.getDayVersion(parsedDate, zoneId));
+        if (responseBodyCache.isNotModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        String result = Objects.isNull(zoneId)
+                ? cryptoRepository.getHighestNormalizedRangesForDay(parsedDate)
+                : cryptoRepository.getHighestNormalizedRangesForDay(parsedDate, zoneId);
+        if (result.isEmpty()) {
+            return noContent("No crypto data registered for date: " + date);
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(responseBodyCache.cacheControl())
+                .body(result);
     }
 
     /**
@@ -161,6 +627,305 @@ public class CryptoService {
         return ResponseEntity.ok(new MetaDataAdapter(metadata));
     }
 
+    /**
+     * Retrieves crypto metadata as JSON. Serialized metadata is cached until metadata of the crypto changes.
+     *
+     * @param cryptoName  crypto's name (case ignored)
+     * @param ifNoneMatch value of If-None-Match request header, may be null
+     * @return {@link ResponseEntity} with JSON of retrieved data and ETag of crypto's metadata if data was found,
+     * <br> or with notModified status if the ETag matches, repository is not queried then
+     * <br> or with noContent status and error message in header.
+     */
+    public ResponseEntity<byte[]> getMetadataForCryptoAsJson(String cryptoName, String ifNoneMatch) {
+        String name = cryptoName.toLowerCase();
+        return cachedJson("metadata/" + name, cryptoRepository.getMetadataVersion(name), ifNoneMatch,
+                () -> getMetadataForCrypto(cryptoName));
+    }
+
+    /**
+     * Streams metadata of several cryptos as NDJSON: a line with JSON of {@link CryptoMetaData} per crypto.
+     * <br> Every line is serialized straight into the response while the previous ones are being sent, nothing
+     * is collected in between, so memory does not depend on number of cryptos. Cryptos without data are skipped.
+     *
+     * @param symbols crypto names (case ignored), or the single name "all" for every crypto ever seen
+     * @return {@link ResponseEntity} with body writing metadata of the cryptos in requested order,
+     * <br> or with badRequest status and error message in header if no crypto is requested
+     */
+    public ResponseEntity<StreamingResponseBody> streamMetadata(List<String> symbols) {
+        if (symbols.isEmpty()) {
+            return badRequest("No cryptos requested");
+        }
+        boolean all = symbols.size() == 1 && ALL_SYMBOLS.equalsIgnoreCase(symbols.get(0));
+        ObjectWriter lineWriter = objectMapper.writerFor(CryptoMetaData.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(null);
+            int written = 0;
+            int count = all ? symbolRegistry.size() : symbols.size();
+            for (int i = 0; i < count; i++) {
+                String name = all ? symbolRegistry.symbolOf(i) : symbols.get(i).toLowerCase();
+                CryptoMetaData metadata = cryptoRepository.getMetadataForCrypto(name);
+                if (Objects.nonNull(metadata)) {
+                    lineWriter.writeValue(generator, metadata);
+                    generator.writeRaw('\n');
+                    if (written++ == 0) {
+                        // the first line is sent at once, the following ones as the buffer fills
+                        generator.flush();
+                    }
+                }
+            }
+            generator.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Returns JSON body cached for the version of repository data, or builds and caches it
+     *
+     * @param key         identifies response among all cached ones
+     * @param version     version of repository data the response is built from, taken before the response is built
+     * @param ifNoneMatch value of If-None-Match request header, may be null
+     * @param response    builds response from repository data
+     * @return {@link ResponseEntity} with JSON body and ETag of the version,
+     * <br> or with notModified status if the ETag matches
+     * <br> or built response without body, if it has none
+     */
+    private ResponseEntity<byte[]> cachedJson(String key, long version, String ifNoneMatch,
+                                              Supplier<ResponseEntity<?>> response) {
+        String eTag = responseBodyCache.eTag(version);
+        if (responseBodyCache.isNotModified(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+
+        byte[] body = responseBodyCache.get(key, version);
+        if (Objects.isNull(body)) {
+            ResponseEntity<?> built = response.get();
+            if (Objects.isNull(built.getBody())) {
+                return withoutBody(built);
+            }
+            try {
+                body = objectMapper.writeValueAsBytes(built.getBody());
+            } catch (JsonProcessingException e) {
+                log.error("Error occurred while serializing response. " + e.getMessage(), e);
+                return internalError("Error while serializing response");
+            }
+            // body may be built from newer data than the version, then it is just rebuilt on the next request
+            responseBodyCache.put(key, version, body);
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(responseBodyCache.cacheControl())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Uploaded file or entry of uploaded ZIP archive
+     */
+    private record UploadedPart(String fileName, boolean empty, InputStreamSource source) {
+    }
+
+    /**
+     * File parsed into memory, or error if file was rejected
+     */
+    private record ParsedPart(String fileName, CryptoTicks ticks, long rows, String error) {
+
+        static ParsedPart rejected(String fileName, String error) {
+            return new ParsedPart(fileName, null, 0, error);
+        }
+
+        FileUploadResult toResult(boolean stored) {
+            if (Objects.nonNull(error)) {
+                return new FileUploadResult(fileName, FileUploadStatusEnum.REJECTED, rows, error);
+            }
+            return new FileUploadResult(fileName, stored ? FileUploadStatusEnum.STORED : FileUploadStatusEnum.SKIPPED,
+                    rows, null);
+        }
+    }
+
+    /**
+     * Retrieves crypto metadata within time range
+     *
+     * @param cryptoName crypto's name (case ignored)
+     * @param from       inclusive start of the range as epoch milliseconds or ISO-8601 instant, like 2022-01-01T00:00:00Z
+     * @param to         inclusive end of the range in the same formats
+     * @return {@link ResponseEntity} with retrieved data if data was found,
+     * <br> or with badRequest status and error message in header if the range is wrong
+     * <br> or with noContent status and error message in header if there is no data in the range
+     */
+    public ResponseEntity<RangeMetaData> getMetadataForCryptoInRange(String cryptoName, String from, String to) {
+        long fromMillis;
+        long toMillis;
+        try {
+            fromMillis = parseTimestamp(from);
+            toMillis = parseTimestamp(to);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return badRequest(String.format("Error while parsing provided range: %s - %s", from, to));
+        }
+        if (fromMillis > toMillis) {
+            return badRequest("Start of the range must not be after its end");
+        }
+
+        CryptoMetaData metadata = cryptoRepository.getMetadataForCrypto(cryptoName.toLowerCase(), fromMillis, toMillis);
+        if (Objects.isNull(metadata)) {
+            return noContent(String.format("Nothing was found for crypto %s in range %s - %s", cryptoName, from, to));
+        }
+        return ResponseEntity.ok(new RangeMetaData(metadata, fromMillis, toMillis));
+    }
+
+    /**
+     * Retrieves OHLC candles of crypto
+     *
+     * @param cryptoName crypto's name (case ignored)
+     * @param resolution label of {@link CandleResolutionEnum}, like 1m or 1h
+     * @param from       inclusive earliest open time of candles as epoch milliseconds or ISO-8601 instant
+     * @param to         inclusive latest open time of candles in the same formats
+     * @return {@link ResponseEntity} with candles ordered by time if data was found,
+     * <br> or with badRequest status and error message in header if resolution or range is wrong
+     * <br> or with noContent status and error message in header if there is no data in the range
+     */
+    public ResponseEntity<List<Candle>> getCandles(String cryptoName, String resolution, String from, String to) {
+        CandleResolutionEnum candleResolution;
+        try {
+            candleResolution = CandleResolutionEnum.fromLabel(resolution);
+        } catch (IllegalArgumentException e) {
+            return badRequest("Wrong candle resolution. Available resolutions: "
+                    + Arrays.stream(CandleResolutionEnum.values()).map(r -> r.label).toList());
+        }
+        long fromMillis;
+        long toMillis;
+        try {
+            fromMillis = parseTimestamp(from);
+            toMillis = parseTimestamp(to);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return badRequest(String.format("Error while parsing provided range: %s - %s", from, to));
+        }
+        if (fromMillis > toMillis) {
+            return badRequest("Start of the range must not be after its end");
+        }
+
+        List<Candle> candles = cryptoRepository.getCandles(cryptoName.toLowerCase(), candleResolution,
+                fromMillis, toMillis);
+        if (candles.isEmpty()) {
+            return noContent(String.format("Nothing was found for crypto %s in range %s - %s", cryptoName, from, to));
+        }
+        return ResponseEntity.ok(candles);
+    }
+
+    /**
+     * Streams raw ticks of crypto within time range in a format of uploaded files, so the export can be uploaded back.
+     * <br> Ticks are written from a single version of crypto's time series through a reused buffer, without
+     * per-tick objects. Binary export of ticks restored from a snapshot writes mapped file records as they are.
+     *
+     * @param cryptoName crypto's name
+     * @param from       inclusive start of the range as epoch milliseconds or ISO-8601 instant, null for no bound
+     * @param to         inclusive end of the range in the same formats, null for no bound
+     * @param format     export format, csv or bin
+     * @return {@link ResponseEntity} with ticks in ascending timestamp order as attachment,
+     * <br> or with badRequest status and error message in header if format or range is wrong
+     * <br> or with noContent status and error message in header if there is no data in the range
+     */
+    public ResponseEntity<StreamingResponseBody> exportTicks(String cryptoName, String from, String to, String format) {
+        CryptoFileFormatEnum exportFormat = CryptoFileFormatEnum.fromName(format);
+        if (Objects.isNull(exportFormat)) {
+            return badRequest("Wrong export format. Available formats: "
+                    + Arrays.stream(CryptoFileFormatEnum.values()).map(f -> f.extension.substring(1)).toList());
+        }
+        long fromMillis;
+        long toMillis;
+        try {
+            fromMillis = Objects.isNull(from) ? Long.MIN_VALUE : parseTimestamp(from);
+            toMillis = Objects.isNull(to) ? Long.MAX_VALUE : parseTimestamp(to);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return badRequest(String.format("Error while parsing provided range: %s - %s", from, to));
+        }
+        if (fromMillis > toMillis) {
+            return badRequest("Start of the range must not be after its end");
+        }
+
+        String name = cryptoName.toLowerCase();
+        if (Objects.isNull(cryptoRepository.getMetadataForCrypto(name, fromMillis, toMillis))) {
+            return noContent(String.format("Nothing was found for crypto %s in range %s - %s", cryptoName, from, to));
+        }
+        StreamingResponseBody body = out -> {
+            WritableByteChannel channel = Channels.newChannel(out);
+            try {
+                cryptoRepository.exportTicks(name, fromMillis, toMillis,
+                        count -> exportFormat.newWriter(channel, name, count)).flush();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.mediaType))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(exportFormat.fileName(name))
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * @return {@link ResponseEntity} with all symbols ever seen, enabled or not
+     */
+    public ResponseEntity<List<CryptoSymbol>> getSymbols() {
+        return ResponseEntity.ok(symbolRegistry.symbols());
+    }
+
+    /**
+     * Enables uploads of crypto, registering it if it was never seen
+     *
+     * @param symbol crypto's name (case ignored), letters and digits only
+     * @return {@link ResponseEntity} with enabled symbol,
+     * <br> or with badRequest status and error message in header if symbol is wrong or no more cryptos are allowed
+     * <br> or with internalServerError status and error message in header if the change can not be saved
+     */
+    public ResponseEntity<CryptoSymbol> enableSymbol(String symbol) {
+        if (!symbol.matches("[a-zA-Z\\d]+")) {
+            return badRequest("Wrong crypto name format. Only letters and digits are allowed: " + symbol);
+        }
+        try {
+            return ResponseEntity.ok(symbolRegistry.enable(symbol));
+        } catch (WrongCryptoNameException e) {
+            return badRequest(e.getMessage());
+        } catch (UncheckedIOException e) {
+            log.error("Error occurred while saving symbols. " + e.getMessage(), e);
+            return internalError("Error while saving symbols. Please, refer logs for more information");
+        }
+    }
+
+    /**
+     * Disables uploads of crypto, its stored data stays available
+     *
+     * @param symbol crypto's name (case ignored)
+     * @return {@link ResponseEntity} with disabled symbol,
+     * <br> or with noContent status and error message in header if crypto was never seen
+     * <br> or with internalServerError status and error message in header if the change can not be saved
+     */
+    public ResponseEntity<CryptoSymbol> disableSymbol(String symbol) {
+        CryptoSymbol disabled;
+        try {
+            disabled = symbolRegistry.disable(symbol);
+        } catch (UncheckedIOException e) {
+            log.error("Error occurred while saving symbols. " + e.getMessage(), e);
+            return internalError("Error while saving symbols. Please, refer logs for more information");
+        }
+        if (Objects.isNull(disabled)) {
+            return noContent("Nothing was found for crypto " + symbol);
+        }
+        return ResponseEntity.ok(disabled);
+    }
+
+    private static long parseTimestamp(String timestamp) {
+        return timestamp.chars().allMatch(Character::isDigit)
+                ? Long.parseLong(timestamp)
+                : Instant.parse(timestamp).toEpochMilli();
+    }
+
     private <T> ResponseEntity<T> badRequest(String errorMsg) {
         return ResponseEntity
                 .badRequest()
@@ -175,6 +940,21 @@ public class CryptoService {
                 .build();
     }
 
+    private <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(responseBodyCache.cacheControl())
+                .build();
+    }
+
+    private static <T> ResponseEntity<T> withoutBody(ResponseEntity<?> response) {
+        return ResponseEntity
+                .status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .build();
+    }
+
     private <T> ResponseEntity<T> noContent(String errorMsg) {
         return ResponseEntity
                 .noContent()
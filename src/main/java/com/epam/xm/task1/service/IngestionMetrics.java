@@ -0,0 +1,83 @@
+package com.epam.xm.task1.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of uploads: time of ingestion stages, ingested rows and bytes, rejected files.
+ * <br> Rates, like rows per second, are derived from the counters by the metrics backend.
+ * Metadata stage is timed by the repository, see {@link com.epam.xm.task1.repository.CryptoRepositoryMetrics}.
+ */
+@Component
+class IngestionMetrics {
+
+    static final String REJECTED_MODE = "mode";
+    static final String REJECTED_FILE = "file";
+    static final String REJECTED_CONTENT = "content";
+    static final String REJECTED_ARCHIVE = "archive";
+
+    private final MeterRegistry registry;
+    private final Timer readTimer;
+    private final Timer parseTimer;
+    private final Timer storeTimer;
+    private final Counter rows;
+    private final Counter bytes;
+
+    IngestionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.readTimer = stageTimer("read");
+        this.parseTimer = stageTimer("parse");
+        this.storeTimer = stageTimer("store");
+        this.rows = Counter.builder("crypto.ingestion.rows")
+                .description("Rows of uploaded files")
+                .register(registry);
+        this.bytes = Counter.builder("crypto.ingestion.bytes")
+                .description("Bytes of uploaded files")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Records parsing of a file. Time of reading the stream and of waiting for stored batches
+     * is taken out of parsing time.
+     *
+     * @param inputStream  parsed stream
+     * @param parseNanos   whole time of parsing
+     * @param waitingNanos time parser waited for previous batches to be stored
+     * @param parsedRows   number of parsed rows
+     */
+    void recordParsing(TimedInputStream inputStream, long parseNanos, long waitingNanos, long parsedRows) {
+        readTimer.record(inputStream.readNanos(), TimeUnit.NANOSECONDS);
+        parseTimer.record(Math.max(0, parseNanos - inputStream.readNanos() - waitingNanos), TimeUnit.NANOSECONDS);
+        bytes.increment(inputStream.bytes());
+        rows.increment(parsedRows);
+    }
+
+    /**
+     * Records storing of parsed rows in repository
+     */
+    void recordStore(long storeNanos) {
+        storeTimer.record(storeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts rejected upload or rejected file of bulk upload
+     *
+     * @param reason one of REJECTED_* constants
+     */
+    void recordRejected(String reason) {
+        registry.counter("crypto.ingestion.rejected", "reason", reason).increment();
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("crypto.ingestion.stage")
+                .description("Time spent in a stage of ingestion")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.epam.xm.task1.service;
+
+import com.epam.xm.task1.parser.CryptoBatchConsumer;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Hands parsed batches to the target consumer on compute executor, so the next batch is parsed
+ * while the previous one is being stored. Batches are delivered in order and one at a time.
+ * <br> Not thread safe, instance is meant to be used for a single file.
+ */
+final class PipelinedBatchWriter implements CryptoBatchConsumer, AutoCloseable {
+
+    private final AsyncTaskExecutor executor;
+    private final CryptoBatchConsumer target;
+    private final long[][] timestampBuffers = {new long[0], new long[0]};
+    private final double[][] priceBuffers = {new double[0], new double[0]};
+    private int nextBuffer;
+    private Future<?> pending;
+    private long waitingNanos;
+
+    PipelinedBatchWriter(AsyncTaskExecutor executor, CryptoBatchConsumer target) {
+        this.executor = executor;
+        this.target = target;
+    }
+
+    @Override
+    public void accept(long[] timestamps, double[] prices, int size) {
+        // buffer of the pending batch is the other one, so this one is free to be filled
+        if (timestampBuffers[nextBuffer].length < size) {
+            timestampBuffers[nextBuffer] = new long[size];
+            priceBuffers[nextBuffer] = new double[size];
+        }
+        long[] batchTimestamps = timestampBuffers[nextBuffer];
+        double[] batchPrices = priceBuffers[nextBuffer];
+        System.arraycopy(timestamps, 0, batchTimestamps, 0, size);
+        System.arraycopy(prices, 0, batchPrices, 0, size);
+        nextBuffer ^= 1;
+
+        awaitPending();
+        pending = executor.submit(() -> target.accept(batchTimestamps, batchPrices, size));
+    }
+
+    /**
+     * Waits until all accepted batches are delivered
+     */
+    void finish() {
+        awaitPending();
+    }
+
+    /**
+     * Waits for the batch being delivered, if any, so nothing is stored after the upload is answered
+     */
+    @Override
+    public void close() {
+        awaitPending();
+    }
+
+    /**
+     * @return time the producer spent waiting for previous batches to be delivered
+     */
+    long waitingNanos() {
+        return waitingNanos;
+    }
+
+    private void awaitPending() {
+        if (pending == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while storing crypto data", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Error while storing crypto data", e.getCause());
+        } finally {
+            pending = null;
+            waitingNanos += System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.epam.xm.task1.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized bodies of read responses together with version of repository data they were built from,
+ * see {@link com.epam.xm.task1.repository.CryptoRepository#getRankingsVersion()}.
+ * <br> Body is returned only for the version it was built from, so writes invalidate exactly the bodies
+ * built from the changed data. The least recently used body is evicted when the cache is full.
+ * <br> ETags are built from versions and start time of the application, so they never match
+ * after a restart, when versions start over.
+ */
+@Component
+class ResponseBodyCache {
+
+    private final int maxEntries;
+    private final CacheControl cacheControl;
+    private final String eTagPrefix = "\"" + Long.toString(System.currentTimeMillis(), 36) + "-";
+    private final Map<String, CachedBody> bodies = new ConcurrentHashMap<>();
+    private final AtomicLong accesses = new AtomicLong();
+
+    ResponseBodyCache(@Value("${crypto.http.cache.max-entries:1024}") int maxEntries,
+                      @Value("${crypto.http.cache.max-age-seconds:0}") long maxAgeSeconds) {
+        this.maxEntries = maxEntries;
+        this.cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).mustRevalidate();
+    }
+
+    CacheControl cacheControl() {
+        return cacheControl;
+    }
+
+    String eTag(long version) {
+        return eTagPrefix + version + "\"";
+    }
+
+    /**
+     * Wildcard is never matched: ETag is known before the resource is built, while whether it exists
+     * is known only after that, and a missing resource must not be reported as not modified.
+     *
+     * @param ifNoneMatch value of If-None-Match request header, may be null
+     * @param eTag        current ETag of requested resource
+     * @return true if client has current version of the resource
+     */
+    boolean isNotModified(String ifNoneMatch, String eTag) {
+        if (Objects.isNull(ifNoneMatch)) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return body cached for the key, or null if there is none or it was built from other version
+     */
+    byte[] get(String key, long version) {
+        CachedBody cached = bodies.get(key);
+        if (Objects.isNull(cached) || cached.version != version) {
+            return null;
+        }
+        cached.lastAccess = accesses.incrementAndGet();
+        return cached.body;
+    }
+
+    void put(String key, long version, byte[] body) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        CachedBody cached = new CachedBody(version, body);
+        cached.lastAccess = accesses.incrementAndGet();
+        // the old body of the key is replaced, so the cache grows only with new keys
+        if (Objects.isNull(bodies.put(key, cached)) && bodies.size() > maxEntries) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        // scanned only when a new key is cached, reads do not pay for ordering of entries
+        Map.Entry<String, CachedBody> eldest = null;
+        for (Map.Entry<String, CachedBody> e : bodies.entrySet()) {
+            if (Objects.isNull(eldest) || e.getValue().lastAccess < eldest.getValue().lastAccess) {
+                eldest = e;
+            }
+        }
+        if (Objects.nonNull(eldest)) {
+            bodies.remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private static final class CachedBody {
+
+        private final long version;
+        private final byte[] body;
+        private volatile long lastAccess;
+
+        private CachedBody(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+}
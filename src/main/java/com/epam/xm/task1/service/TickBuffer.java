@@ -0,0 +1,40 @@
+package com.epam.xm.task1.service;
+
+import com.epam.xm.task1.model.CryptoTicks;
+import com.epam.xm.task1.parser.CryptoBatchConsumer;
+
+import java.util.Arrays;
+
+/**
+ * Collects parsed batches into growing primitive columns, so a file can be parsed completely
+ * before its data is stored.
+ * <br> Not thread safe, instance is meant to be used for a single file.
+ */
+final class TickBuffer implements CryptoBatchConsumer {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int size;
+
+    @Override
+    public void accept(long[] timestamps, double[] prices, int size) {
+        if (this.size + size > this.timestamps.length) {
+            int capacity = Math.max(this.size + size, this.timestamps.length * 2);
+            this.timestamps = Arrays.copyOf(this.timestamps, capacity);
+            this.prices = Arrays.copyOf(this.prices, capacity);
+        }
+        System.arraycopy(timestamps, 0, this.timestamps, this.size, size);
+        System.arraycopy(prices, 0, this.prices, this.size, size);
+        this.size += size;
+    }
+
+    /**
+     * @param symbol crypto's name
+     * @return collected ticks, which share arrays with this buffer
+     */
+    CryptoTicks toCryptoTicks(String symbol) {
+        return new CryptoTicks(symbol, timestamps, prices, size);
+    }
+}
@@ -0,0 +1,49 @@
+package com.epam.xm.task1.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts bytes read from the wrapped stream and time spent waiting for them.
+ * <br> Not thread safe, instance is meant to be used for a single file.
+ */
+final class TimedInputStream extends FilterInputStream {
+
+    private long bytes;
+    private long readNanos;
+
+    TimedInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int result = super.read();
+        readNanos += System.nanoTime() - start;
+        if (result >= 0) {
+            bytes++;
+        }
+        return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        int count = super.read(b, off, len);
+        readNanos += System.nanoTime() - start;
+        if (count > 0) {
+            bytes += count;
+        }
+        return count;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    long readNanos() {
+        return readNanos;
+    }
+}
@@ -0,0 +1,36 @@
+package com.epam.xm.task1.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs servlet request handling, and so reading and parsing of uploads, on virtual threads,
+ * so blocked uploads do not hold platform threads needed by read endpoints.
+ * <br> Storing and other CPU-bound work stays on bounded pools of {@link ComputeExecutorConfig}.
+ * <br> Compiled only by {@code -Pjava21} build and enabled by {@code crypto.threads.virtual=true}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "crypto.threads.virtual", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    /**
+     * Executor starting a virtual thread per request, closed on shutdown
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService cryptoRequestExecutor() {
+        log.info("Requests are handled on virtual threads");
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("crypto-request-", 0).factory());
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService cryptoRequestExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(cryptoRequestExecutor);
+    }
+}
@@ -0,0 +1,320 @@
+package com.epam.xm.task1.controller;
+
+import com.epam.xm.task1.enums.CryptoSortingTypeEnum;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test of the HTTP path through {@link CryptoController}, excluded from the default build.
+ * Run it with {@code mvn test -Pload-test}, workload is tuned with {@code -Dload.*} properties below.
+ * <br> Application is booted on a random local port and preloaded with a month of ticks. Then upload bursts
+ * of new ticks run while readers poll sorted cryptos, metadata and crypto of the day at a fixed total rate.
+ * Read latency is measured from the time the request was scheduled, so a stalled server is not hidden by
+ * readers slowing down with it (coordinated omission). Latencies are recorded into an HDR histogram per endpoint,
+ * requests of the warm-up period are not recorded.
+ * <br> Report with throughput and p50/p99/p99.9 latency of every endpoint is written to
+ * {@code load.report-dir} as {@code <load.label>.json}, full histograms are written next to it
+ * as HdrHistogram log {@code <load.label>.hlog}, so builds are compared by running with different labels.
+ */
+@Tag("load")
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext
+class CryptoControllerLoadTest {
+
+    private static final List<String> CRYPTOS = List.of("btc", "doge", "eth", "ltc", "xrp");
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+    private static final int DAYS = 30;
+    private static final long TICK_STEP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final String LABEL = System.getProperty("load.label", "local");
+    private static final Path REPORT_DIR = Path.of(System.getProperty("load.report-dir", "target/load-test"));
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 20);
+    private static final int READERS = Integer.getInteger("load.readers", 8);
+    private static final int READS_PER_SECOND = Integer.getInteger("load.reads-per-second", 200);
+    private static final int UPLOAD_BURST_INTERVAL_MILLIS = Integer.getInteger("load.upload-burst-interval-millis", 1000);
+    private static final int UPLOADS_PER_BURST = Integer.getInteger("load.uploads-per-burst", 5);
+    private static final int TICKS_PER_UPLOAD = Integer.getInteger("load.ticks-per-upload", 1000);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void mixedUploadsAndReads_ShouldBeServedWithoutErrors_AndReportLatency() throws Exception {
+        // Given
+        Map<String, double[]> lastPrices = new LinkedHashMap<>();
+        Map<String, long[]> nextTimestamps = new LinkedHashMap<>();
+        Random random = new Random(42);
+        for (String crypto : CRYPTOS) {
+            lastPrices.put(crypto, new double[]{100 + random.nextInt(1000)});
+            nextTimestamps.put(crypto, new long[]{FIRST_DAY.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()});
+            int ticks = (int) (TimeUnit.DAYS.toMillis(DAYS) / TICK_STEP_MILLIS);
+            String csv = nextTicksCsv(crypto, ticks, lastPrices.get(crypto), nextTimestamps.get(crypto), random);
+            assertEquals(200, send(uploadRequest(crypto, csv)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + 1);
+        long startNanos = System.nanoTime();
+        long measureStartNanos = startNanos + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long endNanos = measureStartNanos + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        Instant measureStart = Instant.now().plusSeconds(WARMUP_SECONDS);
+
+        // When
+        List<Future<Map<Endpoint, EndpointStats>>> workers = new ArrayList<>();
+        workers.add(executor.submit(() -> uploadBursts(lastPrices, nextTimestamps, measureStartNanos, endNanos)));
+        for (int i = 0; i < READERS; i++) {
+            long seed = i;
+            workers.add(executor.submit(() -> poll(new Random(seed), startNanos, measureStartNanos, endNanos)));
+        }
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        for (Future<Map<Endpoint, EndpointStats>> worker : workers) {
+            worker.get(WARMUP_SECONDS + DURATION_SECONDS + 60, TimeUnit.SECONDS)
+                    .forEach((endpoint, workerStats) -> stats.get(endpoint).add(workerStats));
+        }
+        executor.shutdown();
+        writeReport(stats, measureStart);
+
+        // Then
+        for (Map.Entry<Endpoint, EndpointStats> e : stats.entrySet()) {
+            assertAll(e.getKey().name(),
+                    () -> assertTrue(e.getValue().histogram.getTotalCount() > 0),
+                    () -> assertEquals(0, e.getValue().errors)
+            );
+        }
+    }
+
+    /**
+     * Sends a burst of uploads every interval, latency of every upload is measured from the time it was sent,
+     * as uploads of a burst are sent back-to-back on purpose
+     */
+    private Map<Endpoint, EndpointStats> uploadBursts(Map<String, double[]> lastPrices,
+                                                      Map<String, long[]> nextTimestamps,
+                                                      long measureStartNanos, long endNanos) throws IOException,
+            InterruptedException {
+        EndpointStats stats = new EndpointStats();
+        Random random = new Random(-1);
+        int upload = 0;
+        for (long burstNanos = System.nanoTime(); burstNanos < endNanos;
+             burstNanos += TimeUnit.MILLISECONDS.toNanos(UPLOAD_BURST_INTERVAL_MILLIS)) {
+            parkUntil(burstNanos);
+            for (int i = 0; i < UPLOADS_PER_BURST; i++, upload++) {
+                String crypto = CRYPTOS.get(upload % CRYPTOS.size());
+                HttpRequest request = uploadRequest(crypto, nextTicksCsv(crypto, TICKS_PER_UPLOAD,
+                        lastPrices.get(crypto), nextTimestamps.get(crypto), random));
+                long sentNanos = System.nanoTime();
+                int status = send(request);
+                if (sentNanos >= measureStartNanos) {
+                    stats.record(status, System.nanoTime() - sentNanos);
+                }
+            }
+        }
+        return Map.of(Endpoint.UPLOAD, stats);
+    }
+
+    /**
+     * Sends reads of every read endpoint in turn at this reader's share of the total rate
+     */
+    private Map<Endpoint, EndpointStats> poll(Random random, long startNanos, long measureStartNanos, long endNanos)
+            throws IOException, InterruptedException {
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(READERS) / READS_PER_SECOND;
+        // readers are spread over the interval, so they do not send in lockstep
+        long scheduledNanos = startNanos + random.nextLong(intervalNanos);
+        for (int read = 0; scheduledNanos < endNanos; read++, scheduledNanos += intervalNanos) {
+            Endpoint endpoint = Endpoint.READS.get(read % Endpoint.READS.size());
+            HttpRequest request = HttpRequest.newBuilder(uri(readPath(endpoint, random))).GET().build();
+            parkUntil(scheduledNanos);
+            int status = send(request);
+            if (scheduledNanos >= measureStartNanos) {
+                stats.computeIfAbsent(endpoint, e -> new EndpointStats())
+                        .record(status, System.nanoTime() - scheduledNanos);
+            }
+        }
+        return stats;
+    }
+
+    private static String readPath(Endpoint endpoint, Random random) {
+        return switch (endpoint) {
+            case SORTED -> {
+                CryptoSortingTypeEnum[] sortings = CryptoSortingTypeEnum.values();
+                yield "sorted/" + sortings[random.nextInt(sortings.length)];
+            }
+            case METADATA -> "metadata/" + CRYPTOS.get(random.nextInt(CRYPTOS.size()));
+            case HIGHEST_FOR_DAY -> "highestNormalizedForDay/" + FIRST_DAY.plusDays(random.nextInt(DAYS));
+            case UPLOAD -> throw new IllegalArgumentException("Upload is not a read");
+        };
+    }
+
+    /**
+     * Generates csv with ticks following the previous ones of the crypto, a tick per {@link #TICK_STEP_MILLIS}
+     */
+    private static String nextTicksCsv(String crypto, int ticks, double[] lastPrice, long[] nextTimestamp,
+                                       Random random) {
+        StringBuilder csv = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < ticks; i++) {
+            lastPrice[0] = Math.max(1, Math.round((lastPrice[0] + random.nextGaussian()) * 100) / 100.0);
+            csv.append(nextTimestamp[0]).append(',').append(crypto.toUpperCase()).append(',').append(lastPrice[0])
+                    .append('\n');
+            nextTimestamp[0] += TICK_STEP_MILLIS;
+        }
+        return csv.toString();
+    }
+
+    private HttpRequest uploadRequest(String crypto, String csv) {
+        return HttpRequest.newBuilder(uri("upload/stream/" + crypto))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api/cryptos/" + path);
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static void parkUntil(long nanos) {
+        for (long now = System.nanoTime(); now < nanos; now = System.nanoTime()) {
+            LockSupport.parkNanos(nanos - now);
+        }
+    }
+
+    private void writeReport(Map<Endpoint, EndpointStats> stats, Instant measureStart) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        Instant measureEnd = measureStart.plusSeconds(DURATION_SECONDS);
+        try (PrintStream histogramLog = new PrintStream(REPORT_DIR.resolve(LABEL + ".hlog").toFile())) {
+            HistogramLogWriter logWriter = new HistogramLogWriter(histogramLog);
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(measureStart.toEpochMilli());
+            logWriter.outputLegend();
+            for (Map.Entry<Endpoint, EndpointStats> e : stats.entrySet()) {
+                Histogram histogram = e.getValue().histogram;
+                histogram.setTag(e.getKey().path);
+                histogram.setStartTimeStamp(measureStart.toEpochMilli());
+                histogram.setEndTimeStamp(measureEnd.toEpochMilli());
+                logWriter.outputIntervalHistogram(histogram);
+                endpoints.put(e.getKey().path, e.getValue().toReport());
+                log.info("{}: {} requests, {} errors, p50 {} ms, p99 {} ms, p99.9 {} ms, max {} ms", e.getKey().path,
+                        histogram.getTotalCount(), e.getValue().errors, millis(histogram, 50), millis(histogram, 99),
+                        millis(histogram, 99.9), histogram.getMaxValue() / 1000.0);
+            }
+        }
+
+        Map<String, Object> workload = new LinkedHashMap<>();
+        workload.put("warmupSeconds", WARMUP_SECONDS);
+        workload.put("durationSeconds", DURATION_SECONDS);
+        workload.put("readers", READERS);
+        workload.put("readsPerSecond", READS_PER_SECOND);
+        workload.put("uploadBurstIntervalMillis", UPLOAD_BURST_INTERVAL_MILLIS);
+        workload.put("uploadsPerBurst", UPLOADS_PER_BURST);
+        workload.put("ticksPerUpload", TICKS_PER_UPLOAD);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", LABEL);
+        report.put("start", measureStart.toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("workload", workload);
+        report.put("endpoints", endpoints);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(REPORT_DIR.resolve(LABEL + ".json").toFile(), report);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private enum Endpoint {
+
+        UPLOAD("upload/stream/{cryptoName}"),
+        SORTED("sorted/{sortingType}"),
+        METADATA("metadata/{cryptoName}"),
+        HIGHEST_FOR_DAY("highestNormalizedForDay/{day}");
+
+        private static final List<Endpoint> READS = List.of(SORTED, METADATA, HIGHEST_FOR_DAY);
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * Latencies in microseconds and number of failed requests of a single endpoint
+     */
+    private static final class EndpointStats {
+
+        private final Histogram histogram = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private long errors;
+
+        void record(int status, long latencyNanos) {
+            histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+            if (status >= 300) {
+                errors++;
+            }
+        }
+
+        void add(EndpointStats other) {
+            histogram.add(other.histogram);
+            errors += other.errors;
+        }
+
+        Map<String, Object> toReport() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("requests", histogram.getTotalCount());
+            report.put("errors", errors);
+            report.put("throughputPerSecond", (double) histogram.getTotalCount() / DURATION_SECONDS);
+            report.put("p50Millis", millis(histogram, 50));
+            report.put("p99Millis", millis(histogram, 99));
+            report.put("p999Millis", millis(histogram, 99.9));
+            report.put("maxMillis", histogram.getMaxValue() / 1000.0);
+            report.put("meanMillis", histogram.getMean() / 1000.0);
+            return report;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.epam.xm.task1.parser;
+
+import com.epam.xm.task1.exceptions.WrongCryptoNameException;
+import com.epam.xm.task1.exceptions.WrongFileFormatException;
+import com.epam.xm.task1.model.CryptoMetaDataAccumulator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoBinaryParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parse_ShouldReadSameTicksAsCsvParser_WhenFileConverted() throws IOException {
+        // Given
+        StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < 10_000; i++) {
+            content.append(1641009600000L + (i * 7919L) % 10_000).append(",BTC,").append(40000 + i * 0.01).append('\n');
+        }
+        Path csv = Files.writeString(tempDir.resolve("BTC_values.csv"), content);
+        Path binary = CryptoBinaryConverter.binaryPathOf(csv);
+        List<Long> csvTimestamps = new ArrayList<>();
+        List<Double> csvPrices = new ArrayList<>();
+        List<Long> binaryTimestamps = new ArrayList<>();
+        List<Double> binaryPrices = new ArrayList<>();
+
+        // When
+        long converted = CryptoBinaryConverter.convert(csv, binary);
+        CryptoMetaDataAccumulator fromCsv;
+        try (InputStream inputStream = Files.newInputStream(csv)) {
+            fromCsv = new CryptoCsvParser("btc").parse(inputStream, collector(csvTimestamps, csvPrices));
+        }
+        CryptoMetaDataAccumulator fromBinary;
+        try (InputStream inputStream = Files.newInputStream(binary)) {
+            fromBinary = new CryptoBinaryParser("BTC", 1000).parse(inputStream, collector(binaryTimestamps, binaryPrices));
+        }
+
+        // Then
+        assertAll(
+                () -> assertEquals(tempDir.resolve("BTC_values.bin"), binary),
+                () -> assertEquals(10_000, converted),
+                () -> assertEquals(csvTimestamps, binaryTimestamps),
+                () -> assertEquals(csvPrices, binaryPrices),
+                () -> assertEquals(fromCsv.getCount(), fromBinary.getCount()),
+                () -> assertEquals(fromCsv.toMetaData("btc"), fromBinary.toMetaData("btc"))
+        );
+    }
+
+    @Test
+    void parse_ShouldThrow_WhenOtherCryptoInHeader() throws IOException {
+        // Given
+        InputStream inputStream = new ByteArrayInputStream(write("eth", 2));
+
+        // When
+        WrongCryptoNameException exception = assertThrows(WrongCryptoNameException.class,
+                () -> new CryptoBinaryParser("btc").parse(inputStream, (ts, prices, size) -> {
+                }));
+
+        // Then
+        assertEquals("Expected crypto btc, but got eth", exception.getMessage());
+    }
+
+    @Test
+    void parse_ShouldThrow_WhenFileTruncatedOrLonger() throws IOException {
+        // Given
+        byte[] file = write("btc", 3);
+        byte[] truncated = Arrays.copyOf(file, file.length - 1);
+        byte[] longer = Arrays.copyOf(file, file.length + CryptoBinaryFormat.RECORD_SIZE);
+        byte[] notBinary = "timestamp,symbol,price\n".getBytes(StandardCharsets.US_ASCII);
+
+        // When / Then
+        assertAll(
+                () -> assertThrows(WrongFileFormatException.class, () -> parse(truncated)),
+                () -> assertThrows(WrongFileFormatException.class, () -> parse(longer)),
+                () -> assertThrows(WrongFileFormatException.class, () -> parse(notBinary)),
+                () -> assertEquals(3, parse(file).getCount())
+        );
+    }
+
+    private byte[] write(String cryptoName, int records) throws IOException {
+        Path file = tempDir.resolve(cryptoName + ".bin");
+        try (CryptoBinaryWriter writer = new CryptoBinaryWriter(Files.newByteChannel(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE), cryptoName)) {
+            for (int i = 0; i < records; i++) {
+                writer.accept(new long[]{1641009600000L + i}, new double[]{100 + i}, 1);
+            }
+        }
+        return Files.readAllBytes(file);
+    }
+
+    private static CryptoMetaDataAccumulator parse(byte[] file) throws IOException {
+        return new CryptoBinaryParser("btc").parse(new ByteArrayInputStream(file), (ts, prices, size) -> {
+        });
+    }
+
+    private static CryptoBatchConsumer collector(List<Long> timestamps, List<Double> prices) {
+        return (ts, ps, size) -> {
+            for (int i = 0; i < size; i++) {
+                timestamps.add(ts[i]);
+                prices.add(ps[i]);
+            }
+        };
+    }
+}
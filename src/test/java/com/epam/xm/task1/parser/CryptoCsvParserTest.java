@@ -0,0 +1,152 @@
+package com.epam.xm.task1.parser;
+
+import com.epam.xm.task1.exceptions.WrongCryptoNameException;
+import com.epam.xm.task1.exceptions.WrongFileFormatException;
+import com.epam.xm.task1.model.CryptoMetaData;
+import com.epam.xm.task1.model.CryptoMetaDataAccumulator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoCsvParserTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"46813.21", "0.1", "-0.000123", "1e-5", "3.4E+10", "12345678901234567890.5",
+            "0.08", "1.7976931348623157E308", "4.9e-324", "7", " 1.5 "})
+    void parseDouble_ShouldMatchJdkParsing(String value) {
+        // Given
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+
+        // When
+        double parsed = CryptoCsvParser.parseDouble(bytes, 0, bytes.length);
+
+        // Then
+        assertEquals(Double.parseDouble(value), parsed);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "46i13.21", ".", "1e", "--1", "1.2.3"})
+    void parseDouble_ShouldThrow_WhenMalformedNumber(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(NumberFormatException.class, () -> CryptoCsvParser.parseDouble(bytes, 0, bytes.length));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "16410960000o", "-", "9223372036854775808"})
+    void parseLong_ShouldThrow_WhenMalformedNumber(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(NumberFormatException.class, () -> CryptoCsvParser.parseLong(bytes, 0, bytes.length));
+    }
+
+    @Test
+    void parse_ShouldDeliverAllRowsInBatches_AndCollectMetadata() throws IOException {
+        // Given
+        String fileContent = "timestamp,symbol,price\r\n"
+                + "1641020400000,BTC,46979.61\r\n"
+                + "1641009600000,btc,46813.21\r\n"
+                + "\r\n"
+                + "1641031200000,BTC,47000.5\r\n"
+                + "1641024000000,BTC,46000";
+        InputStream inputStream = new ByteArrayInputStream(fileContent.getBytes(StandardCharsets.US_ASCII));
+        List<Integer> batchSizes = new ArrayList<>();
+        List<Long> timestamps = new ArrayList<>();
+
+        // When
+        CryptoMetaDataAccumulator accumulator = new CryptoCsvParser("btc", 3).parse(inputStream, (ts, prices, size) -> {
+            batchSizes.add(size);
+            for (int i = 0; i < size; i++) {
+                timestamps.add(ts[i]);
+            }
+        });
+        CryptoMetaData metaData = accumulator.toMetaData("btc");
+
+        // Then
+        assertAll(
+                () -> assertEquals(List.of(3, 1), batchSizes),
+                () -> assertEquals(List.of(1641020400000L, 1641009600000L, 1641031200000L, 1641024000000L), timestamps),
+                () -> assertEquals(4, accumulator.getCount()),
+                () -> assertEquals(46813.21, metaData.oldestPrice()),
+                () -> assertEquals(47000.5, metaData.newestPrice()),
+                () -> assertEquals(46000, metaData.minPrice()),
+                () -> assertEquals(47000.5, metaData.maxPrice())
+        );
+    }
+
+    @Test
+    void parse_ShouldThrow_WhenOtherCryptoInFile() {
+        // Given
+        String fileContent = "timestamp,symbol,price\n1641009600000,ETH,46813.21\n";
+        InputStream inputStream = new ByteArrayInputStream(fileContent.getBytes(StandardCharsets.US_ASCII));
+
+        // When
+        WrongCryptoNameException exception = assertThrows(WrongCryptoNameException.class,
+                () -> new CryptoCsvParser("btc").parse(inputStream, (ts, prices, size) -> {
+                }));
+
+        // Then
+        assertEquals("Expected crypto btc, but got eth", exception.getMessage());
+    }
+
+    @Test
+    void parse_ShouldThrow_WhenLineExceedsBuffer() {
+        // Given
+        String fileContent = "timestamp,symbol,price\n1641009600000,BTC," + "1".repeat(64 * 1024) + "\n";
+        InputStream inputStream = new ByteArrayInputStream(fileContent.getBytes(StandardCharsets.US_ASCII));
+
+        // When
+        WrongFileFormatException exception = assertThrows(WrongFileFormatException.class,
+                () -> new CryptoCsvParser("btc").parse(inputStream, (ts, prices, size) -> {
+                }));
+
+        // Then
+        assertEquals("Line is longer than 65536 bytes", exception.getMessage());
+    }
+
+    @Test
+    void parse_ShouldReadSameTicks_WhenWrittenByCsvWriter() throws IOException {
+        // Given
+        long[] timestamps = {1641009600000L, 1641013200000L, -1L, Long.MAX_VALUE, 0, 5};
+        double[] prices = {46813.21, 0.05, -0.000123, 0.1 + 0.2, 1.7976931348623157E308, 7};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Long> parsedTimestamps = new ArrayList<>();
+        List<Double> parsedPrices = new ArrayList<>();
+
+        // When
+        try (CryptoCsvWriter writer = new CryptoCsvWriter(Channels.newChannel(out), "btc")) {
+            writer.accept(timestamps, prices, 4);
+            writer.accept(Arrays.copyOfRange(timestamps, 4, 6), Arrays.copyOfRange(prices, 4, 6), 2);
+        }
+        new CryptoCsvParser("btc").parse(new ByteArrayInputStream(out.toByteArray()), (ts, ps, size) -> {
+            for (int i = 0; i < size; i++) {
+                parsedTimestamps.add(ts[i]);
+                parsedPrices.add(ps[i]);
+            }
+        });
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.US_ASCII).split("\n");
+        assertAll(
+                () -> assertEquals("timestamp,symbol,price", lines[0]),
+                () -> assertEquals("1641009600000,BTC,46813.21", lines[1]),
+                () -> assertEquals("1641013200000,BTC,0.05", lines[2]),
+                () -> assertEquals("-1,BTC,-0.000123", lines[3]),
+                () -> assertEquals("5,BTC,7", lines[6]),
+                () -> assertEquals(Arrays.stream(timestamps).boxed().toList(), parsedTimestamps),
+                () -> assertEquals(Arrays.stream(prices).boxed().toList(), parsedPrices)
+        );
+    }
+}
@@ -0,0 +1,69 @@
+package com.epam.xm.task1.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedTimeSeriesChunkTest {
+
+    @Test
+    void of_ShouldKeepAllTicks_WhenDeltasAndPricesAreIrregular() {
+        // Given
+        Random random = new Random(21);
+        int size = TimeSeriesChunk.CAPACITY - 17;
+        long[] timestamps = new long[TimeSeriesChunk.CAPACITY];
+        double[] prices = new double[TimeSeriesChunk.CAPACITY];
+        long timestamp = -1_000_000_000_000L;
+        double price = 46813.21;
+        for (int i = 0; i < size; i++) {
+            // regular ticks with gaps of every width and repeated prices
+            timestamp += switch (random.nextInt(6)) {
+                case 0 -> 60_000;
+                case 1 -> 60_000 + random.nextInt(100);
+                case 2 -> 1 + random.nextInt(5_000);
+                case 3 -> 1 + random.nextInt(Integer.MAX_VALUE);
+                case 4 -> 1 + (random.nextLong() >>> 24);
+                default -> 1;
+            };
+            price = random.nextInt(3) == 0 ? price : Math.round(Math.max(0.01, price + random.nextGaussian() * 100)) / 100.0;
+            timestamps[i] = timestamp;
+            prices[i] = price;
+        }
+        HeapTimeSeriesChunk chunk = new HeapTimeSeriesChunk(1, timestamps, prices, size);
+
+        // When
+        CompressedTimeSeriesChunk compressed = CompressedTimeSeriesChunk.of(chunk);
+
+        // Then
+        assertAll(
+                () -> assertEquals(size, compressed.size()),
+                () -> assertEquals(chunk.minPrice(), compressed.minPrice()),
+                () -> assertEquals(chunk.maxPrice(), compressed.maxPrice()),
+                () -> assertEquals(timestamps[size - 1], compressed.lastTimestamp()),
+                () -> assertArrayEquals(chunk.returnSums(), compressed.returnSums())
+        );
+        for (int i = 0; i < size; i++) {
+            assertEquals(timestamps[i], compressed.timestamp(i), "Wrong timestamp " + i);
+            assertEquals(prices[i], compressed.price(i), "Wrong price " + i);
+        }
+        for (int q = 0; q < 2_000; q++) {
+            int index = random.nextInt(size);
+            long probe = timestamps[index] - random.nextInt(2);
+            assertEquals(chunk.lowerBound(probe), compressed.lowerBound(probe), "Wrong lower bound of " + probe);
+            int from = random.nextInt(size);
+            int to = from + random.nextInt(size - from + 1);
+            double[] expected = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            double[] actual = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            chunk.collectMinMax(from, to, expected);
+            compressed.collectMinMax(from, to, actual);
+            assertArrayEquals(expected, actual, "Wrong range of [" + from + ", " + to + ")");
+        }
+        HeapTimeSeriesChunk decompressed = compressed.forWrite(2);
+        for (int i = 0; i < size; i++) {
+            assertEquals(timestamps[i], decompressed.timestamp(i));
+            assertEquals(prices[i], decompressed.price(i));
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.epam.xm.task1.repository;
+
+import com.epam.xm.task1.enums.CandleResolutionEnum;
+import com.epam.xm.task1.enums.CryptoSortingTypeEnum;
+import com.epam.xm.task1.model.Candle;
+import com.epam.xm.task1.model.Crypto;
+import com.epam.xm.task1.model.CryptoMetaData;
+import com.epam.xm.task1.model.CryptoTicks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoRepositoryTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+    private static final int DAYS = 5;
+
+    @Test
+    void getHighestNormalizedRangesForDay_ShouldMatchFullScan_WhenTicksAddedOutOfOrder() {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        List<Crypto> cryptos = generateCryptos(List.of("btc", "eth", "xrp"), 30_000, new Random(42));
+        Collections.shuffle(cryptos, new Random(7));
+        cryptos.subList(0, cryptos.size() / 2).forEach(repository::addByDate);
+        List<Crypto> secondHalf = cryptos.subList(cryptos.size() / 2, cryptos.size());
+        for (Crypto crypto : secondHalf) {
+            repository.addBatch(crypto.symbol(), new long[]{crypto.timestamp()}, new double[]{crypto.price()}, 1);
+        }
+
+        // When / Then
+        for (int day = -1; day <= DAYS; day++) {
+            LocalDate date = FIRST_DAY.plusDays(day);
+            assertEquals(highestNormalizedByFullScan(cryptos, date), repository.getHighestNormalizedRangesForDay(date),
+                    "Wrong crypto for " + date);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"UTC", "America/New_York", "Asia/Kolkata", "+14:00"})
+    void getHighestNormalizedRangesForDay_ShouldMatchFullScanInZone_WhenZonePassed(String zoneId) {
+        // Given
+        ZoneId zone = ZoneId.of(zoneId);
+        CryptoRepository repository = new CryptoRepository(ZoneId.of("Europe/Berlin"));
+        List<Crypto> cryptos = generateCryptos(List.of("btc", "eth", "xrp"), 5_000, new Random(11));
+        cryptos.forEach(repository::addByDate);
+
+        // When / Then
+        for (int day = -1; day <= DAYS; day++) {
+            LocalDate date = FIRST_DAY.plusDays(day);
+            assertEquals(highestNormalizedByFullScan(cryptos, date, zone),
+                    repository.getHighestNormalizedRangesForDay(date, zone), "Wrong crypto for " + date);
+        }
+    }
+
+    @Test
+    void getHighestNormalizedRangesForDay_ShouldReturnEmptyString_WhenNoDataForDay() {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        repository.addByDate(new Crypto(dayStart(FIRST_DAY), "btc", 10));
+
+        // When
+        String result = repository.getHighestNormalizedRangesForDay(FIRST_DAY.plusDays(1));
+
+        // Then
+        assertEquals("", result);
+    }
+
+    @Test
+    void getHighestNormalizedRangesForDay_ShouldReturnEmptyString_WhenPricesOfDayAreFlat() {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        repository.addBatch("btc", new long[]{dayStart(FIRST_DAY), dayStart(FIRST_DAY) + 1}, new double[]{10, 10}, 2);
+
+        // When
+        String result = repository.getHighestNormalizedRangesForDay(FIRST_DAY);
+
+        // Then
+        assertEquals("", result);
+    }
+
+    @Test
+    void addBatch_ShouldMergeMetadata_AndReplacePriceOfStoredTimestamp() {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        long day = dayStart(FIRST_DAY);
+        long hour = 3_600_000;
+
+        // When
+        repository.addBatch("btc", new long[]{day + 2 * hour, day + 3 * hour}, new double[]{10, 30}, 2);
+        CryptoMetaData first = repository.getMetadataForCrypto("btc");
+        repository.addBatch("btc", new long[]{day + 4 * hour, day + hour, day + 3 * hour}, new double[]{20, 15, 12}, 3);
+        CryptoMetaData merged = repository.getMetadataForCrypto("btc");
+
+        // Then
+        assertAll(
+                () -> assertEquals(new CryptoMetaData("btc", 10, 30, 10, 30, 2), first),
+                () -> assertEquals(new CryptoMetaData("btc", 15, 20, 10, 20, 1), merged)
+        );
+    }
+
+    @Test
+    void removeCrypto_ShouldDropMetadataAndDayLeadership() {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        long day = dayStart(FIRST_DAY);
+        repository.addBatch("btc", new long[]{day, day + 1, dayStart(FIRST_DAY.plusDays(2))}, new double[]{10, 30, 5}, 3);
+        repository.addBatch("eth", new long[]{day, day + 1}, new double[]{10, 11}, 2);
+
+        // When
+        repository.removeCrypto("btc");
+
+        // Then
+        assertAll(
+                () -> assertNull(repository.getMetadataForCrypto("btc")),
+                () -> assertEquals(List.of("eth"), repository.getSortedCryptosByPassedAlgo(CryptoSortingTypeEnum.NORMALIZED_DESC)),
+                () -> assertEquals("eth", repository.getHighestNormalizedRangesForDay(FIRST_DAY)),
+                () -> assertEquals("", repository.getHighestNormalizedRangesForDay(FIRST_DAY.plusDays(2)))
+        );
+    }
+
+    @Test
+    void getHighestNormalizedRangesForDay_ShouldElectNextLeader_WhenRangeOfLeaderShrinks() {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        long day = dayStart(FIRST_DAY);
+        repository.addBatch("btc", new long[]{day, day + 1}, new double[]{10, 40}, 2);
+        repository.addBatch("eth", new long[]{day, day + 1}, new double[]{10, 20}, 2);
+        long btcLeadVersion = repository.getDayVersion(FIRST_DAY);
+        repository.addBatch("xrp", new long[]{day, day + 1}, new double[]{10, 30}, 2);
+        long unchangedVersion = repository.getDayVersion(FIRST_DAY);
+
+        // When
+        repository.addAll(List.of(new CryptoTicks("btc", new long[]{day, day + 1}, new double[]{10, 11}, 2)), true);
+
+        // Then
+        assertAll(
+                () -> assertEquals(btcLeadVersion, unchangedVersion),
+                () -> assertEquals("xrp", repository.getHighestNormalizedRangesForDay(FIRST_DAY)),
+                () -> assertNotEquals(btcLeadVersion, repository.getDayVersion(FIRST_DAY))
+        );
+    }
+
+    @Test
+    void addAll_ShouldReplaceHistoryOfAllPassedCryptos() {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        long day = dayStart(FIRST_DAY);
+        long nextDay = dayStart(FIRST_DAY.plusDays(1));
+        repository.addBatch("btc", new long[]{day, day + 1}, new double[]{10, 30}, 2);
+        repository.addBatch("eth", new long[]{day, day + 1}, new double[]{10, 20}, 2);
+
+        // When
+        repository.addAll(List.of(
+                new CryptoTicks("btc", new long[]{nextDay, nextDay + 1}, new double[]{10, 11}, 2),
+                new CryptoTicks("eth", new long[]{nextDay + 2}, new double[]{20}, 1),
+                new CryptoTicks("eth", new long[]{nextDay + 3}, new double[]{40}, 1)), true);
+
+        // Then
+        assertAll(
+                () -> assertEquals(new CryptoMetaData("btc", 10, 11, 10, 11, 0.1), repository.getMetadataForCrypto("btc")),
+                () -> assertEquals(new CryptoMetaData("eth", 20, 40, 20, 40, 1), repository.getMetadataForCrypto("eth")),
+                () -> assertEquals("", repository.getHighestNormalizedRangesForDay(FIRST_DAY)),
+                () -> assertEquals("eth", repository.getHighestNormalizedRangesForDay(FIRST_DAY.plusDays(1)))
+        );
+    }
+
+    @Test
+    void replaceHistory_ShouldPublishStagedBatches_OnlyWhenStagingIsDone() {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        long day = dayStart(FIRST_DAY);
+        long nextDay = dayStart(FIRST_DAY.plusDays(1));
+        repository.addBatch("btc", new long[]{day, day + 1}, new double[]{10, 30}, 2);
+        repository.addBatch("eth", new long[]{day, day + 1}, new double[]{10, 20}, 2);
+        CryptoMetaData storedMetaData = repository.getMetadataForCrypto("btc");
+
+        // When
+        CryptoRepository.StagedHistory stagedHistory = repository.stageHistory("btc");
+        stagedHistory.accept(new long[]{nextDay, nextDay + 1}, new double[]{10, 11}, 2);
+        stagedHistory.accept(new long[]{nextDay + 2}, new double[]{12}, 1);
+        CryptoMetaData stagingMetaData = repository.getMetadataForCrypto("btc");
+        String stagingLeader = repository.getHighestNormalizedRangesForDay(FIRST_DAY);
+        repository.replaceHistory(stagedHistory);
+
+        // Then
+        assertAll(
+                () -> assertEquals(storedMetaData, stagingMetaData),
+                () -> assertEquals("btc", stagingLeader),
+                () -> assertEquals(3, stagedHistory.size()),
+                () -> assertEquals(new CryptoMetaData("btc", 10, 12, 10, 12, 0.2), repository.getMetadataForCrypto("btc")),
+                () -> assertEquals("eth", repository.getHighestNormalizedRangesForDay(FIRST_DAY)),
+                () -> assertEquals("btc", repository.getHighestNormalizedRangesForDay(FIRST_DAY.plusDays(1)))
+        );
+    }
+
+    @Test
+    void addAll_ShouldLeaveNoTrace_WhenLaterCryptoFails() {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        long day = dayStart(FIRST_DAY);
+        List<CryptoTicks> ticks = List.of(
+                new CryptoTicks("btc", new long[]{day, day + 1}, new double[]{10, 30}, 2),
+                // ranges of a timestamp beyond supported days can not be derived
+                new CryptoTicks("eth", new long[]{Long.MIN_VALUE}, new double[]{10}, 1));
+
+        // When
+        assertThrows(RuntimeException.class, () -> repository.addAll(ticks, false));
+
+        // Then
+        assertAll(
+                () -> assertNull(repository.getMetadataForCrypto("btc")),
+                () -> assertEquals("", repository.getHighestNormalizedRangesForDay(FIRST_DAY)),
+                () -> assertEquals(0, repository.getDayVersion(FIRST_DAY)),
+                () -> assertEquals(0, repository.getRankingsVersion())
+        );
+    }
+
+    @Test
+    void addAll_ShouldPublishAllPassedCryptosAtOnce_WhenReadConcurrently() throws Exception {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        long day = dayStart(FIRST_DAY);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // When
+        Future<?> uploads = executor.submit(() -> {
+            for (int i = 1; i <= 2_000; i++) {
+                repository.addAll(List.of(
+                        new CryptoTicks("btc", new long[]{day + i}, new double[]{i}, 1),
+                        new CryptoTicks("eth", new long[]{day + i}, new double[]{i}, 1)), true);
+            }
+        });
+        String tornRead = null;
+        while (!uploads.isDone()) {
+            CryptoMetaData btc = repository.getMetadataForCrypto("btc", day, Long.MAX_VALUE);
+            CryptoMetaData eth = repository.getMetadataForCrypto("eth", day, Long.MAX_VALUE);
+            List<Candle> ethCandles = repository.getCandles("eth", CandleResolutionEnum.MINUTE, day, Long.MAX_VALUE);
+            if (tornRead == null && btc != null && (eth == null || eth.newestPrice() < btc.newestPrice()
+                    || ethCandles.isEmpty() || ethCandles.get(ethCandles.size() - 1).close() < eth.newestPrice())) {
+                tornRead = btc + " " + eth + " " + ethCandles;
+            }
+        }
+        uploads.get();
+        executor.shutdown();
+
+        // Then
+        assertNull(tornRead);
+    }
+
+    @Test
+    void getSortedCryptosByPassedAlgo_ShouldReturnCachedRanking_UntilMetadataChanges() {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        long day = dayStart(FIRST_DAY);
+        repository.addBatch("btc", new long[]{day, day + 1}, new double[]{10, 30}, 2);
+        repository.addBatch("eth", new long[]{day, day + 1}, new double[]{10, 11}, 2);
+
+        // When
+        List<String> first = repository.getSortedCryptosByPassedAlgo(CryptoSortingTypeEnum.NORMALIZED_DESC);
+        repository.addBatch("btc", new long[]{day}, new double[]{10}, 1);
+        List<String> unchanged = repository.getSortedCryptosByPassedAlgo(CryptoSortingTypeEnum.NORMALIZED_DESC);
+        repository.addBatch("eth", new long[]{day + 2}, new double[]{100}, 1);
+        List<String> changed = repository.getSortedCryptosByPassedAlgo(CryptoSortingTypeEnum.NORMALIZED_DESC);
+
+        // Then
+        assertAll(
+                () -> assertEquals(List.of("btc", "eth"), first),
+                () -> assertSame(first, unchanged),
+                () -> assertEquals(List.of("eth", "btc"), changed)
+        );
+    }
+
+    @ParameterizedTest
+    @EnumSource(CryptoSortingTypeEnum.class)
+    void getSortedCryptosByPassedAlgo_ShouldSelectPrefixOfWholeRanking_WhenLimitProvided(CryptoSortingTypeEnum sorting) {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            symbols.add("c" + i);
+        }
+        generateCryptos(symbols, 100, new Random(5)).forEach(repository::addByDate);
+
+        // When
+        List<String> top = repository.getSortedCryptosByPassedAlgo(sorting, 10);
+        List<String> whole = repository.getSortedCryptosByPassedAlgo(sorting);
+        List<String> topAfterWhole = repository.getSortedCryptosByPassedAlgo(sorting, 20);
+
+        // Then
+        assertAll(
+                () -> assertEquals(symbols.size(), whole.size()),
+                () -> assertEquals(whole.subList(0, 10), top),
+                () -> assertEquals(whole.subList(0, 20), topAfterWhole),
+                () -> assertSame(topAfterWhole, repository.getSortedCryptosByPassedAlgo(sorting, 20)),
+                () -> assertEquals(whole, repository.getSortedCryptosByPassedAlgo(sorting, 1_000))
+        );
+    }
+
+    @Test
+    void versions_ShouldChangeOnlyWhenDataTheyDescribeChanges() {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        long day = dayStart(FIRST_DAY);
+        repository.addBatch("btc", new long[]{day, day + 1}, new double[]{10, 30}, 2);
+        repository.addBatch("eth", new long[]{day, day + 1}, new double[]{10, 11}, 2);
+        long btcVersion = repository.getMetadataVersion("btc");
+        long ethVersion = repository.getMetadataVersion("eth");
+        long rankingsVersion = repository.getRankingsVersion();
+        long dayVersion = repository.getDayVersion(FIRST_DAY);
+
+        // When
+        repository.addBatch("btc", new long[]{day}, new double[]{10}, 1);
+        long unchangedRankingsVersion = repository.getRankingsVersion();
+        repository.addBatch("eth", new long[]{day + 2}, new double[]{10.5}, 1);
+
+        // Then
+        assertAll(
+                () -> assertNotEquals(0, btcVersion),
+                () -> assertNotEquals(btcVersion, ethVersion),
+                () -> assertEquals(btcVersion, repository.getMetadataVersion("btc")),
+                () -> assertEquals(rankingsVersion, unchangedRankingsVersion),
+                () -> assertNotEquals(ethVersion, repository.getMetadataVersion("eth")),
+                () -> assertNotEquals(rankingsVersion, repository.getRankingsVersion()),
+                () -> assertEquals(dayVersion, repository.getDayVersion(FIRST_DAY)),
+                () -> assertEquals(0, repository.getDayVersion(FIRST_DAY.plusDays(1))),
+                () -> assertEquals(0, repository.getMetadataVersion("xrp"))
+        );
+    }
+
+    @Test
+    void getCandles_ShouldMatchFullScan_AtEveryResolution() {
+        // Given
+        Random random = new Random(17);
+        CryptoRepository repository = new CryptoRepository();
+        long from = dayStart(FIRST_DAY);
+        long period = dayStart(FIRST_DAY.plusDays(23)) - from;
+        int ticks = 40_000;
+        long[] timestamps = new long[ticks];
+        double[] prices = new double[ticks];
+        for (int i = 0; i < ticks; i++) {
+            // several ticks per minute in some minutes, days without ticks in others
+            timestamps[i] = from + (long) (random.nextDouble() * random.nextDouble() * period);
+            prices[i] = 1 + random.nextInt(1_000);
+        }
+
+        // When
+        int batchSize = 1_000;
+        for (int b = 0; b < ticks; b += batchSize) {
+            repository.addBatch("btc", Arrays.copyOfRange(timestamps, b, b + batchSize),
+                    Arrays.copyOfRange(prices, b, b + batchSize), batchSize);
+        }
+        CryptoRepository restoredRepository = new CryptoRepository();
+        restoredRepository.restore("btc", repository.timeSeriesBySymbol().get("btc"));
+
+        // Then
+        Integer[] order = new Integer[ticks];
+        Arrays.setAll(order, i -> i);
+        // the last write of the same timestamp wins
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> timestamps[i]).thenComparing(i -> i));
+        for (CandleResolutionEnum resolution : CandleResolutionEnum.values()) {
+            TreeMap<Long, Candle> expected = new TreeMap<>();
+            for (int k = 0; k < ticks; k++) {
+                int i = order[k];
+                if (k + 1 < ticks && timestamps[order[k + 1]] == timestamps[i]) {
+                    continue;
+                }
+                long openTime = resolution.startOf(resolution.bucketOf(timestamps[i]));
+                Candle candle = expected.get(openTime);
+                expected.put(openTime, candle == null
+                        ? new Candle(openTime, prices[i], prices[i], prices[i], prices[i])
+                        : new Candle(openTime, candle.open(), Math.max(candle.high(), prices[i]),
+                        Math.min(candle.low(), prices[i]), prices[i]));
+            }
+            long queryFrom = from + period / 3;
+            long queryTo = from + period / 2;
+            assertAll(
+                    () -> assertEquals(List.copyOf(expected.values()),
+                            repository.getCandles("btc", resolution, 0, Long.MAX_VALUE), "Wrong " + resolution.label),
+                    () -> assertEquals(List.copyOf(expected.subMap(queryFrom, true, queryTo, true).values()),
+                            repository.getCandles("btc", resolution, queryFrom, queryTo), "Wrong " + resolution.label),
+                    () -> assertEquals(List.copyOf(expected.values()),
+                            restoredRepository.getCandles("btc", resolution, 0, Long.MAX_VALUE))
+            );
+        }
+        repository.removeCrypto("btc");
+        assertTrue(repository.getCandles("btc", CandleResolutionEnum.WEEK, 0, Long.MAX_VALUE).isEmpty());
+    }
+
+    static List<Crypto> generateCryptos(List<String> symbols, int ticksPerSymbol, Random random) {
+        List<Crypto> cryptos = new ArrayList<>();
+        long stepMillis = (dayStart(FIRST_DAY.plusDays(DAYS)) - dayStart(FIRST_DAY)) / ticksPerSymbol;
+        for (String symbol : symbols) {
+            double price = 100 + random.nextInt(1000);
+            for (int i = 0; i < ticksPerSymbol; i++) {
+                // distinct timestamps, as the same timestamp replaces stored price
+                long timestamp = dayStart(FIRST_DAY) + i * stepMillis + random.nextInt((int) stepMillis);
+                price = Math.max(1, price + random.nextGaussian());
+                cryptos.add(new Crypto(timestamp, symbol, price));
+            }
+        }
+        return cryptos;
+    }
+
+    static String highestNormalizedByFullScan(List<Crypto> cryptos, LocalDate date) {
+        return highestNormalizedByFullScan(cryptos, date, ZoneOffset.UTC);
+    }
+
+    static String highestNormalizedByFullScan(List<Crypto> cryptos, LocalDate date, ZoneId zone) {
+        Map<String, double[]> minMaxBySymbol = new HashMap<>();
+        long from = date.atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        for (Crypto crypto : cryptos) {
+            if (crypto.timestamp() >= from && crypto.timestamp() < to) {
+                double[] minMax = minMaxBySymbol.computeIfAbsent(crypto.symbol(),
+                        s -> new double[]{Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY});
+                minMax[0] = Math.min(minMax[0], crypto.price());
+                minMax[1] = Math.max(minMax[1], crypto.price());
+            }
+        }
+        String result = "";
+        double highest = 0;
+        for (Map.Entry<String, double[]> e : minMaxBySymbol.entrySet()) {
+            double normalized = (e.getValue()[1] - e.getValue()[0]) / e.getValue()[0];
+            if (highest < normalized) {
+                highest = normalized;
+                result = e.getKey();
+            }
+        }
+        return result;
+    }
+
+    static long dayStart(LocalDate date) {
+        return date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+}
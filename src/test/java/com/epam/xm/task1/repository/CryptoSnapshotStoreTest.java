@@ -0,0 +1,138 @@
+package com.epam.xm.task1.repository;
+
+import com.epam.xm.task1.enums.CryptoFileFormatEnum;
+import com.epam.xm.task1.model.Crypto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.epam.xm.task1.repository.CryptoRepositoryTest.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoSnapshotStoreTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+    private static final List<String> SYMBOLS = List.of("btc", "eth", "xrp");
+
+    @TempDir
+    private Path dataDir;
+
+    @Test
+    void load_ShouldRestoreSavedCryptos_AndAcceptNewData() throws IOException {
+        // Given
+        List<Crypto> cryptos = generateCryptos(SYMBOLS, 10_000, new Random(5));
+        CryptoRepository savedRepository = new CryptoRepository();
+        cryptos.forEach(savedRepository::addByDate);
+        new CryptoSnapshotStore(savedRepository, dataDir.toString()).save();
+
+        // When
+        CryptoRepository restoredRepository = new CryptoRepository();
+        new CryptoSnapshotStore(restoredRepository, dataDir.toString()).load();
+
+        // Then
+        for (String symbol : SYMBOLS) {
+            assertEquals(savedRepository.getMetadataForCrypto(symbol), restoredRepository.getMetadataForCrypto(symbol));
+        }
+        for (int day = 0; day < 5; day++) {
+            LocalDate date = FIRST_DAY.plusDays(day);
+            assertEquals(highestNormalizedByFullScan(cryptos, date), restoredRepository.getHighestNormalizedRangesForDay(date));
+        }
+
+        // When
+        List<Crypto> merged = new ArrayList<>(cryptos);
+        Random random = new Random(6);
+        int[] updatedIndexes = random.ints(0, cryptos.size()).distinct().limit(1_000).toArray();
+        for (int i = 0; i < updatedIndexes.length; i++) {
+            Crypto crypto = cryptos.get(updatedIndexes[i]);
+            Crypto updated = new Crypto(crypto.timestamp() + (i % 2), crypto.symbol(), 1 + random.nextInt(5_000));
+            // odd ticks are inserted in between, even ones replace stored price
+            if (i % 2 == 0) {
+                merged.remove(crypto);
+            }
+            merged.add(updated);
+            restoredRepository.addByDate(updated);
+        }
+
+        // Then
+        for (int day = 0; day < 5; day++) {
+            LocalDate date = FIRST_DAY.plusDays(day);
+            assertEquals(highestNormalizedByFullScan(merged, date), restoredRepository.getHighestNormalizedRangesForDay(date));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(CryptoFileFormatEnum.class)
+    void exportTicks_ShouldWriteTicksOfRange_WhenMappedAndHeapChunksMixed(CryptoFileFormatEnum format)
+            throws IOException {
+        // Given
+        List<Crypto> cryptos = generateCryptos(List.of("btc"), 10_000, new Random(7));
+        CryptoRepository savedRepository = new CryptoRepository();
+        cryptos.forEach(savedRepository::addByDate);
+        new CryptoSnapshotStore(savedRepository, dataDir.toString()).save();
+        CryptoRepository restoredRepository = new CryptoRepository();
+        new CryptoSnapshotStore(restoredRepository, dataDir.toString()).load();
+        // copies the newest chunk to the heap, older ones stay mapped
+        Crypto appended = new Crypto(cryptos.get(cryptos.size() - 1).timestamp() + 1, "btc", 1);
+        restoredRepository.addByDate(appended);
+        List<Crypto> stored = new ArrayList<>(cryptos);
+        stored.add(appended);
+        long from = cryptos.get(1_000).timestamp();
+        long to = appended.timestamp();
+        Path exported = dataDir.resolve(format.fileName("btc"));
+        List<Long> timestamps = new ArrayList<>();
+        List<Double> prices = new ArrayList<>();
+
+        // When
+        try (FileChannel channel = FileChannel.open(exported, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            restoredRepository.exportTicks("btc", from, to, count -> format.newWriter(channel, "btc", count)).flush();
+        }
+        try (InputStream inputStream = Files.newInputStream(exported)) {
+            format.newParser("btc").parse(inputStream, (ts, ps, size) -> {
+                for (int i = 0; i < size; i++) {
+                    timestamps.add(ts[i]);
+                    prices.add(ps[i]);
+                }
+            });
+        }
+
+        // Then
+        List<Crypto> expected = stored.subList(1_000, stored.size());
+        assertAll(
+                () -> assertEquals(expected.stream().map(Crypto::timestamp).toList(), timestamps),
+                () -> assertEquals(expected.stream().map(Crypto::price).toList(), prices)
+        );
+    }
+
+    @Test
+    void save_ShouldDeleteSnapshot_WhenCryptoRemoved() throws IOException {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        CryptoSnapshotStore store = new CryptoSnapshotStore(repository, dataDir.toString());
+        repository.addByDate(new Crypto(dayStart(FIRST_DAY), "btc", 10));
+        store.save();
+        Path snapshot = dataDir.resolve("btc" + CryptoSnapshotStore.FILE_SUFFIX);
+        boolean savedBeforeRemoval = Files.exists(snapshot);
+
+        // When
+        repository.removeCrypto("btc");
+        store.save();
+
+        // Then
+        assertAll(
+                () -> assertTrue(savedBeforeRemoval),
+                () -> assertFalse(Files.exists(snapshot))
+        );
+    }
+}
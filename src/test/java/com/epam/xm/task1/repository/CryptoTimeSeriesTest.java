@@ -0,0 +1,246 @@
+package com.epam.xm.task1.repository;
+
+import com.epam.xm.task1.model.CryptoMetaData;
+import com.epam.xm.task1.model.CryptoStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoTimeSeriesTest {
+
+    private static final long PERIOD = 1_000_000;
+
+    @Test
+    void priceRange_ShouldMatchFullScan_AndOlderSnapshotsShouldStayUnchanged() {
+        // Given
+        Random random = new Random(11);
+        int batches = 20;
+        int batchSize = 1_000;
+        long[][] timestamps = new long[batches][batchSize];
+        double[][] prices = new double[batches][batchSize];
+        CryptoTimeSeries[] snapshots = new CryptoTimeSeries[batches];
+        CryptoTimeSeries series = CryptoTimeSeries.EMPTY;
+
+        // When
+        for (int b = 0; b < batches; b++) {
+            for (int i = 0; i < batchSize; i++) {
+                // mostly ascending ticks with some late ones, as in real uploads
+                timestamps[b][i] = random.nextInt(10) == 0
+                        ? random.nextInt((int) PERIOD)
+                        : (long) b * batchSize * 50 + i * 50L;
+                prices[b][i] = 1 + random.nextInt(10_000);
+            }
+            series = series.withTicks(timestamps[b], prices[b], batchSize);
+            snapshots[b] = series;
+        }
+
+        // Then
+        for (int b = 0; b < batches; b++) {
+            for (int q = 0; q < 20; q++) {
+                long from = random.nextInt((int) PERIOD);
+                long to = from + random.nextInt((int) PERIOD / 4);
+                assertEquals(priceRangeByFullScan(timestamps, prices, b, from, to), snapshots[b].priceRange(from, to),
+                        "Wrong range for snapshot " + b + " in [" + from + ", " + to + ")");
+            }
+        }
+    }
+
+    @Test
+    void priceRangeAndVolatility_ShouldMatchFullScan_WhenChunkIndexIsCarriedAcrossWrites() {
+        // Given
+        Random random = new Random(15);
+        int batches = 300;
+        int batchSize = 500;
+        TreeMap<Long, Double> ticks = new TreeMap<>();
+        CryptoTimeSeries series = CryptoTimeSeries.EMPTY;
+
+        for (int b = 0; b < batches; b++) {
+            // When
+            long[] timestamps = new long[batchSize];
+            double[] prices = new double[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+                // late ticks split full chunks in the middle of the history, so index entries shift
+                timestamps[i] = random.nextInt(20) == 0
+                        ? random.nextInt(b * batchSize + 1) * 10L + 5
+                        : ((long) b * batchSize + i) * 10;
+                prices[i] = 100 + random.nextInt(1_000);
+                ticks.put(timestamps[i], prices[i]);
+            }
+            series = series.withTicks(timestamps, prices, batchSize);
+
+            // Then
+            if (b % 10 == 9) {
+                assertTrue(series.chunkCount() > b / 10, () -> "Too few chunks to query the index");
+                assertEquals(new PriceRange(Collections.min(ticks.values()), Collections.max(ticks.values())),
+                        new PriceRange(series.minPrice(), series.maxPrice()));
+                assertEquals(volatilityByFullScan(ticks.values()), series.toStatistics("btc").volatility(), 1e-9);
+                for (int q = 0; q < 10; q++) {
+                    long from = random.nextInt((b + 1) * batchSize) * 10L;
+                    long to = from + random.nextInt((b + 1) * batchSize) * 10L;
+                    Collection<Double> expected = ticks.subMap(from, to).values();
+                    assertEquals(expected.isEmpty() ? null
+                                    : new PriceRange(Collections.min(expected), Collections.max(expected)),
+                            series.priceRange(from, to), "Wrong range in [" + from + ", " + to + ")");
+                }
+            }
+        }
+    }
+
+    @Test
+    void withTicks_ShouldAnswerLikeUncompressedSeries_WhenOlderChunksAreCompressed() {
+        // Given
+        Random random = new Random(14);
+        int batches = 50;
+        int batchSize = 2_000;
+        long minute = 60_000;
+        CryptoTimeSeries uncompressed = CryptoTimeSeries.EMPTY;
+        CryptoTimeSeries compressed = CryptoTimeSeries.EMPTY;
+        double price = 46_813.21;
+
+        // When
+        for (int b = 0; b < batches; b++) {
+            long[] timestamps = new long[batchSize];
+            double[] prices = new double[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+                // minute ticks with some late ones landing in compressed chunks
+                timestamps[i] = random.nextInt(20) == 0
+                        ? random.nextInt(b * batchSize + 1) * minute + random.nextInt((int) minute)
+                        : ((long) b * batchSize + i) * minute;
+                price = Math.round(Math.max(1, price + random.nextGaussian() * 50) * 100) / 100.0;
+                prices[i] = price;
+            }
+            uncompressed = uncompressed.withTicks(timestamps, prices, batchSize);
+            compressed = compressed.withTicks(timestamps, prices, batchSize, 2);
+        }
+
+        // Then
+        assertEquals(uncompressed.size(), compressed.size());
+        assertTrue(compressed.estimatedHeapBytes() * 2 < uncompressed.estimatedHeapBytes(),
+                () -> "Compressed series takes too much heap");
+        for (int c = 0; c < compressed.chunkCount(); c++) {
+            assertEquals(c < compressed.chunkCount() - 2, compressed.chunk(c) instanceof CompressedTimeSeriesChunk);
+        }
+        for (int q = 0; q < 500; q++) {
+            long from = (long) random.nextInt(batches * batchSize) * minute - random.nextInt((int) minute);
+            long to = from + random.nextInt(q % 2 == 0 ? batches * batchSize : 100) * minute;
+            assertEquals(uncompressed.priceRange(from, to), compressed.priceRange(from, to),
+                    "Wrong range in [" + from + ", " + to + ")");
+            assertEquals(uncompressed.toMetaData("btc", from, to), compressed.toMetaData("btc", from, to));
+            assertEquals(uncompressed.ceilingTimestamp(from), compressed.ceilingTimestamp(from));
+        }
+        assertEquals(uncompressed.toStatistics("btc"), compressed.toStatistics("btc"));
+    }
+
+    @Test
+    void toMetaData_ShouldMatchFullScan_WhenRangeSpansManyChunks() {
+        // Given
+        Random random = new Random(12);
+        int size = 300_000;
+        long[] timestamps = new long[size];
+        double[] prices = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = i * 10L + random.nextInt(10);
+            prices[i] = 1 + random.nextInt(100_000);
+        }
+        CryptoTimeSeries series = CryptoTimeSeries.EMPTY.withTicks(timestamps, prices, size);
+
+        // When / Then
+        for (int q = 0; q < 200; q++) {
+            int first = random.nextInt(size);
+            int last = Math.min(size - 1, first + random.nextInt(q % 2 == 0 ? size : 500));
+            long from = timestamps[first];
+            long to = timestamps[last] + 1;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = first; i <= last; i++) {
+                min = Math.min(min, prices[i]);
+                max = Math.max(max, prices[i]);
+            }
+            CryptoMetaData expected = new CryptoMetaData("btc", prices[first], prices[last], min, max, (max - min) / min);
+            assertEquals(expected, series.toMetaData("btc", from, to), "Wrong metadata in [" + from + ", " + to + ")");
+        }
+        assertNull(series.toMetaData("btc", timestamps[size - 1] + 1, Long.MAX_VALUE));
+    }
+
+    @Test
+    void toStatistics_ShouldMatchFullScan_AfterWritesIntoMiddleOfHistory() {
+        // Given
+        Random random = new Random(13);
+        int size = 20_000;
+        long hour = 3_600_000;
+        long[] timestamps = new long[size];
+        double[] prices = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = i * hour / 4;
+            prices[i] = 100 + random.nextInt(1_000);
+        }
+        CryptoTimeSeries initial = CryptoTimeSeries.EMPTY.withTicks(timestamps, prices, size);
+        initial.toStatistics("btc");
+
+        // When
+        int replaced = size * 2 / 3;
+        // last tick of a chunk changes the return to the first tick of the next chunk as well
+        int lastOfChunk = TimeSeriesChunk.CAPACITY - 1;
+        prices[replaced] = 5_000;
+        prices[lastOfChunk] = 4_000;
+        CryptoTimeSeries series = initial.withTicks(new long[]{timestamps[replaced], timestamps[lastOfChunk]},
+                new double[]{prices[replaced], prices[lastOfChunk]}, 2);
+        CryptoStatistics statistics = series.toStatistics("btc");
+
+        // Then
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 1; i < size; i++) {
+            double tickReturn = prices[i] / prices[i - 1] - 1;
+            sum += tickReturn;
+            sumOfSquares += tickReturn * tickReturn;
+        }
+        double mean = sum / (size - 1);
+        double volatility = Math.sqrt(sumOfSquares / (size - 1) - mean * mean);
+        long last = timestamps[size - 1];
+        assertAll(
+                () -> assertEquals(series.toMetaData("btc"), statistics.metaData()),
+                () -> assertEquals(series.priceRange(last - 24 * hour + 1, last + 1).normalizedRange(),
+                        statistics.normalizedRange24h()),
+                () -> assertEquals(series.priceRange(last - 30 * 24 * hour + 1, last + 1).normalizedRange(),
+                        statistics.normalizedRange30d()),
+                () -> assertEquals(volatility, statistics.volatility(), 1e-9),
+                () -> assertEquals((prices[size - 1] - prices[0]) / prices[0] * 100, statistics.percentChange(), 1e-9)
+        );
+    }
+
+    private static PriceRange priceRangeByFullScan(long[][] timestamps, double[][] prices, int lastBatch, long from, long to) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int b = 0; b <= lastBatch; b++) {
+            for (int i = 0; i < timestamps[b].length; i++) {
+                if (timestamps[b][i] >= from && timestamps[b][i] < to) {
+                    min = Math.min(min, prices[b][i]);
+                    max = Math.max(max, prices[b][i]);
+                }
+            }
+        }
+        return min == Double.POSITIVE_INFINITY ? null : new PriceRange(min, max);
+    }
+
+    private static double volatilityByFullScan(Collection<Double> prices) {
+        double sum = 0;
+        double sumOfSquares = 0;
+        Double previous = null;
+        for (Double price : prices) {
+            if (previous != null) {
+                double tickReturn = price / previous - 1;
+                sum += tickReturn;
+                sumOfSquares += tickReturn * tickReturn;
+            }
+            previous = price;
+        }
+        double mean = sum / (prices.size() - 1);
+        return Math.sqrt(sumOfSquares / (prices.size() - 1) - mean * mean);
+    }
+}
@@ -0,0 +1,183 @@
+package com.epam.xm.task1.repository;
+
+import com.epam.xm.task1.model.Crypto;
+import com.epam.xm.task1.model.CryptoMetaData;
+import com.epam.xm.task1.model.CryptoTicks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static com.epam.xm.task1.repository.CryptoRepositoryTest.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoWriteAheadLogTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+    private static final List<String> SYMBOLS = List.of("btc", "eth", "xrp");
+
+    @TempDir
+    private Path dataDir;
+
+    @Test
+    void open_ShouldReplayWritesLoggedBeforeCrash_WhenWrittenConcurrently() throws Exception {
+        // Given
+        List<Crypto> cryptos = generateCryptos(SYMBOLS, 20_000, new Random(3));
+        CryptoRepository crashedRepository = new CryptoRepository();
+        CryptoWriteAheadLog crashedLog = openLog(crashedRepository);
+        ExecutorService executor = Executors.newFixedThreadPool(SYMBOLS.size());
+        List<Future<?>> uploads = new ArrayList<>();
+        for (String symbol : SYMBOLS) {
+            List<Crypto> symbolCryptos = cryptos.stream().filter(crypto -> crypto.symbol().equals(symbol)).toList();
+            uploads.add(executor.submit(() -> {
+                for (int from = 0; from < symbolCryptos.size(); from += 1_000) {
+                    addBatch(crashedRepository, symbolCryptos.subList(from, from + 1_000));
+                    crashedRepository.flush();
+                }
+            }));
+        }
+        for (Future<?> upload : uploads) {
+            upload.get();
+        }
+        executor.shutdown();
+        crashedRepository.removeCrypto("xrp");
+        crashedRepository.addAll(List.of(new CryptoTicks("xrp", new long[]{dayStart(FIRST_DAY)}, new double[]{1}, 1)), true);
+        crashedRepository.flush();
+        crashedLog.close();
+
+        // When
+        CryptoRepository restoredRepository = new CryptoRepository();
+        openLog(restoredRepository);
+
+        // Then
+        for (String symbol : SYMBOLS) {
+            assertEquals(crashedRepository.getMetadataForCrypto(symbol), restoredRepository.getMetadataForCrypto(symbol));
+        }
+        for (int day = 0; day < 5; day++) {
+            LocalDate date = FIRST_DAY.plusDays(day);
+            assertEquals(crashedRepository.getHighestNormalizedRangesForDay(date),
+                    restoredRepository.getHighestNormalizedRangesForDay(date));
+        }
+    }
+
+    @Test
+    void open_ShouldSkipIncompleteRecord_AtTheEndOfSegment() throws IOException {
+        // Given
+        CryptoRepository crashedRepository = new CryptoRepository();
+        CryptoWriteAheadLog crashedLog = openLog(crashedRepository);
+        crashedRepository.addByDate(new Crypto(dayStart(FIRST_DAY), "btc", 10));
+        crashedRepository.flush();
+        crashedLog.close();
+        try (Stream<Path> files = Files.list(dataDir)) {
+            Path segment = files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+        }
+
+        // When
+        CryptoRepository restoredRepository = new CryptoRepository();
+        openLog(restoredRepository);
+
+        // Then
+        assertEquals(crashedRepository.getMetadataForCrypto("btc"), restoredRepository.getMetadataForCrypto("btc"));
+    }
+
+    @Test
+    void open_ShouldNotReplayCommit_WhichFailedBeforePublishing() throws IOException {
+        // Given
+        CryptoRepository crashedRepository = new CryptoRepository();
+        CryptoWriteAheadLog crashedLog = openLog(crashedRepository);
+        long day = dayStart(FIRST_DAY);
+        crashedRepository.addByDate(new Crypto(day, "btc", 10));
+        List<CryptoTicks> brokenTicks = List.of(
+                new CryptoTicks("btc", new long[]{day + 1}, new double[]{30}, 1),
+                // ranges of a timestamp beyond supported days can not be derived
+                new CryptoTicks("eth", new long[]{Long.MIN_VALUE}, new double[]{10}, 1));
+        assertThrows(RuntimeException.class, () -> crashedRepository.addAll(brokenTicks, true));
+        crashedRepository.flush();
+        crashedLog.close();
+
+        // When
+        CryptoRepository restoredRepository = new CryptoRepository();
+        openLog(restoredRepository);
+
+        // Then
+        assertAll(
+                () -> assertEquals(new CryptoMetaData("btc", 10, 10, 10, 10, 0), restoredRepository.getMetadataForCrypto("btc")),
+                () -> assertNull(restoredRepository.getMetadataForCrypto("eth"))
+        );
+    }
+
+    @Test
+    void open_ShouldReplayReplacedHistory_WhichWasStagedInBatches() throws IOException {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        CryptoWriteAheadLog log = openLog(repository);
+        long day = dayStart(FIRST_DAY);
+        repository.addBatch("btc", new long[]{day, day + 1}, new double[]{10, 30}, 2);
+        CryptoRepository.StagedHistory stagedHistory = repository.stageHistory("btc");
+        for (int i = 0; i < 10_000; i++) {
+            stagedHistory.accept(new long[]{day + 2 + i}, new double[]{20 + i % 7}, 1);
+        }
+        repository.replaceHistory(stagedHistory);
+        repository.flush();
+        log.close();
+
+        // When
+        CryptoRepository restoredRepository = new CryptoRepository();
+        openLog(restoredRepository);
+
+        // Then
+        assertAll(
+                () -> assertEquals(new CryptoMetaData("btc", 20, 23, 20, 26, 0.3), restoredRepository.getMetadataForCrypto("btc")),
+                () -> assertEquals(repository.getMetadataForCrypto("btc"), restoredRepository.getMetadataForCrypto("btc"))
+        );
+    }
+
+    @Test
+    void compact_ShouldMoveLoggedWritesIntoSnapshots() throws IOException {
+        // Given
+        CryptoRepository repository = new CryptoRepository();
+        CryptoWriteAheadLog log = openLog(repository);
+        repository.addByDate(new Crypto(dayStart(FIRST_DAY), "btc", 10));
+        repository.addByDate(new Crypto(dayStart(FIRST_DAY) + 1, "btc", 20));
+
+        // When
+        log.compact();
+        repository.addByDate(new Crypto(dayStart(FIRST_DAY) + 2, "btc", 5));
+        repository.flush();
+        log.close();
+
+        // Then
+        CryptoRepository restoredRepository = new CryptoRepository();
+        openLog(restoredRepository);
+        try (Stream<Path> files = Files.list(dataDir)) {
+            assertTrue(files.anyMatch(file -> file.toString().endsWith(CryptoSnapshotStore.FILE_SUFFIX)));
+        }
+        assertEquals(repository.getMetadataForCrypto("btc"), restoredRepository.getMetadataForCrypto("btc"));
+    }
+
+    private CryptoWriteAheadLog openLog(CryptoRepository repository) throws IOException {
+        CryptoSnapshotStore snapshotStore = new CryptoSnapshotStore(repository, dataDir.toString());
+        snapshotStore.load();
+        CryptoWriteAheadLog log = new CryptoWriteAheadLog(repository, snapshotStore, dataDir.toString(), true, Long.MAX_VALUE);
+        log.open();
+        return log;
+    }
+
+    private static void addBatch(CryptoRepository repository, List<Crypto> cryptos) {
+        long[] timestamps = cryptos.stream().mapToLong(Crypto::timestamp).toArray();
+        double[] prices = cryptos.stream().mapToDouble(Crypto::price).toArray();
+        repository.addBatch(cryptos.get(0).symbol(), timestamps, prices, cryptos.size());
+    }
+}
@@ -0,0 +1,117 @@
+package com.epam.xm.task1.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DayAggregateTest {
+
+    private static final int BTC = 0;
+    private static final int ETH = 1;
+    private static final int XRP = 2;
+
+    @Test
+    void with_ShouldChangeLeaderAndVersion_WhenOtherCryptoGetsHigherRange() {
+        // Given
+        AtomicLong versions = new AtomicLong();
+        DayAggregate dayAggregate = DayAggregate.EMPTY
+                .with(BTC, new PriceRange(10, 20), versions::incrementAndGet)
+                .with(ETH, new PriceRange(10, 15), versions::incrementAndGet);
+
+        // When
+        DayAggregate updated = dayAggregate.with(ETH, new PriceRange(10, 40), versions::incrementAndGet);
+
+        // Then
+        assertAll(
+                () -> assertEquals(BTC, dayAggregate.leader()),
+                () -> assertEquals(ETH, updated.leader()),
+                () -> assertNotEquals(dayAggregate.version(), updated.version())
+        );
+    }
+
+    @Test
+    void with_ShouldElectNextLeader_WhenRangeOfLeaderShrinks() {
+        // Given
+        AtomicLong versions = new AtomicLong();
+        DayAggregate dayAggregate = DayAggregate.EMPTY
+                .with(BTC, new PriceRange(10, 40), versions::incrementAndGet)
+                .with(ETH, new PriceRange(10, 20), versions::incrementAndGet)
+                .with(XRP, new PriceRange(10, 30), versions::incrementAndGet);
+
+        // When
+        DayAggregate shrunk = dayAggregate.with(BTC, new PriceRange(10, 11), versions::incrementAndGet);
+        DayAggregate removed = dayAggregate.with(BTC, null, versions::incrementAndGet);
+
+        // Then
+        assertAll(
+                () -> assertEquals(BTC, dayAggregate.leader()),
+                () -> assertEquals(XRP, shrunk.leader()),
+                () -> assertNotEquals(dayAggregate.version(), shrunk.version()),
+                () -> assertEquals(XRP, removed.leader()),
+                () -> assertFalse(removed.isEmpty())
+        );
+    }
+
+    @Test
+    void with_ShouldKeepLeaderAndVersion_WhenLeaderIsNotOvertaken() {
+        // Given
+        AtomicLong versions = new AtomicLong();
+        DayAggregate dayAggregate = DayAggregate.EMPTY
+                .with(BTC, new PriceRange(10, 20), versions::incrementAndGet)
+                .with(ETH, new PriceRange(10, 15), versions::incrementAndGet);
+
+        // When
+        DayAggregate tied = dayAggregate.with(ETH, new PriceRange(10, 20), versions::incrementAndGet);
+        DayAggregate grown = tied.with(BTC, new PriceRange(10, 30), versions::incrementAndGet);
+        DayAggregate shrunkButLeading = grown.with(BTC, new PriceRange(10, 25), versions::incrementAndGet);
+        DayAggregate same = shrunkButLeading.with(BTC, new PriceRange(10, 25), versions::incrementAndGet);
+
+        // Then
+        assertAll(
+                () -> assertEquals(BTC, tied.leader()),
+                () -> assertEquals(dayAggregate.version(), tied.version()),
+                () -> assertEquals(BTC, grown.leader()),
+                () -> assertEquals(dayAggregate.version(), grown.version()),
+                () -> assertEquals(BTC, shrunkButLeading.leader()),
+                () -> assertEquals(dayAggregate.version(), shrunkButLeading.version()),
+                () -> assertSame(shrunkButLeading, same)
+        );
+    }
+
+    @Test
+    void with_ShouldHaveNoLeader_WhileAllPricesAreFlat() {
+        // Given
+        AtomicLong versions = new AtomicLong();
+        DayAggregate dayAggregate = DayAggregate.EMPTY
+                .with(BTC, new PriceRange(10, 20), versions::incrementAndGet)
+                .with(ETH, new PriceRange(10, 10), versions::incrementAndGet);
+
+        // When
+        DayAggregate flat = dayAggregate.with(BTC, new PriceRange(20, 20), versions::incrementAndGet);
+
+        // Then
+        assertAll(
+                () -> assertEquals(DayAggregate.NO_LEADER, flat.leader()),
+                () -> assertFalse(flat.isEmpty())
+        );
+    }
+
+    @Test
+    void with_ShouldBecomeEmpty_WhenLastCryptoIsRemoved() {
+        // Given
+        AtomicLong versions = new AtomicLong();
+        DayAggregate dayAggregate = DayAggregate.EMPTY.with(BTC, new PriceRange(10, 20), versions::incrementAndGet);
+
+        // When
+        DayAggregate removed = dayAggregate.with(BTC, null, versions::incrementAndGet);
+
+        // Then
+        assertAll(
+                () -> assertTrue(removed.isEmpty()),
+                () -> assertEquals(DayAggregate.NO_LEADER, removed.leader()),
+                () -> assertNotEquals(dayAggregate.version(), removed.version())
+        );
+    }
+}
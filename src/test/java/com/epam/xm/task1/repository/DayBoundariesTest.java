@@ -0,0 +1,55 @@
+package com.epam.xm.task1.repository;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DayBoundariesTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"UTC", "-03:30", "America/New_York", "Europe/Berlin", "Asia/Kolkata", "Pacific/Apia"})
+    void epochDayOf_ShouldMatchDateTimeConversion(String zoneId) {
+        // Given
+        ZoneId zone = ZoneId.of(zoneId);
+        DayBoundaries days = new DayBoundaries(zone);
+        Random random = new Random(3);
+        long from = Instant.parse("1960-01-01T00:00:00Z").toEpochMilli();
+        long to = Instant.parse("2120-01-01T00:00:00Z").toEpochMilli();
+
+        for (int i = 0; i < 100_000; i++) {
+            // When
+            long timestamp = from + (long) (random.nextDouble() * (to - from));
+            long epochDay = days.epochDayOf(timestamp);
+
+            // Then
+            LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), zone);
+            assertEquals(date.toEpochDay(), epochDay, "Wrong day of " + timestamp);
+            assertEquals(date.atStartOfDay(zone).toInstant().toEpochMilli(), days.startOf(epochDay));
+            assertEquals(date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli(), days.startOf(epochDay + 1));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"America/New_York", "Pacific/Apia"})
+    void epochDayOf_ShouldReturnDayStartingAtTimestamp_WhenTimestampIsDayStart(String zoneId) {
+        // Given
+        ZoneId zone = ZoneId.of(zoneId);
+        DayBoundaries days = new DayBoundaries(zone);
+        // Apia skipped 2011-12-30, DST in New York starts on 2011-03-13
+        LocalDate date = LocalDate.of(2011, 12, 31);
+        long dayStart = date.atStartOfDay(zone).toInstant().toEpochMilli();
+
+        // When / Then
+        assertAll(
+                () -> assertEquals(date.toEpochDay(), days.epochDayOf(dayStart)),
+                () -> assertEquals(LocalDate.ofInstant(Instant.ofEpochMilli(dayStart - 1), zone).toEpochDay(),
+                        days.epochDayOf(dayStart - 1))
+        );
+    }
+}
@@ -0,0 +1,66 @@
+package com.epam.xm.task1.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentArrayTest {
+
+    @Test
+    void with_ShouldKeepPreviousArraysUnchanged() {
+        // Given
+        Random random = new Random(11);
+        List<PersistentArray<String>> arrays = new ArrayList<>();
+        List<Map<Integer, String>> expected = new ArrayList<>();
+        PersistentArray<String> array = PersistentArray.empty();
+        Map<Integer, String> values = new HashMap<>();
+
+        // When
+        for (int i = 0; i < 2_000; i++) {
+            // mostly dense ids, as symbol ids are, with a few far ones growing the trie
+            int index = i % 100 == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(1_500);
+            String value = random.nextInt(10) == 0 ? null : "v" + i;
+            array = array.with(index, value);
+            if (value == null) {
+                values.remove(index);
+            } else {
+                values.put(index, value);
+            }
+            arrays.add(array);
+            expected.add(new HashMap<>(values));
+        }
+
+        // Then
+        for (int i = 0; i < arrays.size(); i++) {
+            PersistentArray<String> snapshot = arrays.get(i);
+            Map<Integer, String> snapshotValues = expected.get(i);
+            snapshotValues.forEach((index, value) -> assertEquals(value, snapshot.get(index)));
+            List<String> iterated = new ArrayList<>();
+            snapshot.forEach(iterated::add);
+            assertEquals(new ArrayList<>(new TreeMap<>(snapshotValues).values()), iterated);
+            Map<Integer, String> iteratedByIndex = new TreeMap<>();
+            snapshot.forEachIndexed((value, index) -> assertNull(iteratedByIndex.put(index, value)));
+            assertEquals(snapshotValues, iteratedByIndex);
+        }
+    }
+
+    @Test
+    void with_ShouldReturnSameArray_WhenSlotAlreadyHoldsValue() {
+        // Given
+        PersistentArray<String> array = PersistentArray.<String>empty().with(40, "btc");
+
+        // When, Then
+        assertAll(
+                () -> assertSame(array, array.with(40, "btc")),
+                () -> assertSame(array, array.with(41, null)),
+                () -> assertNull(array.get(Integer.MAX_VALUE))
+        );
+    }
+}
@@ -0,0 +1,120 @@
+package com.epam.xm.task1.repository;
+
+import com.epam.xm.task1.exceptions.WrongCryptoNameException;
+import com.epam.xm.task1.model.CryptoSymbol;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolRegistryTest {
+
+    @TempDir
+    private Path dataDir;
+
+    @Test
+    void idOf_ShouldAssignDenseIds_WhenSymbolsAreInternedConcurrently() throws Exception {
+        // Given
+        SymbolRegistry registry = new SymbolRegistry();
+        int symbols = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<int[]>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(executor.submit(() -> {
+                int[] ids = new int[symbols];
+                for (int i = 0; i < symbols; i++) {
+                    ids[i] = registry.idOf("coin" + i);
+                }
+                return ids;
+            }));
+        }
+        List<int[]> ids = new ArrayList<>();
+        for (Future<int[]> result : results) {
+            ids.add(result.get());
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(symbols, registry.size());
+        for (int i = 0; i < symbols; i++) {
+            int id = ids.get(0)[i];
+            for (int[] threadIds : ids) {
+                assertEquals(id, threadIds[i], "Different ids of coin" + i);
+            }
+            assertEquals("coin" + i, registry.symbolOf(id));
+            assertEquals(id, registry.find("coin" + i));
+        }
+        assertEquals(-1, registry.find("unknown"));
+    }
+
+    @Test
+    void disable_ShouldKeepId_AndStopAcceptingSymbol() {
+        // Given
+        SymbolRegistry registry = new SymbolRegistry(Set.of("BTC", "eth"));
+        int btc = registry.find("btc");
+
+        // When
+        CryptoSymbol disabled = registry.disable("Btc");
+        CryptoSymbol enabled = registry.enable("xrp");
+
+        // Then
+        assertAll(
+                () -> assertEquals(new CryptoSymbol(btc, "btc", false), disabled),
+                () -> assertFalse(registry.isEnabled("btc")),
+                () -> assertTrue(registry.isEnabled("eth")),
+                () -> assertEquals(new CryptoSymbol(2, "xrp", true), enabled),
+                () -> assertNull(registry.disable("doge")),
+                () -> assertEquals(3, registry.symbols().size())
+        );
+    }
+
+    @Test
+    void load_ShouldRestoreRuntimeChanges_OnTopOfEnabledSymbols() throws IOException {
+        // Given
+        SymbolRegistry registry = new SymbolRegistry(Set.of("btc", "eth"), dataDir.toString(), 10);
+        registry.load();
+        registry.enable("ADA");
+        registry.disable("btc");
+
+        // When
+        SymbolRegistry restartedRegistry = new SymbolRegistry(Set.of("btc", "eth"), dataDir.toString(), 10);
+        restartedRegistry.load();
+
+        // Then
+        assertAll(
+                () -> assertTrue(restartedRegistry.isEnabled("ada")),
+                () -> assertFalse(restartedRegistry.isEnabled("btc")),
+                () -> assertTrue(restartedRegistry.isEnabled("eth")),
+                () -> assertEquals(3, restartedRegistry.size())
+        );
+    }
+
+    @Test
+    void enable_ShouldRejectNewSymbol_WhenRegistryIsFullOrNameIsTooLong() {
+        // Given
+        SymbolRegistry registry = new SymbolRegistry(Set.of("btc", "eth"), "", 2);
+        registry.disable("btc");
+        int btc = registry.find("btc");
+
+        // When, Then
+        assertAll(
+                () -> assertThrows(WrongCryptoNameException.class, () -> registry.enable("xrp")),
+                () -> assertThrows(WrongCryptoNameException.class,
+                        () -> registry.enable("b".repeat(SymbolRegistry.MAX_SYMBOL_LENGTH + 1))),
+                () -> assertEquals(new CryptoSymbol(btc, "btc", true), registry.enable("btc")),
+                () -> assertEquals(2, registry.size()),
+                () -> assertFalse(registry.isEnabled("xrp"))
+        );
+    }
+}
@@ -0,0 +1,169 @@
+package com.epam.xm.task1.service;
+
+import com.epam.xm.task1.model.Crypto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test running concurrent uploads and reads against real repository
+ */
+@SpringBootTest
+@DirtiesContext
+class CryptoServiceConcurrencyTest {
+
+    private static final List<String> CRYPTOS = List.of("btc", "doge", "eth", "ltc", "xrp");
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+    private static final int DAYS = 10;
+    private static final int FILES_PER_CRYPTO = 4;
+    private static final int ROWS_PER_FILE = 20_000;
+
+    @Autowired
+    private CryptoService cryptoService;
+
+    @Test
+    void concurrentUploadsAndReads_ShouldKeepRepositoryConsistent() throws Exception {
+        // Given
+        Random random = new Random(42);
+        List<Crypto> allCryptos = new ArrayList<>();
+        List<MockMultipartFile> files = new ArrayList<>();
+        for (String crypto : CRYPTOS) {
+            for (int i = 0; i < FILES_PER_CRYPTO; i++) {
+                List<Crypto> rows = generateRows(crypto, i, random);
+                allCryptos.addAll(rows);
+                files.add(toCsvFile(crypto, rows));
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicBoolean uploading = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> readErrors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        List<Future<?>> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readers.add(executor.submit(() -> readUntilUploaded(start, uploading, readErrors)));
+        }
+        List<Future<ResponseEntity<Void>>> uploads = new ArrayList<>();
+        for (MockMultipartFile file : files) {
+            uploads.add(executor.submit(() -> {
+                start.await();
+                return cryptoService.processUploadedFile(file);
+            }));
+        }
+        start.countDown();
+        for (Future<ResponseEntity<Void>> upload : uploads) {
+            assertEquals(200, upload.get(1, TimeUnit.MINUTES).getStatusCode().value());
+        }
+        uploading.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Then
+        assertTrue(readErrors.isEmpty(), () -> String.join("\n", readErrors));
+        List<String> sorted = cryptoService.getSortedCryptos("normalized_desc").getBody();
+        assertNotNull(sorted);
+        assertEquals(Set.copyOf(CRYPTOS), Set.copyOf(sorted));
+        for (int day = 0; day < DAYS; day++) {
+            LocalDate date = FIRST_DAY.plusDays(day);
+            assertEquals(highestNormalizedByFullScan(allCryptos, date),
+                    cryptoService.getCryptoWithHighestNormalizedRangeForDate(date.toString()).getBody(),
+                    "Wrong crypto for " + date);
+        }
+    }
+
+    private Void readUntilUploaded(CountDownLatch start, AtomicBoolean uploading, ConcurrentLinkedQueue<String> errors)
+            throws InterruptedException {
+        start.await();
+        int day = 0;
+        while (uploading.get()) {
+            ResponseEntity<List<String>> sorted = cryptoService.getSortedCryptos("NORMALIZED_DESC");
+            if (sorted.getStatusCode().value() == 200 && !CRYPTOS.containsAll(sorted.getBody())) {
+                errors.add("Unexpected sorted cryptos: " + sorted.getBody());
+            }
+            String date = FIRST_DAY.plusDays(day++ % DAYS).toString();
+            ResponseEntity<String> highest = cryptoService.getCryptoWithHighestNormalizedRangeForDate(date);
+            if (highest.getStatusCode().value() == 200 && !CRYPTOS.contains(highest.getBody())) {
+                errors.add("Unexpected highest normalized crypto: " + highest.getBody());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Files of the same crypto get distinct timestamps, so the result does not depend on the order of uploads
+     */
+    private static List<Crypto> generateRows(String crypto, int fileIndex, Random random) {
+        long from = dayStart(FIRST_DAY);
+        long slots = (dayStart(FIRST_DAY.plusDays(DAYS)) - from) / FILES_PER_CRYPTO;
+        List<Crypto> rows = new ArrayList<>(ROWS_PER_FILE);
+        double price = 10 + random.nextInt(100);
+        for (int i = 0; i < ROWS_PER_FILE; i++) {
+            price = Math.max(1, price + random.nextGaussian());
+            long timestamp = from + (long) (random.nextDouble() * slots) * FILES_PER_CRYPTO + fileIndex;
+            rows.add(new Crypto(timestamp, crypto, price));
+        }
+        return rows;
+    }
+
+    private static MockMultipartFile toCsvFile(String crypto, List<Crypto> rows) {
+        StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+        for (Crypto row : rows) {
+            content.append(row.timestamp()).append(',').append(crypto.toUpperCase()).append(',').append(row.price()).append('\n');
+        }
+        return new MockMultipartFile("file", crypto.toUpperCase() + "_values.csv", "text/csv",
+                content.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String highestNormalizedByFullScan(List<Crypto> cryptos, LocalDate date) {
+        Map<String, double[]> minMaxByCrypto = new HashMap<>();
+        long from = dayStart(date);
+        long to = dayStart(date.plusDays(1));
+        for (Crypto crypto : cryptos) {
+            if (crypto.timestamp() >= from && crypto.timestamp() < to) {
+                double[] minMax = minMaxByCrypto.computeIfAbsent(crypto.symbol(),
+                        s -> new double[]{Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY});
+                minMax[0] = Math.min(minMax[0], crypto.price());
+                minMax[1] = Math.max(minMax[1], crypto.price());
+            }
+        }
+        String result = "";
+        double highest = 0;
+        for (Map.Entry<String, double[]> e : minMaxByCrypto.entrySet()) {
+            double normalized = (e.getValue()[1] - e.getValue()[0]) / e.getValue()[0];
+            if (highest < normalized) {
+                highest = normalized;
+                result = e.getKey();
+            }
+        }
+        return result;
+    }
+
+    private static long dayStart(LocalDate date) {
+        return date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+}
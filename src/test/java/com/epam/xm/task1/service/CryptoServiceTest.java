@@ -1,33 +1,59 @@
 package com.epam.xm.task1.service;
 
+import com.epam.xm.task1.enums.CandleResolutionEnum;
+import com.epam.xm.task1.enums.CryptoFileFormatEnum;
 import com.epam.xm.task1.enums.CryptoSortingTypeEnum;
+import com.epam.xm.task1.enums.FileUploadStatusEnum;
+import com.epam.xm.task1.enums.UploadModeEnum;
+import com.epam.xm.task1.model.BulkUploadReport;
+import com.epam.xm.task1.model.Candle;
 import com.epam.xm.task1.model.CryptoMetaData;
+import com.epam.xm.task1.model.CryptoSymbol;
+import com.epam.xm.task1.model.CryptoTicks;
+import com.epam.xm.task1.model.FileUploadResult;
 import com.epam.xm.task1.model.MetaDataAdapter;
+import com.epam.xm.task1.model.RangeMetaData;
+import com.epam.xm.task1.parser.CryptoCsvParser;
+import com.epam.xm.task1.parser.CryptoDataWriter;
 import com.epam.xm.task1.repository.CryptoRepository;
+import com.epam.xm.task1.repository.SymbolRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongFunction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.servlet.multipart.max-request-size=1MB")
 @ExtendWith(MockitoExtension.class)
 class CryptoServiceTest {
 
@@ -39,6 +65,12 @@ class CryptoServiceTest {
     @Autowired
     private CryptoService cryptoService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Test
     void processUploadedFile_ShouldReturnBadRequest_WhenEmptyFilePassed() {
         // Given
@@ -62,7 +94,7 @@ class CryptoServiceTest {
         // Given
         MultipartFile multipartFileMock = Mockito.mock(MultipartFile.class);
         Mockito.when(multipartFileMock.getOriginalFilename()).thenReturn(null);
-        String errMsg = "Wrong file name format. Right format is: CRYPTO_NAME_values.csv";
+        String errMsg = "Wrong file name format. Right format is: CRYPTO_NAME_values.csv or CRYPTO_NAME_values.bin";
 
         // When
         ResponseEntity<Void> responseEntity = cryptoService.processUploadedFile(multipartFileMock);
@@ -81,7 +113,7 @@ class CryptoServiceTest {
         MultipartFile multipartFileMock = Mockito.mock(MultipartFile.class);
         String wrongOriginalFileName = "abraKadabra";
         Mockito.when(multipartFileMock.getOriginalFilename()).thenReturn(wrongOriginalFileName);
-        String errMsg = "Wrong file name format. Right format is: CRYPTO_NAME_values.csv";
+        String errMsg = "Wrong file name format. Right format is: CRYPTO_NAME_values.csv or CRYPTO_NAME_values.bin";
 
         // When
         ResponseEntity<Void> responseEntity = cryptoService.processUploadedFile(multipartFileMock);
@@ -137,6 +169,27 @@ class CryptoServiceTest {
         );
     }
 
+    @Test
+    void processUploadedFile_ShouldReturnBadRequest_WhenLineIsTooLong() throws IOException {
+        // Given
+        MultipartFile multipartFileMock = Mockito.mock(MultipartFile.class);
+        String fileContent = "timestamp,symbol,price\n1641009600000,BTC," + "1".repeat(64 * 1024) + "\n";
+        InputStream targetStream = new ByteArrayInputStream(fileContent.getBytes());
+        Mockito.when(multipartFileMock.getOriginalFilename()).thenReturn("BTC_values.csv");
+        Mockito.when(multipartFileMock.getInputStream()).thenReturn(targetStream);
+
+        // When
+        ResponseEntity<Void> responseEntity = cryptoService.processUploadedFile(multipartFileMock);
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertEquals("Line is longer than 65536 bytes",
+                        Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0)),
+                () -> Mockito.verifyNoInteractions(cryptoRepositoryMock)
+        );
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"16410960000o,BTC,46813.21\n", "1641009600000,BTC,46i13.21\n"})
     void processUploadedFile_ShouldReturnBadRequest_WhenWrongDateTime(String secondRow) throws IOException {
@@ -181,8 +234,6 @@ class CryptoServiceTest {
         );
     }
 
-    // TODO called cryptoRepository.addMetadataForCrypto
-    // TODO called cryptoRepository::addByDate
     @Test
     void processUploadedFile_ShouldProcessFile() throws IOException {
         // Given
@@ -198,12 +249,452 @@ class CryptoServiceTest {
         ResponseEntity<Void> responseEntity = cryptoService.processUploadedFile(multipartFileMock);
 
         // Then
-        Mockito.verify(cryptoRepositoryMock).addMetadataForCrypto(Mockito.any());
-        Mockito.verify(cryptoRepositoryMock).addByDate(Mockito.any());
+        ArgumentCaptor<List<CryptoTicks>> ticksCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(cryptoRepositoryMock).addAll(ticksCaptor.capture(), Mockito.eq(false));
 
         assertAll(
                 () -> assertEquals(200, responseEntity.getStatusCode().value()),
-                () -> assertNull(responseEntity.getBody())
+                () -> assertNull(responseEntity.getBody()),
+                () -> assertEquals("btc", ticksCaptor.getValue().get(0).symbol()),
+                () -> assertEquals(1, ticksCaptor.getValue().get(0).size())
+        );
+    }
+
+    @Test
+    void processUploadedFile_ShouldStoreOnComputeExecutor() {
+        // Given
+        List<String> storingThreads = new CopyOnWriteArrayList<>();
+        Mockito.doAnswer(invocation -> storingThreads.add(Thread.currentThread().getName()))
+                .when(cryptoRepositoryMock).addAll(Mockito.any(), Mockito.anyBoolean());
+
+        // When
+        ResponseEntity<Void> fileResponse = cryptoService.processUploadedFile(
+                csvFile("BTC_values.csv", "timestamp,symbol,price\n1641009600000,BTC,46813.21\n"), "replace");
+        ResponseEntity<BulkUploadReport> filesResponse = cryptoService.processUploadedFiles(
+                List.of(csvFile("ETH_values.csv", "timestamp,symbol,price\n1641009600000,ETH,3715.32\n")), "append");
+
+        // Then
+        assertAll(
+                () -> assertEquals(200, fileResponse.getStatusCode().value()),
+                () -> assertEquals(200, filesResponse.getStatusCode().value()),
+                () -> assertEquals(2, storingThreads.size()),
+                () -> assertTrue(storingThreads.stream().allMatch(name -> name.startsWith("crypto-compute-")),
+                        storingThreads.toString())
+        );
+    }
+
+    @Test
+    void processUploadedFile_ShouldStoreNothing_WhenWrongRowFollowsFullBatch() {
+        // Given
+        StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < 5_000; i++) {
+            content.append(1641009600000L + i).append(",BTC,").append(i == 4_500 ? "4o000" : "40000").append('\n');
+        }
+
+        // When
+        ResponseEntity<Void> responseEntity = cryptoService.processUploadedFile(
+                csvFile("BTC_values.csv", content.toString()));
+
+        // Then
+        assertEquals(400, responseEntity.getStatusCode().value());
+        Mockito.verify(cryptoRepositoryMock, Mockito.never()).addAll(Mockito.any(), Mockito.anyBoolean());
+        Mockito.verify(cryptoRepositoryMock, Mockito.never())
+                .addBatch(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyInt());
+    }
+
+    @Test
+    void processUploadedFile_ShouldReplaceStoredData_WhenReplaceModePassed() throws IOException {
+        // Given
+        MultipartFile multipartFileMock = Mockito.mock(MultipartFile.class);
+        String fileContent = "timestamp,symbol,price\n1641009600000,BTC,46813.21\n";
+        Mockito.when(multipartFileMock.getOriginalFilename()).thenReturn("BTC_values.csv");
+        Mockito.when(multipartFileMock.getInputStream()).thenReturn(new ByteArrayInputStream(fileContent.getBytes()));
+
+        // When
+        ResponseEntity<Void> responseEntity = cryptoService.processUploadedFile(multipartFileMock, "replace");
+
+        // Then
+        ArgumentCaptor<List<CryptoTicks>> ticksCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(cryptoRepositoryMock).addAll(ticksCaptor.capture(), Mockito.eq(true));
+        Mockito.verify(cryptoRepositoryMock, Mockito.never()).removeCrypto(Mockito.any());
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertEquals("btc", ticksCaptor.getValue().get(0).symbol())
+        );
+    }
+
+    @Test
+    void processUploadedStream_ShouldKeepStoredData_WhenReplacingBodyIsWrong() {
+        // Given
+        StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < 5_000; i++) {
+            content.append(1641009600000L + i).append(",BTC,").append(i == 4_500 ? "4o000" : "40000").append('\n');
+        }
+        InputStream body = new ByteArrayInputStream(content.toString().getBytes());
+        CryptoRepository.StagedHistory stagedHistory = new CryptoRepository().stageHistory("btc");
+        Mockito.when(cryptoRepositoryMock.stageHistory("btc")).thenReturn(stagedHistory);
+
+        // When
+        ResponseEntity<Void> responseEntity = cryptoService.processUploadedStream("BTC", CryptoFileFormatEnum.CSV, body,
+                "replace");
+
+        // Then
+        assertEquals(400, responseEntity.getStatusCode().value());
+        Mockito.verify(cryptoRepositoryMock).stageHistory("btc");
+        Mockito.verifyNoMoreInteractions(cryptoRepositoryMock);
+    }
+
+    @Test
+    void processUploadedStream_ShouldReplaceHistoryWithStagedBatches() {
+        // Given
+        int rows = 10_000;
+        StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < rows; i++) {
+            content.append(1641009600000L + i).append(",BTC,").append(40000 + i).append('\n');
+        }
+        InputStream body = new ByteArrayInputStream(content.toString().getBytes());
+        CryptoRepository.StagedHistory stagedHistory = new CryptoRepository().stageHistory("btc");
+        Mockito.when(cryptoRepositoryMock.stageHistory("btc")).thenReturn(stagedHistory);
+
+        // When
+        ResponseEntity<Void> responseEntity = cryptoService.processUploadedStream("BTC", CryptoFileFormatEnum.CSV, body,
+                "replace");
+
+        // Then
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertEquals(rows, stagedHistory.size()),
+                () -> Mockito.verify(cryptoRepositoryMock).replaceHistory(stagedHistory),
+                () -> Mockito.verify(cryptoRepositoryMock, Mockito.never())
+                        .addAll(Mockito.any(), Mockito.anyBoolean())
+        );
+    }
+
+    @Test
+    void processUploadedFile_ShouldProcessBinaryFile() throws IOException {
+        // Given
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(content)) {
+            output.writeInt(0x43525442);
+            output.writeByte(1);
+            output.writeShort(3);
+            output.writeBytes("btc");
+            output.writeLong(2);
+            output.writeLong(1641009600000L);
+            output.writeDouble(46813.21);
+            output.writeLong(1641013200000L);
+            output.writeDouble(46979.61);
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "BTC_values.bin",
+                MediaType.APPLICATION_OCTET_STREAM_VALUE, content.toByteArray());
+
+        // When
+        ResponseEntity<Void> responseEntity = cryptoService.processUploadedFile(file);
+
+        // Then
+        ArgumentCaptor<List<CryptoTicks>> ticksCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(cryptoRepositoryMock).addAll(ticksCaptor.capture(), Mockito.eq(false));
+        CryptoTicks ticks = ticksCaptor.getValue().get(0);
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertEquals(2, ticks.size()),
+                () -> assertEquals(1641009600000L, ticks.timestamps()[0]),
+                () -> assertEquals(1641013200000L, ticks.timestamps()[1])
+        );
+    }
+
+    @Test
+    void processUploadedFile_ShouldReturnBadRequest_WhenWrongModePassed() {
+        // Given
+        MultipartFile multipartFileMock = Mockito.mock(MultipartFile.class);
+        String errMsg = "Wrong upload mode. Available modes: " + Arrays.toString(UploadModeEnum.values());
+
+        // When
+        ResponseEntity<Void> responseEntity = cryptoService.processUploadedFile(multipartFileMock, "abra-kadabra");
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertEquals(errMsg, Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+        Mockito.verifyNoInteractions(cryptoRepositoryMock);
+    }
+
+    @Test
+    void processUploadedStream_ShouldStoreAllRowsInBatches() {
+        // Given
+        int rows = 10_000;
+        StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < rows; i++) {
+            content.append(1641009600000L + i).append(",ETH,").append(3000 + i).append('\n');
+        }
+        InputStream body = new ByteArrayInputStream(content.toString().getBytes());
+
+        // When
+        ResponseEntity<Void> responseEntity = cryptoService.processUploadedStream("ETH", CryptoFileFormatEnum.CSV, body,
+                "append");
+
+        // Then
+        ArgumentCaptor<Integer> sizes = ArgumentCaptor.forClass(Integer.class);
+        Mockito.verify(cryptoRepositoryMock, Mockito.atLeast(2))
+                .addBatch(Mockito.eq("eth"), Mockito.any(), Mockito.any(), sizes.capture());
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertEquals(rows, sizes.getAllValues().stream().mapToInt(Integer::intValue).sum())
+        );
+    }
+
+    @Test
+    void processUploadedStream_ShouldKeepStoredBatches_WhenWrongRowFollowsThem() {
+        // Given
+        StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < 5_000; i++) {
+            content.append(1641009600000L + i).append(",ETH,").append(i == 4_500 ? "3o00" : "3000").append('\n');
+        }
+        InputStream body = new ByteArrayInputStream(content.toString().getBytes());
+
+        // When
+        ResponseEntity<Void> responseEntity = cryptoService.processUploadedStream("ETH", CryptoFileFormatEnum.CSV, body,
+                "append");
+
+        // Then
+        assertEquals(400, responseEntity.getStatusCode().value());
+        Mockito.verify(cryptoRepositoryMock)
+                .addBatch(Mockito.eq("eth"), Mockito.any(), Mockito.any(), Mockito.eq(CryptoCsvParser.DEFAULT_BATCH_SIZE));
+        Mockito.verifyNoMoreInteractions(cryptoRepositoryMock);
+    }
+
+    @Test
+    void processUploadedStream_ShouldReturnBadRequest_WhenNotAllowedCryptoUploading() {
+        // Given
+        InputStream body = new ByteArrayInputStream("timestamp,symbol,price\n1641009600000,ADA,1.1\n".getBytes());
+
+        // When
+        ResponseEntity<Void> responseEntity = cryptoService.processUploadedStream("ADA", CryptoFileFormatEnum.CSV, body,
+                "append");
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertEquals("Currently crypto ada is not allowed",
+                        Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+        Mockito.verifyNoInteractions(cryptoRepositoryMock);
+    }
+
+    @Test
+    void processUploadedStream_ShouldStoreCrypto_OnlyWhileItIsEnabled() {
+        // Given
+        String content = "timestamp,symbol,price\n1641009600000,SOL,170.5\n";
+
+        // When
+        ResponseEntity<CryptoSymbol> enabled = cryptoService.enableSymbol("SOL");
+        ResponseEntity<Void> uploadedWhileEnabled = cryptoService.processUploadedStream("sol", CryptoFileFormatEnum.CSV,
+                new ByteArrayInputStream(content.getBytes()), "append");
+        ResponseEntity<CryptoSymbol> disabled = cryptoService.disableSymbol("sol");
+        ResponseEntity<Void> uploadedWhileDisabled = cryptoService.processUploadedStream("sol", CryptoFileFormatEnum.CSV,
+                new ByteArrayInputStream(content.getBytes()), "append");
+
+        // Then
+        CryptoSymbol symbol = Objects.requireNonNull(enabled.getBody());
+        assertAll(
+                () -> assertEquals(200, enabled.getStatusCode().value()),
+                () -> assertEquals("sol", symbol.symbol()),
+                () -> assertTrue(symbol.enabled()),
+                () -> assertEquals(200, uploadedWhileEnabled.getStatusCode().value()),
+                () -> assertEquals(new CryptoSymbol(symbol.id(), "sol", false), disabled.getBody()),
+                () -> assertEquals(400, uploadedWhileDisabled.getStatusCode().value()),
+                () -> assertTrue(Objects.requireNonNull(cryptoService.getSymbols().getBody()).contains(disabled.getBody()))
+        );
+        Mockito.verify(cryptoRepositoryMock).addBatch(Mockito.eq("sol"), Mockito.any(), Mockito.any(), Mockito.eq(1));
+    }
+
+    @Test
+    void enableSymbol_ShouldReturnBadRequest_WhenWrongSymbol() {
+        // Given
+        String wrongSymbol = "btc_values";
+        String errMsg = "Wrong crypto name format. Only letters and digits are allowed: " + wrongSymbol;
+
+        // When
+        ResponseEntity<CryptoSymbol> responseEntity = cryptoService.enableSymbol(wrongSymbol);
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertNull(responseEntity.getBody()),
+                () -> assertEquals(errMsg, Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+    }
+
+    @Test
+    void enableSymbol_ShouldReturnBadRequest_WhenSymbolIsTooLong() {
+        // Given
+        String longSymbol = "a".repeat(SymbolRegistry.MAX_SYMBOL_LENGTH + 1);
+
+        // When
+        ResponseEntity<CryptoSymbol> responseEntity = cryptoService.enableSymbol(longSymbol);
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertEquals("Crypto name " + longSymbol + " is longer than " + SymbolRegistry.MAX_SYMBOL_LENGTH
+                        + " characters", Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0)),
+                () -> assertFalse(Objects.requireNonNull(cryptoService.getSymbols().getBody()).stream()
+                        .anyMatch(symbol -> symbol.symbol().equals(longSymbol)))
+        );
+    }
+
+    @Test
+    void disableSymbol_ShouldReturnNoContent_WhenCryptoNeverSeen() {
+        // When
+        ResponseEntity<CryptoSymbol> responseEntity = cryptoService.disableSymbol("abraKadabra");
+
+        // Then
+        assertAll(
+                () -> assertEquals(204, responseEntity.getStatusCode().value()),
+                () -> assertEquals("Nothing was found for crypto abraKadabra",
+                        Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+    }
+
+    @Test
+    void processUploadedFiles_ShouldStoreAllFiles_WhenAllFilesValid() {
+        // Given
+        List<MultipartFile> files = List.of(
+                csvFile("BTC_values.csv", "timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61\n"),
+                csvFile("ETH_values.csv", "timestamp,symbol,price\n1641009600000,ETH,3715.32\n"));
+
+        // When
+        ResponseEntity<BulkUploadReport> responseEntity = cryptoService.processUploadedFiles(files, "append");
+
+        // Then
+        ArgumentCaptor<List<CryptoTicks>> ticksCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(cryptoRepositoryMock).addAll(ticksCaptor.capture(), Mockito.eq(false));
+        BulkUploadReport report = responseEntity.getBody();
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertNotNull(report),
+                () -> assertTrue(report.stored()),
+                () -> assertEquals(List.of(
+                        new FileUploadResult("BTC_values.csv", FileUploadStatusEnum.STORED, 2, null),
+                        new FileUploadResult("ETH_values.csv", FileUploadStatusEnum.STORED, 1, null)), report.files()),
+                () -> assertEquals(List.of("btc", "eth"), ticksCaptor.getValue().stream().map(CryptoTicks::symbol).toList()),
+                () -> assertEquals(2, ticksCaptor.getValue().get(0).size())
+        );
+    }
+
+    @Test
+    void processUploadedFiles_ShouldStoreNothing_WhenAnyFileRejected() {
+        // Given
+        List<MultipartFile> files = List.of(
+                csvFile("BTC_values.csv", "timestamp,symbol,price\n1641009600000,BTC,46813.21\n"),
+                csvFile("ETH_values.csv", "timestamp,symbol,price\n1641009600000,ETH,37i5.32\n"));
+
+        // When
+        ResponseEntity<BulkUploadReport> responseEntity = cryptoService.processUploadedFiles(files, "append");
+
+        // Then
+        Mockito.verifyNoInteractions(cryptoRepositoryMock);
+        BulkUploadReport report = responseEntity.getBody();
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertNotNull(report),
+                () -> assertFalse(report.stored()),
+                () -> assertEquals(List.of(
+                        new FileUploadResult("BTC_values.csv", FileUploadStatusEnum.SKIPPED, 1, null),
+                        new FileUploadResult("ETH_values.csv", FileUploadStatusEnum.REJECTED, 0,
+                                "Wrong number provided in file. Please, check the file for number formats")), report.files())
+        );
+    }
+
+    @Test
+    void processUploadedFiles_ShouldStoreFilesFromZipArchive() throws IOException {
+        // Given
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("prices/"));
+            zip.putNextEntry(new ZipEntry("prices/XRP_values.csv"));
+            zip.write("timestamp,symbol,price\n1641009600000,XRP,0.8298\n".getBytes());
+            zip.putNextEntry(new ZipEntry("prices/LTC_values.csv"));
+            zip.write("timestamp,symbol,price\n1641009600000,LTC,148.1\n".getBytes());
+        }
+        MultipartFile zipFile = new MockMultipartFile("files", "cryptos.zip", "application/zip", archive.toByteArray());
+
+        // When
+        ResponseEntity<BulkUploadReport> responseEntity = cryptoService.processUploadedFiles(List.of(zipFile), "replace");
+
+        // Then
+        ArgumentCaptor<List<CryptoTicks>> ticksCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(cryptoRepositoryMock).addAll(ticksCaptor.capture(), Mockito.eq(true));
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertEquals(List.of("XRP_values.csv", "LTC_values.csv"),
+                        Objects.requireNonNull(responseEntity.getBody()).files().stream().map(FileUploadResult::fileName).toList()),
+                () -> assertEquals(List.of("xrp", "ltc"), ticksCaptor.getValue().stream().map(CryptoTicks::symbol).toList())
+        );
+    }
+
+    @Test
+    void processUploadedFiles_ShouldRejectZipArchive_WhenUnpackedFilesExceedMaxRequestSize() throws IOException {
+        // Given
+        byte[] rows = new byte[600 * 1024];
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("XRP_values.csv"));
+            zip.write(rows);
+            zip.putNextEntry(new ZipEntry("LTC_values.csv"));
+            zip.write(rows);
+        }
+        MultipartFile zipFile = new MockMultipartFile("files", "cryptos.zip", "application/zip", archive.toByteArray());
+        double rejectedBefore = meterRegistry.counter("crypto.ingestion.rejected", "reason", "archive").count();
+
+        // When
+        ResponseEntity<BulkUploadReport> responseEntity = cryptoService.processUploadedFiles(List.of(zipFile), "append");
+
+        // Then
+        Mockito.verifyNoInteractions(cryptoRepositoryMock);
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertEquals("Wrong ZIP archive: Unpacked files exceed 1048576 bytes",
+                        Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0)),
+                () -> assertEquals(rejectedBefore + 1,
+                        meterRegistry.counter("crypto.ingestion.rejected", "reason", "archive").count())
+        );
+    }
+
+    @Test
+    void processUploadedFiles_ShouldRejectZipArchive_WhenItHasTooManyFiles() throws IOException {
+        // Given
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (int i = 0; i <= 1024; i++) {
+                zip.putNextEntry(new ZipEntry(i + "/BTC_values.csv"));
+            }
+        }
+        MultipartFile zipFile = new MockMultipartFile("files", "cryptos.zip", "application/zip", archive.toByteArray());
+
+        // When
+        ResponseEntity<BulkUploadReport> responseEntity = cryptoService.processUploadedFiles(List.of(zipFile), "append");
+
+        // Then
+        Mockito.verifyNoInteractions(cryptoRepositoryMock);
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertEquals("Wrong ZIP archive: Archive contains more than 1024 files",
+                        Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+    }
+
+    @Test
+    void processUploadedFiles_ShouldReturnBadRequest_WhenNoFilesPassed() {
+        // When
+        ResponseEntity<BulkUploadReport> responseEntity = cryptoService.processUploadedFiles(List.of(), "append");
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertNull(responseEntity.getBody()),
+                () -> assertEquals("No files uploaded", Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
         );
     }
 
@@ -262,6 +753,111 @@ class CryptoServiceTest {
         );
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1})
+    void getSortedCryptos_ShouldReturnBadRequest_WhenLimitIsNotPositive(int limit) {
+        // When
+        ResponseEntity<List<String>> responseEntity = cryptoService.getSortedCryptos("normalized_desc", limit);
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertNull(responseEntity.getBody()),
+                () -> assertEquals("Limit must be positive",
+                        Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+    }
+
+    @Test
+    void getSortedCryptos_ShouldReturnFirstCryptos_WhenLimitProvided() {
+        // Given
+        Mockito.when(cryptoRepositoryMock.getSortedCryptosByPassedAlgo(CryptoSortingTypeEnum.VOLATILITY_DESC, 2))
+                .thenReturn(List.of("doge", "xrp"));
+
+        // When
+        ResponseEntity<byte[]> responseEntity = cryptoService.getSortedCryptosAsJson("volatility_desc", 2);
+
+        // Then
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertEquals("[\"doge\",\"xrp\"]", new String(Objects.requireNonNull(responseEntity.getBody())))
+        );
+    }
+
+    @Test
+    void getSortedCryptosAsJson_ShouldReuseSerializedBytes_UntilRankingChanges() {
+        // Given
+        List<String> ranking = List.of("btc", "eth");
+        List<String> changedRanking = List.of("eth", "btc");
+        Mockito.when(cryptoRepositoryMock.getRankingsVersion()).thenReturn(101L, 101L, 102L);
+        Mockito.when(cryptoRepositoryMock.getSortedCryptosByPassedAlgo(CryptoSortingTypeEnum.NORMALIZED_DESC))
+                .thenReturn(ranking, changedRanking);
+
+        // When
+        ResponseEntity<byte[]> first = cryptoService.getSortedCryptosAsJson("normalized_desc", null);
+        ResponseEntity<byte[]> second = cryptoService.getSortedCryptosAsJson("Normalized_Desc", null);
+        ResponseEntity<byte[]> changed = cryptoService.getSortedCryptosAsJson("NORMALIZED_DESC", null);
+
+        // Then
+        assertAll(
+                () -> assertEquals(200, first.getStatusCode().value()),
+                () -> assertEquals(MediaType.APPLICATION_JSON, first.getHeaders().getContentType()),
+                () -> assertEquals("[\"btc\",\"eth\"]", new String(Objects.requireNonNull(first.getBody()))),
+                () -> assertSame(first.getBody(), second.getBody()),
+                () -> assertEquals("[\"eth\",\"btc\"]", new String(Objects.requireNonNull(changed.getBody()))),
+                () -> assertNotEquals(first.getHeaders().getETag(), changed.getHeaders().getETag())
+        );
+    }
+
+    @Test
+    void getSortedCryptosAsJson_ShouldReturnNotModified_WhenETagMatches() {
+        // Given
+        Mockito.when(cryptoRepositoryMock.getRankingsVersion()).thenReturn(201L);
+        Mockito.when(cryptoRepositoryMock.getSortedCryptosByPassedAlgo(CryptoSortingTypeEnum.CHANGE_DESC))
+                .thenReturn(List.of("btc", "eth"));
+        String eTag = cryptoService.getSortedCryptosAsJson("change_desc", null, null).getHeaders().getETag();
+
+        // When
+        ResponseEntity<byte[]> responseEntity = cryptoService.getSortedCryptosAsJson("change_desc", null,
+                "\"other\", W/" + eTag);
+
+        // Then
+        Mockito.verify(cryptoRepositoryMock, Mockito.times(1))
+                .getSortedCryptosByPassedAlgo(CryptoSortingTypeEnum.CHANGE_DESC);
+        assertAll(
+                () -> assertNotNull(eTag),
+                () -> assertEquals(304, responseEntity.getStatusCode().value()),
+                () -> assertEquals(eTag, responseEntity.getHeaders().getETag()),
+                () -> assertEquals("max-age=0, must-revalidate", responseEntity.getHeaders().getCacheControl()),
+                () -> assertNull(responseEntity.getBody())
+        );
+    }
+
+    @Test
+    void getMetadataForCryptoAsJson_ShouldReturnNoContent_WhenAnyETagRequestedForUnknownCrypto() {
+        // When
+        ResponseEntity<byte[]> responseEntity = cryptoService.getMetadataForCryptoAsJson("doge", "*");
+
+        // Then
+        assertAll(
+                () -> assertEquals(204, responseEntity.getStatusCode().value()),
+                () -> assertNull(responseEntity.getBody())
+        );
+    }
+
+    @Test
+    void getSortedCryptosAsJson_ShouldReturnBadRequest_WhenWrongSortingTypeWithAnyETag() {
+        // When
+        ResponseEntity<byte[]> responseEntity = cryptoService.getSortedCryptosAsJson("abra-kadabra", null, "*");
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertNull(responseEntity.getHeaders().getETag())
+        );
+        Mockito.verifyNoInteractions(cryptoRepositoryMock);
+    }
+
     @Test
     void getCryptoWithHighestNormalizedRangeForDate_ShouldReturnBadRequest_WhenWrongFormatDate() {
         // Given
@@ -278,6 +874,42 @@ class CryptoServiceTest {
         );
     }
 
+    @Test
+    void getCryptoWithHighestNormalizedRangeForDate_ShouldReturnBadRequest_WhenWrongZone() {
+        // Given
+        String wrongZone = "Mars/Olympus";
+        String errMsg = "Wrong time zone: " + wrongZone;
+
+        // When
+        ResponseEntity<String> responseEntity =
+                cryptoService.getCryptoWithHighestNormalizedRangeForDate("2022-01-05", wrongZone, null);
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertNull(responseEntity.getBody()),
+                () -> assertEquals(errMsg, Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+    }
+
+    @Test
+    void getCryptoWithHighestNormalizedRangeForDate_ShouldQueryZone_WhenZonePassed() {
+        // Given
+        LocalDate date = LocalDate.parse("2022-01-05");
+        ZoneId zone = ZoneId.of("Asia/Tokyo");
+        Mockito.when(cryptoRepositoryMock.getHighestNormalizedRangesForDay(date, zone)).thenReturn("eth");
+
+        // When
+        ResponseEntity<String> responseEntity =
+                cryptoService.getCryptoWithHighestNormalizedRangeForDate("2022-01-05", "Asia/Tokyo", null);
+
+        // Then
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertEquals("eth", responseEntity.getBody())
+        );
+    }
+
     @Test
     void getCryptoWithHighestNormalizedRangeForDate_ShouldReturnNoContent_WhenNoCryptoFound() {
         // Given
@@ -315,6 +947,148 @@ class CryptoServiceTest {
         );
     }
 
+    @Test
+    void streamMetadata_ShouldWriteLinePerCryptoWithData_InRequestedOrder() throws IOException {
+        // Given
+        CryptoMetaData eth = new CryptoMetaData("eth", 3000, 3500, 2900, 3600, 700 / 2900.0);
+        CryptoMetaData btc = new CryptoMetaData("btc", 46000, 47000, 45000, 48000, 3000 / 45000.0);
+        Mockito.when(cryptoRepositoryMock.getMetadataForCrypto("eth")).thenReturn(eth);
+        Mockito.when(cryptoRepositoryMock.getMetadataForCrypto("btc")).thenReturn(btc);
+
+        // When
+        ResponseEntity<StreamingResponseBody> responseEntity = cryptoService.streamMetadata(List.of("ETH", "abraKadabra", "btc"));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        Objects.requireNonNull(responseEntity.getBody()).writeTo(body);
+
+        // Then
+        String[] lines = body.toString().split("\n", -1);
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertEquals(MediaType.APPLICATION_NDJSON, responseEntity.getHeaders().getContentType()),
+                () -> assertEquals(3, lines.length),
+                () -> assertEquals(eth, objectMapper.readValue(lines[0], CryptoMetaData.class)),
+                () -> assertEquals(btc, objectMapper.readValue(lines[1], CryptoMetaData.class)),
+                () -> assertEquals("", lines[2])
+        );
+    }
+
+    @Test
+    void streamMetadata_ShouldWriteEveryCryptoWithData_WhenAllRequested() throws IOException {
+        // Given
+        CryptoMetaData xrp = new CryptoMetaData("xrp", 0.8, 0.9, 0.7, 1.0, 0.3 / 0.7);
+        Mockito.when(cryptoRepositoryMock.getMetadataForCrypto("xrp")).thenReturn(xrp);
+
+        // When
+        ResponseEntity<StreamingResponseBody> responseEntity = cryptoService.streamMetadata(List.of("ALL"));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        Objects.requireNonNull(responseEntity.getBody()).writeTo(body);
+
+        // Then
+        assertEquals(objectMapper.writeValueAsString(xrp) + "\n", body.toString());
+    }
+
+    @Test
+    void streamMetadata_ShouldReturnBadRequest_WhenNoCryptoRequested() {
+        // When
+        ResponseEntity<StreamingResponseBody> responseEntity = cryptoService.streamMetadata(List.of());
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertEquals("No cryptos requested",
+                        Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+    }
+
+    @Test
+    void getCandles_ShouldReturnBadRequest_WhenWrongResolution() {
+        // Given
+        String errMsg = "Wrong candle resolution. Available resolutions: [1m, 1h, 1d, 1w]";
+
+        // When
+        ResponseEntity<List<Candle>> responseEntity = cryptoService.getCandles("btc", "5m", "0", "1");
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertNull(responseEntity.getBody()),
+                () -> assertEquals(errMsg, Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+        Mockito.verifyNoInteractions(cryptoRepositoryMock);
+    }
+
+    @Test
+    void getCandles_ShouldReturnCandles_OfRequestedResolution() {
+        // Given
+        List<Candle> candles = List.of(new Candle(1641081600000L, 10, 12, 9, 11));
+        Mockito.when(cryptoRepositoryMock.getCandles("btc", CandleResolutionEnum.DAY, 1641081600000L, 1641168000000L))
+                .thenReturn(candles);
+
+        // When
+        ResponseEntity<List<Candle>> responseEntity = cryptoService.getCandles("BTC", "1d", "2022-01-02T00:00:00Z",
+                "1641168000000");
+
+        // Then
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertEquals(candles, responseEntity.getBody())
+        );
+    }
+
+    @Test
+    void exportTicks_ShouldReturnBadRequest_WhenWrongFormat() {
+        // When
+        ResponseEntity<StreamingResponseBody> responseEntity = cryptoService.exportTicks("btc", null, null, "xml");
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertEquals("Wrong export format. Available formats: [csv, bin]",
+                        Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+        Mockito.verifyNoInteractions(cryptoRepositoryMock);
+    }
+
+    @Test
+    void exportTicks_ShouldReturnNoContent_WhenNoTicksInRange() {
+        // When
+        ResponseEntity<StreamingResponseBody> responseEntity = cryptoService.exportTicks("btc", "0", "1", "csv");
+
+        // Then
+        assertAll(
+                () -> assertEquals(204, responseEntity.getStatusCode().value()),
+                () -> assertEquals("Nothing was found for crypto btc in range 0 - 1",
+                        Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+    }
+
+    @Test
+    void exportTicks_ShouldStreamCsvAttachment_OfWholeHistory_WhenNoRange() throws IOException {
+        // Given
+        Mockito.when(cryptoRepositoryMock.getMetadataForCrypto("btc", Long.MIN_VALUE, Long.MAX_VALUE))
+                .thenReturn(new CryptoMetaData("btc", 46813.21, 46813.21, 46813.21, 46813.21, 0));
+        Mockito.when(cryptoRepositoryMock.exportTicks(Mockito.eq("btc"), Mockito.eq(Long.MIN_VALUE),
+                Mockito.eq(Long.MAX_VALUE), Mockito.any())).thenAnswer(invocation -> {
+            LongFunction<CryptoDataWriter> writerFactory = invocation.getArgument(3);
+            CryptoDataWriter writer = writerFactory.apply(1);
+            writer.accept(new long[]{1641009600000L}, new double[]{46813.21}, 1);
+            return writer;
+        });
+
+        // When
+        ResponseEntity<StreamingResponseBody> responseEntity = cryptoService.exportTicks("BTC", null, null, "CSV");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        Objects.requireNonNull(responseEntity.getBody()).writeTo(body);
+
+        // Then
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertEquals(MediaType.parseMediaType("text/csv"), responseEntity.getHeaders().getContentType()),
+                () -> assertEquals("BTC_values.csv", responseEntity.getHeaders().getContentDisposition().getFilename()),
+                () -> assertEquals("timestamp,symbol,price\n1641009600000,BTC,46813.21\n", body.toString())
+        );
+    }
+
     @Test
     void getMetadataForCrypto_ShouldReturnNoContent_WhenCryptoNotInRepo() {
         // Given
@@ -333,6 +1107,75 @@ class CryptoServiceTest {
         );
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"yesterday", "2022-01-01", ""})
+    void getMetadataForCryptoInRange_ShouldReturnBadRequest_WhenWrongTimePassed(String from) {
+        // Given
+        String to = "1641081600000";
+        String errMsg = String.format("Error while parsing provided range: %s - %s", from, to);
+
+        // When
+        ResponseEntity<RangeMetaData> responseEntity = cryptoService.getMetadataForCryptoInRange("btc", from, to);
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertNull(responseEntity.getBody()),
+                () -> assertEquals(errMsg, Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+        Mockito.verifyNoInteractions(cryptoRepositoryMock);
+    }
+
+    @Test
+    void getMetadataForCryptoInRange_ShouldReturnBadRequest_WhenStartIsAfterEnd() {
+        // When
+        ResponseEntity<RangeMetaData> responseEntity =
+                cryptoService.getMetadataForCryptoInRange("btc", "2022-01-02T00:00:00Z", "2022-01-01T00:00:00Z");
+
+        // Then
+        assertAll(
+                () -> assertEquals(400, responseEntity.getStatusCode().value()),
+                () -> assertEquals("Start of the range must not be after its end",
+                        Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+    }
+
+    @Test
+    void getMetadataForCryptoInRange_ShouldReturnNoContent_WhenNoDataInRange() {
+        // Given
+        Mockito.when(cryptoRepositoryMock.getMetadataForCrypto("btc", 1641000000000L, 1641081600000L)).thenReturn(null);
+
+        // When
+        ResponseEntity<RangeMetaData> responseEntity =
+                cryptoService.getMetadataForCryptoInRange("BTC", "1641000000000", "1641081600000");
+
+        // Then
+        assertAll(
+                () -> assertEquals(204, responseEntity.getStatusCode().value()),
+                () -> assertNull(responseEntity.getBody()),
+                () -> assertEquals("Nothing was found for crypto BTC in range 1641000000000 - 1641081600000",
+                        Objects.requireNonNull(responseEntity.getHeaders().get(ERR_HEADER_NAME)).get(0))
+        );
+    }
+
+    @Test
+    void getMetadataForCryptoInRange_ShouldReturnMetadata_WhenIsoInstantsPassed() {
+        // Given
+        CryptoMetaData btcMetadata = new CryptoMetaData("btc", 1d, 2d, 3d, 4d, 5d);
+        Mockito.when(cryptoRepositoryMock.getMetadataForCrypto("btc", 1640995200000L, 1641081600000L)).thenReturn(btcMetadata);
+
+        // When
+        ResponseEntity<RangeMetaData> responseEntity =
+                cryptoService.getMetadataForCryptoInRange("btc", "2022-01-01T00:00:00Z", "2022-01-02T00:00:00Z");
+
+        // Then
+        assertAll(
+                () -> assertEquals(200, responseEntity.getStatusCode().value()),
+                () -> assertEquals(new RangeMetaData("btc", 1640995200000L, 1641081600000L, 1d, 2d, 3d, 4d, 5d),
+                        responseEntity.getBody())
+        );
+    }
+
     @Test
     void getMetadataForCrypto_ShouldReturnCryptosMetadata() {
         // Given
@@ -355,4 +1198,57 @@ class CryptoServiceTest {
                 () -> assertEquals(expectedResult.getNewestPrice(), actualResult.getNewestPrice())
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMetadataForCryptoAsJson_ShouldReturnCachedBodyWithETag_UntilMetadataVersionChanges() {
+        // Given
+        Mockito.when(cryptoRepositoryMock.getMetadataVersion("ltc")).thenReturn(301L, 301L, 302L);
+        Mockito.when(cryptoRepositoryMock.getMetadataForCrypto("ltc"))
+                .thenReturn(new CryptoMetaData("ltc", 1d, 2d, 1d, 2d, 1d), new CryptoMetaData("ltc", 1d, 3d, 1d, 3d, 2d));
+
+        // When
+        ResponseEntity<byte[]> first = cryptoService.getMetadataForCryptoAsJson("LTC", null);
+        ResponseEntity<byte[]> notModified = cryptoService.getMetadataForCryptoAsJson("ltc", first.getHeaders().getETag());
+        ResponseEntity<byte[]> changed = cryptoService.getMetadataForCryptoAsJson("ltc", first.getHeaders().getETag());
+
+        // Then
+        Mockito.verify(cryptoRepositoryMock, Mockito.times(2)).getMetadataForCrypto("ltc");
+        assertAll(
+                () -> assertEquals(200, first.getStatusCode().value()),
+                () -> assertEquals(MediaType.APPLICATION_JSON, first.getHeaders().getContentType()),
+                () -> assertEquals(objectMapper.readTree("{\"oldestPrice\":1.0,\"newestPrice\":2.0,\"minPrice\":1.0,\"maxPrice\":2.0}"),
+                        objectMapper.readTree(first.getBody())),
+                () -> assertEquals(304, notModified.getStatusCode().value()),
+                () -> assertEquals(200, changed.getStatusCode().value()),
+                () -> assertEquals(objectMapper.readTree("{\"oldestPrice\":1.0,\"newestPrice\":3.0,\"minPrice\":1.0,\"maxPrice\":3.0}"),
+                        objectMapper.readTree(changed.getBody()))
+        );
+    }
+
+    @Test
+    void processUploadedFiles_ShouldCountIngestedRowsAndRejectedFiles() {
+        // Given
+        String content = "timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61\n";
+        double rowsBefore = meterRegistry.counter("crypto.ingestion.rows").count();
+        double bytesBefore = meterRegistry.counter("crypto.ingestion.bytes").count();
+        double rejectedBefore = meterRegistry.counter("crypto.ingestion.rejected", "reason", "file").count();
+        long storedBefore = meterRegistry.timer("crypto.ingestion.stage", "stage", "store").count();
+
+        // When
+        cryptoService.processUploadedFile(csvFile("BTC_values.csv", content));
+        cryptoService.processUploadedFile(csvFile("BTC.csv", content));
+
+        // Then
+        assertAll(
+                () -> assertEquals(2, meterRegistry.counter("crypto.ingestion.rows").count() - rowsBefore),
+                () -> assertEquals(content.length(), meterRegistry.counter("crypto.ingestion.bytes").count() - bytesBefore),
+                () -> assertEquals(1, meterRegistry.counter("crypto.ingestion.rejected", "reason", "file").count()
+                        - rejectedBefore),
+                () -> assertEquals(1, meterRegistry.timer("crypto.ingestion.stage", "stage", "store").count() - storedBefore)
+        );
+    }
+
+    private static MultipartFile csvFile(String fileName, String content) {
+        return new MockMultipartFile("files", fileName, "text/csv", content.getBytes());
+    }
+}